@@ -0,0 +1,136 @@
+package br.ifs.compiladores;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo por nó de um ponto de despacho sobre nós Expr embaralhados: cadeia de
+ * instanceof (como as passagens faziam antes do Visitor), accept(Visitor) e o
+ * switch sobre o Kind da AstArena usado hoje pelas passagens. Com
+ * {@code kinds = 2} (literais e variáveis) o ponto de chamada de accept é
+ * bimórfico; com 5 ele é megamórfico e a JVM não consegue mais embutir a
+ * chamada. Os nós de 2 tipos ficam no meio da cadeia de instanceof.
+ *
+ * <p>Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=DispatchBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int NODES = 1 << 20;
+
+    // Tipos de nó distintos entre os NODES nós
+    @Param({ "2", "5" })
+    public int kinds;
+
+    public Expr[] nodes;
+    public AstArena arena;
+    public int[] handles;
+
+    private static final Expr.Visitor<Integer> WEIGHT = new Expr.Visitor<Integer>() {
+        @Override
+        public Integer visitBinary(BinaryExpr expr) { return 1; }
+
+        @Override
+        public Integer visitUnary(UnaryExpr expr) { return 2; }
+
+        @Override
+        public Integer visitLiteral(LiteralExpr expr) { return 3; }
+
+        @Override
+        public Integer visitVariable(VariableExpr expr) { return 4; }
+
+        @Override
+        public Integer visitCall(CallExpr expr) { return 5; }
+    };
+
+    @Setup
+    public void setup() {
+        Token plus = new Token(TokenType.PLUS, "+", null, 1, 1);
+        Token minus = new Token(TokenType.MINUS, "-", null, 1, 1);
+        Token name = new Token(TokenType.IDENTIFIER, "x", null, 1, 1);
+        Token callee = new Token(TokenType.INT, "int", null, 1, 1);
+
+        List<Expr> shuffled = new ArrayList<>(NODES);
+        for (int i = 0; i < NODES; i++) {
+            switch (kinds == 2 ? 2 + i % 2 : i % 5) {
+                case 0: shuffled.add(new BinaryExpr(new LiteralExpr(1), plus, new LiteralExpr(2))); break;
+                case 1: shuffled.add(new UnaryExpr(minus, new LiteralExpr(1))); break;
+                case 2: shuffled.add(new LiteralExpr(i & 1023)); break;
+                case 3: shuffled.add(new VariableExpr(name)); break;
+                default: shuffled.add(new CallExpr(callee, List.of(new LiteralExpr(1)))); break;
+            }
+        }
+        Collections.shuffle(shuffled, new Random(42));
+        nodes = shuffled.toArray(new Expr[0]);
+
+        arena = new AstArena(new SymbolTable(), NODES * 4);
+        handles = new int[NODES];
+        for (int i = 0; i < NODES; i++) {
+            arena.addRoot(new PrintStmt(nodes[i]));
+            handles[i] = arena.value(arena.root(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int instanceofChain() {
+        int sum = 0;
+        for (Expr expr : nodes) {
+            if (expr instanceof BinaryExpr) sum += 1;
+            else if (expr instanceof UnaryExpr) sum += 2;
+            else if (expr instanceof LiteralExpr) sum += 3;
+            else if (expr instanceof VariableExpr) sum += 4;
+            else if (expr instanceof CallExpr) sum += 5;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int visitor() {
+        int sum = 0;
+        for (Expr expr : nodes) {
+            sum += expr.accept(WEIGHT);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int arenaSwitch() {
+        AstArena ast = arena;
+        int sum = 0;
+        for (int node : handles) {
+            switch (ast.kind(node)) {
+                case BINARY: sum += 1; break;
+                case UNARY: sum += 2; break;
+                case LITERAL: sum += 3; break;
+                case VARIABLE: sum += 4; break;
+                case CALL: sum += 5; break;
+                default: throw new IllegalStateException("Nó de expressão inesperado: " + ast.kind(node));
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,67 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo do modo com pilha explícita ({@code setExplicitStack(true)}) em código
+ * comum, sem aninhamento profundo ({@link Programs#ordinary}): a mesma
+ * sequência de tokens analisada por recursão e com pilhas no heap, tanto para
+ * {@code parse()} quanto para {@code parseToArena()}.
+ *
+ * <p>Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=ExplicitStackBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExplicitStackBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    public TokenStream tokens;
+
+    @Setup
+    public void setup() {
+        tokens = TokenStream.of(Programs.ordinary(lines));
+    }
+
+    @Benchmark
+    public List<Stmt> recursive() {
+        return new MiniPythonParser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> explicitStack() {
+        MiniPythonParser parser = new MiniPythonParser(tokens);
+        parser.setExplicitStack(true);
+        return parser.parse();
+    }
+
+    @Benchmark
+    public AstArena recursiveArena() {
+        return new MiniPythonParser(tokens).parseToArena();
+    }
+
+    @Benchmark
+    public AstArena explicitStackArena() {
+        MiniPythonParser parser = new MiniPythonParser(tokens);
+        parser.setExplicitStack(true);
+        return parser.parseToArena();
+    }
+}
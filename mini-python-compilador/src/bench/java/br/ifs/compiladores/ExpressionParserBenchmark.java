@@ -0,0 +1,70 @@
+package br.ifs.compiladores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tempo de análise sintática de código dominado por expressões
+ * ({@link Programs#expressions}): o parser inicial, com uma função por nível de
+ * precedência ({@link BaselineParser}), contra o laço Pratt do parser atual,
+ * lendo a mesma List&lt;Token&gt; ou um {@link TokenStream}. Os tokens são
+ * produzidos uma vez, fora da medição.
+ *
+ * <p>Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=ExpressionParserBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionParserBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    // Operandos por expressão
+    @Param({ "12" })
+    public int operands;
+
+    public List<Token> tokenList;
+    public TokenStream tokenStream;
+
+    @Setup
+    public void setup() {
+        String source = Programs.expressions(lines, operands);
+        tokenStream = TokenStream.of(source);
+        tokenList = new ArrayList<>(tokenStream.size());
+        for (int i = 0; i < tokenStream.size(); i++) {
+            tokenList.add(tokenStream.get(i));
+        }
+    }
+
+    @Benchmark
+    public List<Stmt> baselineList() {
+        return new BaselineParser(tokenList).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> prattList() {
+        return new MiniPythonParser(tokenList).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> prattTokenStream() {
+        return new MiniPythonParser(tokenStream).parse();
+    }
+}
@@ -0,0 +1,81 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latência de uma edição de um caractere num arquivo grande
+ * ({@link Programs#ordinary}): {@code IncrementalLexer.relex} seguido de
+ * {@code IncrementalParser.reparse}, contra lexer e parser completos sobre o
+ * mesmo texto. A edição troca um dígito na posição {@code at} (fração do
+ * arquivo) e alterna entre as duas versões, então cada chamada reanalisa a
+ * AST devolvida pela anterior. As duas versões do texto são montadas antes da
+ * medição.
+ *
+ * <p>O modo SampleTime mostra a mediana ({@code p0.50}) e os percentis.
+ * Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=IncrementalReparseBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalReparseBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    // Posição da edição, como fração do tamanho do arquivo
+    @Param({ "0.1", "0.5", "0.9" })
+    public double at;
+
+    public String[] versions;
+    public TextEdit edit;
+
+    public int version;
+    public TokenStream tokens;
+    public List<Stmt> ast;
+
+    @Setup
+    public void setup() {
+        String source = Programs.ordinary(lines);
+        // O dígito de "* 3 +" da primeira atribuição depois da posição pedida
+        int offset = source.indexOf(" * 3 + (", (int) (source.length() * at)) + 3;
+        versions = new String[] {
+            source,
+            source.substring(0, offset) + '5' + source.substring(offset + 1)
+        };
+        edit = new TextEdit(offset, 1, 1);
+        version = 0;
+        tokens = TokenStream.of(source);
+        ast = new MiniPythonParser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> relexAndReparse() {
+        version ^= 1;
+        TokenEdit tokenEdit = IncrementalLexer.relex(tokens, versions[version], edit);
+        tokens = tokenEdit.tokens;
+        ast = IncrementalParser.reparse(ast, tokenEdit);
+        return ast;
+    }
+
+    @Benchmark
+    public List<Stmt> fullParse() {
+        version ^= 1;
+        return new MiniPythonParser(TokenStream.of(versions[version])).parse();
+    }
+}
@@ -0,0 +1,98 @@
+package br.ifs.compiladores;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tokens por segundo do analisador léxico sobre um programa gerado
+ * ({@link Programs#ordinary}). Compara o lexer inicial ({@link BaselineLexer})
+ * com o atual por {@code nextToken()}, por {@code scan()} (sem objetos Token)
+ * e preenchendo um {@link TokenStream}.
+ *
+ * <p>A taxa em tokens/s aparece na linha {@code :tokens} de cada benchmark.
+ * Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=LexerBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    public String source;
+
+    @Setup
+    public void setup() {
+        source = Programs.ordinary(lines);
+    }
+
+    // Conta os tokens lidos; o JMH reporta a soma como uma taxa por segundo
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Tokens {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Benchmark
+    public void baselineNextToken(Tokens counter, Blackhole bh) {
+        BaselineLexer lexer = new BaselineLexer(source);
+        long count = 1;
+        for (Token token = lexer.nextToken(); token.type != TokenType.EOF; token = lexer.nextToken()) {
+            bh.consume(token);
+            count++;
+        }
+        counter.tokens += count;
+    }
+
+    @Benchmark
+    public void nextToken(Tokens counter, Blackhole bh) {
+        MiniPythonLexer lexer = new MiniPythonLexer(source);
+        long count = 1;
+        for (Token token = lexer.nextToken(); token.type != TokenType.EOF; token = lexer.nextToken()) {
+            bh.consume(token);
+            count++;
+        }
+        counter.tokens += count;
+    }
+
+    @Benchmark
+    public void scan(Tokens counter, Blackhole bh) {
+        MiniPythonLexer lexer = new MiniPythonLexer(source);
+        long count = 1;
+        for (TokenType type = lexer.scan(); type != TokenType.EOF; type = lexer.scan()) {
+            bh.consume(type);
+            count++;
+        }
+        counter.tokens += count;
+    }
+
+    @Benchmark
+    public TokenStream tokenStream(Tokens counter) {
+        TokenStream tokens = TokenStream.of(source);
+        counter.tokens += tokens.size();
+        return tokens;
+    }
+}
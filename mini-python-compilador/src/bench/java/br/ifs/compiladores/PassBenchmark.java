@@ -0,0 +1,77 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vazão da análise semântica e do gerador de TAC sobre uma AST grande
+ * ({@link Programs#ordinary}). Cada passagem roda sobre a AstArena de
+ * {@code parseToArena} e sobre a List&lt;Stmt&gt; de {@code parse}, que é
+ * convertida com AstArena.of a cada chamada; {@code convert} mede só essa
+ * conversão.
+ *
+ * <p>Para rodar: {@code mvn -Pbench test-compile exec:exec -Dbench=PassBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PassBenchmark {
+
+    @Param({ "100000" })
+    public int lines;
+
+    public List<Stmt> statements;
+    public AstArena arena;
+
+    @Setup
+    public void setup() {
+        TokenStream tokens = TokenStream.of(Programs.ordinary(lines));
+        statements = new MiniPythonParser(tokens).parse();
+        arena = new MiniPythonParser(tokens).parseToArena();
+        // O gerador usa os tipos anotados pela análise
+        new MiniPythonSemantic().analyze(statements);
+        new MiniPythonSemantic().analyze(arena);
+    }
+
+    @Benchmark
+    public AstArena convert() {
+        return AstArena.of(statements);
+    }
+
+    @Benchmark
+    public List<Stmt> semanticList() {
+        new MiniPythonSemantic().analyze(statements);
+        return statements;
+    }
+
+    @Benchmark
+    public AstArena semanticArena() {
+        new MiniPythonSemantic().analyze(arena);
+        return arena;
+    }
+
+    @Benchmark
+    public TACProgram tacList() {
+        return new MiniPythonTACGenerator().generateCompact(statements);
+    }
+
+    @Benchmark
+    public TACProgram tacArena() {
+        return new MiniPythonTACGenerator().generateCompact(arena);
+    }
+}
@@ -0,0 +1,93 @@
+package br.ifs.compiladores;
+
+import java.util.Random;
+
+/**
+ * Programas Mini-Python sintéticos usados pelos benchmarks. A semente é fixa,
+ * então o mesmo tamanho gera sempre o mesmo texto.
+ */
+final class Programs {
+
+    private static final long SEED = 42;
+
+    private static final String[] ARITHMETIC = { " + ", " - ", " * ", " / " };
+
+    private Programs() {
+    }
+
+    // --- Código comum ---
+
+    /**
+     * Pelo menos {@code lines} linhas de código típico: atribuições, if/else,
+     * while, print, chamadas built-in, comentários e literais de todos os tipos.
+     * Todas as variáveis são definidas antes de serem lidas, então o programa
+     * também passa pela análise semântica.
+     */
+    static String ordinary(int lines) {
+        Random random = new Random(SEED);
+        StringBuilder out = new StringBuilder(lines * 24);
+        for (int i = 0; i < 16; i++) {
+            out.append('a').append(i).append(" = ").append(i + 1).append('\n');
+            out.append('f').append(i).append(" = ").append(i).append(".5\n");
+        }
+        for (int i = 0; i < 8; i++) {
+            out.append('s').append(i).append(" = \"texto ").append(i).append("\"\n");
+        }
+        int written = 40;
+        for (int unit = 0; written < lines; unit++, written += 11) {
+            int i = random.nextInt(16), j = random.nextInt(16), k = random.nextInt(16);
+            String x = "x" + (unit % 512);
+            out.append("# passo ").append(unit).append('\n');
+            out.append(x).append(" = a").append(i).append(" * 3 + (a").append(j).append(" - 2) / 4\n");
+            out.append("if ").append(x).append(" > 10 and a").append(i).append(" != 0:\n");
+            out.append("    a").append(i).append(" = a").append(i).append(" - 1\n");
+            out.append("    print(").append(x).append(")\n");
+            out.append("else:\n");
+            out.append("    f").append(j).append(" = f").append(j).append(" * 1.5 + float(a").append(j).append(")\n");
+            out.append("while a").append(k).append(" < ").append(100 + unit % 50).append(":\n");
+            out.append("    a").append(k).append(" = a").append(k).append(" + 7  # incremento\n");
+            out.append('\n');
+            out.append('s').append(unit % 8).append(" = s").append(unit % 8).append(" + \"abc\"\n");
+        }
+        return out.toString();
+    }
+
+    // --- Código com muitas expressões ---
+
+    /**
+     * {@code lines} atribuições cujo lado direito tem {@code operands} operandos
+     * ligados por operadores aritméticos sorteados, com alguns parênteses.
+     */
+    static String expressions(int lines, int operands) {
+        Random random = new Random(SEED);
+        StringBuilder out = new StringBuilder(lines * operands * 8);
+        for (int i = 0; i < 16; i++) {
+            out.append('v').append(i).append(" = ").append(i + 1).append('\n');
+        }
+        for (int line = 0; line < lines; line++) {
+            out.append('e').append(line % 256).append(" = ");
+            boolean open = false;
+            for (int operand = 0; operand < operands; operand++) {
+                if (operand > 0) {
+                    out.append(ARITHMETIC[random.nextInt(ARITHMETIC.length)]);
+                }
+                if (!open && operand < operands - 1 && random.nextInt(4) == 0) {
+                    out.append('(');
+                    open = true;
+                }
+                if (random.nextBoolean()) {
+                    out.append('v').append(random.nextInt(16));
+                } else {
+                    out.append(random.nextInt(1000));
+                }
+                if (open && random.nextInt(3) == 0) {
+                    out.append(')');
+                    open = false;
+                }
+            }
+            if (open) out.append(')');
+            out.append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,416 @@
+package br.ifs.compiladores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AST compacta: cada nó é um índice (handle) em arrays primitivos paralelos,
+ * em vez de um objeto Stmt/Expr com referências para os filhos.
+ *
+ * Por tipo de nó, os campos a/b/c guardam:
+ *   BLOCK    a = lista de comandos
+ *   IF       a = condição, b = then, c = else (-1 se não houver)
+ *   WHILE    a = condição, b = corpo
+ *   ASSIGN   a = slot, b = valor
+ *   PRINT    a = expressão
+ *   BINARY   a = esquerda, b = direita, c = operador (ordinal de TokenType)
+ *   UNARY    a = operando, c = operador
+ *   LITERAL  a = índice no pool de constantes
+ *   VARIABLE a = slot
+ *   CALL     a = lista de argumentos, b = função (ordinal de TokenType), c = nome (no pool de constantes)
+ *
+ * Variáveis são guardadas pelo slot (ver SymbolTable) do nome na tabela da
+ * arena, internado durante a conversão, e listas (filhos de BLOCK, argumentos
+ * de CALL) ficam num array de int no formato [quantidade, itens...].
+ * MiniPythonSemantic e MiniPythonTACGenerator percorrem só esta
+ * representação; uma List&lt;Stmt&gt; é convertida com AstArena.of, que
+ * também copia os tipos já anotados em Expr.type.
+ */
+public final class AstArena {
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final Kind[] KINDS = Kind.values();
+    private static final Type[] TYPE_VALUES = Type.values();
+
+    enum Kind { BLOCK, IF, WHILE, ASSIGN, PRINT, BINARY, UNARY, LITERAL, VARIABLE, CALL }
+
+    private byte[] kinds;
+    private byte[] types; // tipo inferido + 1 (0 = sem tipo); criado na primeira anotação
+    private int[] a;
+    private int[] b;
+    private int[] c;
+    private int size = 0;
+
+    private int[] lists = new int[64];
+    private int listsSize = 0;
+
+    private int[] roots = new int[16];
+    private int rootCount = 0;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    // Tabela em que os slots dos nós convertidos foram registrados
+    private final SymbolTable symbols;
+    // Expressão de origem de cada nó (só numa arena criada por linked)
+    private Expr[] sources;
+
+    AstArena(SymbolTable symbols) {
+        this(symbols, 256);
+    }
+
+    AstArena(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        kinds = new byte[capacity];
+        a = new int[capacity];
+        b = new int[capacity];
+        c = new int[capacity];
+    }
+
+    /** Converte uma AST de objetos (como a de MiniPythonParser.parse()). */
+    public static AstArena of(List<Stmt> statements) {
+        AstArena arena = new AstArena(SymbolTable.of(statements), Math.max(16, statements.size() * 8));
+        for (Stmt stmt : statements) arena.addRoot(stmt);
+        return arena;
+    }
+
+    // Como of, guardando a expressão de origem de cada nó para que os tipos
+    // anotados na arena voltem à AST de objetos (copyTypesToSources)
+    static AstArena linked(List<Stmt> statements) {
+        AstArena arena = new AstArena(SymbolTable.of(statements), Math.max(16, statements.size() * 8));
+        arena.sources = new Expr[arena.kinds.length];
+        for (Stmt stmt : statements) arena.addRoot(stmt);
+        return arena;
+    }
+
+    // Grava em Expr.type o tipo de cada nó de expressão de uma arena linked
+    void copyTypesToSources() {
+        for (int node = 0; node < size; node++) {
+            if (sources[node] != null) sources[node].type = type(node);
+        }
+    }
+
+    // --- Construção ---
+
+    // Acrescenta um comando de nível superior (e toda a sua subárvore),
+    // internando os nomes de variáveis em symbols
+    void addRoot(Stmt stmt) {
+        int node = add(stmt);
+        if (rootCount == roots.length) roots = Arrays.copyOf(roots, rootCount * 2);
+        roots[rootCount++] = node;
+    }
+
+    private final Flattener flattener = new Flattener();
+
+    // Conversão com pilhas no heap em vez de recursão: a AST de objetos pode
+    // ser tão funda quanto o parser com explicitStack permite. Cada nó entra
+    // na pilha duas vezes: ao entrar empilha os filhos (o primeiro no topo) e
+    // ao sair desempilha os handles deles e acrescenta o nó, na mesma ordem
+    // da conversão recursiva (filhos antes do pai, da esquerda para a direita)
+    private Object[] work = new Object[64];
+    private boolean[] entered = new boolean[64]; // filhos já empilhados: ao sair
+    private int workSize = 0;
+
+    private int[] handles = new int[64];
+    private int handleCount = 0;
+
+    private int add(Stmt stmt) {
+        push(stmt);
+        while (workSize > 0) {
+            Object item = work[--workSize];
+            flattener.leaving = entered[workSize];
+            if (!flattener.leaving) {
+                work[workSize] = item;
+                entered[workSize++] = true;
+            }
+            if (item instanceof Stmt) ((Stmt) item).accept(flattener);
+            else ((Expr) item).accept(flattener);
+        }
+        return handles[--handleCount];
+    }
+
+    private void push(Object item) {
+        if (workSize == work.length) {
+            work = Arrays.copyOf(work, workSize * 2);
+            entered = Arrays.copyOf(entered, workSize * 2);
+        }
+        work[workSize] = item;
+        entered[workSize++] = false;
+    }
+
+    private void pushHandle(int handle) {
+        if (handleCount == handles.length) handles = Arrays.copyOf(handles, handleCount * 2);
+        handles[handleCount++] = handle;
+    }
+
+    private int popHandle() {
+        return handles[--handleCount];
+    }
+
+    // Os count últimos handles, na ordem em que foram acrescentados
+    private int[] popHandles(int count) {
+        handleCount -= count;
+        return Arrays.copyOfRange(handles, handleCount, handleCount + count);
+    }
+
+    // Ao entrar (leaving = false) empilha os filhos; ao sair acrescenta o nó
+    // com os handles dos filhos
+    private final class Flattener implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+        boolean leaving;
+
+        @Override
+        public Void visitBlock(BlockStmt stmt) {
+            List<Stmt> statements = stmt.statements;
+            if (!leaving) {
+                for (int i = statements.size() - 1; i >= 0; i--) push(statements.get(i));
+                return null;
+            }
+            pushHandle(node(Kind.BLOCK, list(popHandles(statements.size())), 0, 0));
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStmt stmt) {
+            if (!leaving) {
+                if (stmt.elseBranch != null) push(stmt.elseBranch);
+                push(stmt.thenBranch);
+                push(stmt.condition);
+                return null;
+            }
+            int elseBranch = stmt.elseBranch == null ? -1 : popHandle();
+            int thenBranch = popHandle();
+            int condition = popHandle();
+            pushHandle(node(Kind.IF, condition, thenBranch, elseBranch));
+            return null;
+        }
+
+        @Override
+        public Void visitWhile(WhileStmt stmt) {
+            if (!leaving) {
+                push(stmt.body);
+                push(stmt.condition);
+                return null;
+            }
+            int body = popHandle();
+            pushHandle(node(Kind.WHILE, popHandle(), body, 0));
+            return null;
+        }
+
+        @Override
+        public Void visitAssign(AssignStmt stmt) {
+            if (!leaving) push(stmt.value);
+            else pushHandle(node(Kind.ASSIGN, symbols.slot(stmt.name.lexeme), popHandle(), 0));
+            return null;
+        }
+
+        @Override
+        public Void visitPrint(PrintStmt stmt) {
+            if (!leaving) push(stmt.expression);
+            else pushHandle(node(Kind.PRINT, popHandle(), 0, 0));
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(BinaryExpr expr) {
+            if (!leaving) {
+                push(expr.right);
+                push(expr.left);
+                return null;
+            }
+            int right = popHandle();
+            pushHandle(expr(expr, node(Kind.BINARY, popHandle(), right, expr.operator.type.ordinal())));
+            return null;
+        }
+
+        @Override
+        public Void visitUnary(UnaryExpr expr) {
+            if (!leaving) push(expr.right);
+            else pushHandle(expr(expr, node(Kind.UNARY, popHandle(), 0, expr.operator.type.ordinal())));
+            return null;
+        }
+
+        @Override
+        public Void visitLiteral(LiteralExpr expr) {
+            if (leaving) pushHandle(expr(expr, node(Kind.LITERAL, constant(expr.value), 0, 0)));
+            return null;
+        }
+
+        @Override
+        public Void visitVariable(VariableExpr expr) {
+            if (leaving) pushHandle(expr(expr, node(Kind.VARIABLE, symbols.slot(expr.name.lexeme), 0, 0)));
+            return null;
+        }
+
+        @Override
+        public Void visitCall(CallExpr expr) {
+            List<Expr> arguments = expr.arguments;
+            if (!leaving) {
+                for (int i = arguments.size() - 1; i >= 0; i--) push(arguments.get(i));
+                return null;
+            }
+            pushHandle(expr(expr, node(Kind.CALL, list(popHandles(arguments.size())), expr.callee.type.ordinal(),
+                constant(expr.callee.lexeme))));
+            return null;
+        }
+    }
+
+    // Copia o tipo já anotado na expressão e, numa arena linked, guarda a origem
+    private int expr(Expr expr, int node) {
+        if (expr.type != null) setType(node, expr.type);
+        if (sources != null) sources[node] = expr;
+        return node;
+    }
+
+    private int node(Kind kind, int first, int second, int third) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1) + 16;
+            kinds = Arrays.copyOf(kinds, capacity);
+            if (types != null) types = Arrays.copyOf(types, capacity);
+            if (sources != null) sources = Arrays.copyOf(sources, capacity);
+            a = Arrays.copyOf(a, capacity);
+            b = Arrays.copyOf(b, capacity);
+            c = Arrays.copyOf(c, capacity);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        a[size] = first;
+        b[size] = second;
+        c[size] = third;
+        return size++;
+    }
+
+    private int list(int[] items) {
+        if (listsSize + items.length + 1 > lists.length) {
+            lists = Arrays.copyOf(lists, Math.max(lists.length * 2, listsSize + items.length + 1));
+        }
+        int offset = listsSize;
+        lists[listsSize++] = items.length;
+        System.arraycopy(items, 0, lists, listsSize, items.length);
+        listsSize += items.length;
+        return offset;
+    }
+
+    private int constant(Object value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+
+    // --- Consulta ---
+
+    /** Quantidade de nós. */
+    public int size() {
+        return size;
+    }
+
+    public int rootCount() {
+        return rootCount;
+    }
+
+    public int root(int index) {
+        return roots[index];
+    }
+
+    Kind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    // Tipo anotado por MiniPythonSemantic numa expressão (null se não houver)
+    Type type(int node) {
+        return types == null || types[node] == 0 ? null : TYPE_VALUES[types[node] - 1];
+    }
+
+    void setType(int node, Type type) {
+        if (types == null) types = new byte[kinds.length];
+        types[node] = (byte) (type == null ? 0 : type.ordinal() + 1);
+    }
+
+    // IF, WHILE
+    int condition(int node) {
+        return a[node];
+    }
+
+    // IF
+    int thenBranch(int node) {
+        return b[node];
+    }
+
+    // IF: -1 se não houver else
+    int elseBranch(int node) {
+        return c[node];
+    }
+
+    // WHILE
+    int body(int node) {
+        return b[node];
+    }
+
+    // ASSIGN, VARIABLE
+    int slot(int node) {
+        return a[node];
+    }
+
+    String name(int node) {
+        return symbols.name(a[node]);
+    }
+
+    /** Quantidade de variáveis distintas (slots). */
+    int slotCount() {
+        return symbols.size();
+    }
+
+    SymbolTable symbols() {
+        return symbols;
+    }
+
+    // ASSIGN: valor atribuído; PRINT: expressão impressa
+    int value(int node) {
+        return kind(node) == Kind.PRINT ? a[node] : b[node];
+    }
+
+    // BINARY
+    int left(int node) {
+        return a[node];
+    }
+
+    int right(int node) {
+        return b[node];
+    }
+
+    // BINARY, UNARY
+    TokenType operator(int node) {
+        return TOKEN_TYPES[c[node]];
+    }
+
+    // UNARY
+    int operand(int node) {
+        return a[node];
+    }
+
+    // LITERAL
+    Object constant(int node) {
+        return constants.get(a[node]);
+    }
+
+    // CALL
+    TokenType callee(int node) {
+        return TOKEN_TYPES[b[node]];
+    }
+
+    String calleeName(int node) {
+        return (String) constants.get(c[node]);
+    }
+
+    // BLOCK: comandos; CALL: argumentos
+    int childCount(int node) {
+        return lists[a[node]];
+    }
+
+    int child(int node, int index) {
+        return lists[a[node] + 1 + index];
+    }
+}
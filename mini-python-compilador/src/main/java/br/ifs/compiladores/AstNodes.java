@@ -2,20 +2,55 @@ package br.ifs.compiladores;
 
 import java.util.List;
 
-// Classe base para declarações (comandos)
-abstract class Stmt { }
+// Classe base para declarações (comandos). A hierarquia é selada: quem
+// percorre a AST usa accept(Visitor), e o compilador acusa o visitor que
+// esquecer algum tipo de nó.
+abstract sealed class Stmt permits BlockStmt, IfStmt, WhileStmt, AssignStmt, PrintStmt {
+    // Quantos tokens o parser consumiu para o comando, contando as linhas em
+    // branco que o precedem (em BlockStmt, de INDENT a DEDENT). Usado pela
+    // reanálise incremental para localizar subárvores na sequência antiga.
+    int width;
+
+    abstract <R> R accept(Visitor<R> visitor);
+
+    interface Visitor<R> {
+        R visitBlock(BlockStmt stmt);
+        R visitIf(IfStmt stmt);
+        R visitWhile(WhileStmt stmt);
+        R visitAssign(AssignStmt stmt);
+        R visitPrint(PrintStmt stmt);
+    }
+}
 
 // Classe base para expressões (valores)
-abstract class Expr { }
+abstract sealed class Expr permits BinaryExpr, UnaryExpr, LiteralExpr, VariableExpr, CallExpr {
+    // Tipo inferido por MiniPythonSemantic no ponto do programa em que a
+    // expressão aparece (null antes da análise). O tipo definido por um
+    // AssignStmt é o de value.
+    Type type;
+
+    abstract <R> R accept(Visitor<R> visitor);
+
+    interface Visitor<R> {
+        R visitBinary(BinaryExpr expr);
+        R visitUnary(UnaryExpr expr);
+        R visitLiteral(LiteralExpr expr);
+        R visitVariable(VariableExpr expr);
+        R visitCall(CallExpr expr);
+    }
+}
 
 // --- Declarações (Statements) ---
 
-class BlockStmt extends Stmt {
+final class BlockStmt extends Stmt {
     final List<Stmt> statements;
     BlockStmt(List<Stmt> statements) { this.statements = statements; }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitBlock(this); }
 }
 
-class IfStmt extends Stmt {
+final class IfStmt extends Stmt {
     final Expr condition;
     final Stmt thenBranch;
     final Stmt elseBranch;
@@ -25,9 +60,12 @@ class IfStmt extends Stmt {
         this.thenBranch = thenBranch;
         this.elseBranch = elseBranch;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitIf(this); }
 }
 
-class WhileStmt extends Stmt {
+final class WhileStmt extends Stmt {
     final Expr condition;
     final Stmt body;
 
@@ -35,26 +73,36 @@ class WhileStmt extends Stmt {
         this.condition = condition;
         this.body = body;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitWhile(this); }
 }
 
-class AssignStmt extends Stmt {
+final class AssignStmt extends Stmt {
     final Token name;
     final Expr value;
+    int slot = -1; // preenchido por SymbolTable.of/resolve; o parser não resolve nomes
 
     AssignStmt(Token name, Expr value) {
         this.name = name;
         this.value = value;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitAssign(this); }
 }
 
-class PrintStmt extends Stmt {
+final class PrintStmt extends Stmt {
     final Expr expression;
     PrintStmt(Expr expression) { this.expression = expression; }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitPrint(this); }
 }
 
 // --- Expressões (Expressions) ---
 
-class BinaryExpr extends Expr {
+final class BinaryExpr extends Expr {
     final Expr left;
     final Token operator;
     final Expr right;
@@ -64,32 +112,48 @@ class BinaryExpr extends Expr {
         this.operator = operator;
         this.right = right;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitBinary(this); }
 }
 
-class UnaryExpr extends Expr {
+final class UnaryExpr extends Expr {
     final Token operator;
     final Expr right;
     UnaryExpr(Token operator, Expr right) {
         this.operator = operator;
         this.right = right;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitUnary(this); }
 }
 
-class LiteralExpr extends Expr {
+final class LiteralExpr extends Expr {
     final Object value;
     LiteralExpr(Object value) { this.value = value; }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitLiteral(this); }
 }
 
-class VariableExpr extends Expr {
+final class VariableExpr extends Expr {
     final Token name;
+    int slot = -1; // preenchido por SymbolTable.of/resolve; o parser não resolve nomes
     VariableExpr(Token name) { this.name = name; }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitVariable(this); }
 }
 
-class CallExpr extends Expr {
+final class CallExpr extends Expr {
     final Token callee; // input, int, float
     final List<Expr> arguments;
     CallExpr(Token callee, List<Expr> arguments) {
         this.callee = callee;
         this.arguments = arguments;
     }
+
+    @Override
+    <R> R accept(Visitor<R> visitor) { return visitor.visitCall(this); }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package br.ifs.compiladores;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Busca em trechos de bytes usada pela MappedCharSource: próximo '\n', próxima
+ * aspa, primeiro byte que não é espaço/tab e contagem de caracteres UTF-8.
+ *
+ * Esta é a versão escalar. Quando a VectorByteScanner foi compilada (perfil
+ * Maven vector) e o módulo jdk.incubator.vector está presente (java
+ * --add-modules jdk.incubator.vector), INSTANCE é ela, que examina vários
+ * bytes por instrução.
+ */
+class ByteScanner {
+    /** Desativa a versão vetorial mesmo com o módulo presente. */
+    static final String SCALAR_PROPERTY = "minipython.scalar";
+
+    static final ByteScanner INSTANCE = load();
+
+    private static ByteScanner load() {
+        if (Boolean.getBoolean(SCALAR_PROPERTY)) return new ByteScanner();
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return new ByteScanner();
+        try {
+            // Carregada por reflexão: sem o módulo, a classe nem chega a ser resolvida
+            return (ByteScanner) Class.forName("br.ifs.compiladores.VectorByteScanner")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ByteScanner();
+        }
+    }
+
+    // Primeira posição em [from, to) com o byte target, ou to
+    int indexOf(ByteBuffer bytes, byte target, int from, int to) {
+        while (from < to && bytes.get(from) != target) from++;
+        return from;
+    }
+
+    // Primeira posição em [from, to) que não é ' ' nem '\t', ou to
+    int skipBlanks(ByteBuffer bytes, int from, int to) {
+        while (from < to) {
+            byte b = bytes.get(from);
+            if (b != ' ' && b != '\t') break;
+            from++;
+        }
+        return from;
+    }
+
+    // Ocorrências do byte target em [from, to)
+    int count(ByteBuffer bytes, byte target, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) == target) count++;
+        }
+        return count;
+    }
+
+    // Quantidade de caracteres UTF-16 codificados em [from, to)
+    int charCount(ByteBuffer bytes, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int b = bytes.get(i) & 0xFF;
+            if ((b & 0xC0) != 0x80) count++;  // Ignora bytes de continuação
+            if (b >= 0xF0) count++;           // Fora do BMP: par substituto em UTF-16
+        }
+        return count;
+    }
+}
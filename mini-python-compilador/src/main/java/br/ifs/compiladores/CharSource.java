@@ -0,0 +1,72 @@
+package br.ifs.compiladores;
+
+/**
+ * Origem dos caracteres lidos pelo MiniPythonLexer.
+ *
+ * As posições são sempre absolutas (offset desde o início da entrada), então o
+ * lexer calcula linha/coluna da mesma forma, esteja o texto inteiro em memória
+ * ou sendo lido aos poucos de um Reader.
+ */
+abstract class CharSource {
+
+    /**
+     * Retorna true se existe caractere na posição informada.
+     * Implementações em streaming podem ler mais da entrada aqui.
+     */
+    abstract boolean has(int index);
+
+    /** Caractere na posição informada. Só é válido após has(index) retornar true. */
+    abstract char charAt(int index);
+
+    /** Texto entre as posições [from, to). */
+    abstract String substring(int from, int to);
+
+    /**
+     * Posição logo após o caractere que começa em index. Difere de index + 1
+     * apenas em fontes codificadas em bytes (caracteres multibyte).
+     */
+    int charEnd(int index) {
+        return index + 1;
+    }
+
+    /**
+     * Quantidade de caracteres UTF-16 em [from, to). Usado para manter as
+     * colunas iguais às de uma String quando as posições são em bytes.
+     */
+    int charCount(int from, int to) {
+        return to - from;
+    }
+
+    // --- Varredura de trechos longos (comentários, strings e indentação) ---
+
+    /** Primeira posição >= from com o caractere c, ou o fim da entrada. */
+    int indexOf(char c, int from) {
+        while (has(from) && charAt(from) != c) from++;
+        return from;
+    }
+
+    /** Primeira posição >= from que não é ' ' nem '\t', ou o fim da entrada. */
+    int skipBlanks(int from) {
+        while (has(from)) {
+            char c = charAt(from);
+            if (c != ' ' && c != '\t') break;
+            from++;
+        }
+        return from;
+    }
+
+    /** Quantidade de ocorrências de c em [from, to). */
+    int count(char c, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (charAt(i) == c) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Avisa que nenhuma posição anterior a index será lida novamente,
+     * permitindo descartar o que já foi consumido.
+     */
+    void release(int index) { }
+}
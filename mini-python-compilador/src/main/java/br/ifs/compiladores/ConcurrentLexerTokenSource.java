@@ -0,0 +1,81 @@
+package br.ifs.compiladores;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LexerTokenSource em que o lexer roda numa thread própria, entregando os
+ * tokens por uma SpscQueue: a análise léxica do trecho seguinte acontece
+ * enquanto o parser trabalha no atual.
+ *
+ * Um erro no lexer (por exemplo, de leitura) é relançado para o parser; close()
+ * encerra a thread produtora se a análise sintática parar antes do EOF.
+ */
+final class ConcurrentLexerTokenSource extends LexerTokenSource {
+    static final int QUEUE_CAPACITY = 1024;
+
+    private final SpscQueue<Token> queue = new SpscQueue<>(QUEUE_CAPACITY);
+    private final Thread producer;
+    private volatile boolean closed = false;
+    private volatile boolean finished = false;
+    private volatile Throwable failure;
+
+    ConcurrentLexerTokenSource(MiniPythonLexer lexer) {
+        super(lexer);
+        producer = new Thread(() -> produce(lexer), "mini-python-lexer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produce(MiniPythonLexer lexer) {
+        try {
+            Token token;
+            do {
+                token = lexer.nextToken();
+                int spins = 0;
+                while (!queue.offer(token)) {
+                    if (closed) return;
+                    pause(spins++);
+                }
+            } while (token.type != TokenType.EOF && !closed);
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            finished = true;
+        }
+    }
+
+    @Override
+    Token next() {
+        int spins = 0;
+        while (true) {
+            Token token = queue.poll();
+            if (token != null) return token;
+            if (finished) {
+                // O produtor pode ter publicado antes de terminar
+                token = queue.poll();
+                if (token != null) return token;
+                throw producerFailure();
+            }
+            pause(spins++);
+        }
+    }
+
+    private RuntimeException producerFailure() {
+        Throwable cause = failure;
+        if (cause instanceof RuntimeException) return (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        return new IllegalStateException("Lexer terminou antes do EOF.", cause);
+    }
+
+    // Espera ativa curta; depois cede a CPU (importante com poucos núcleos)
+    private static void pause(int spins) {
+        if (spins < 64) Thread.onSpinWait();
+        else if (spins < 128) Thread.yield();
+        else LockSupport.parkNanos(50_000);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
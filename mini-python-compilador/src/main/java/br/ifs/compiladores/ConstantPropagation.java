@@ -0,0 +1,367 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Propagação de constantes condicional esparsa (Wegman e Zadeck) sobre a
+ * forma SSA do TAC.
+ *
+ * Cada valor SSA começa em TOP (ainda sem valor), sobe para uma constante e
+ * depois para BOTTOM (varia na execução); só blocos alcançados por arestas já
+ * executáveis são avaliados, então um salto condicional com condição
+ * constante não deixa o lado morto estragar os phis da junção.
+ *
+ * Na reescrita, usos de valores constantes viram a constante, cálculos em
+ * temporários constantes somem, atribuições constantes a variáveis viram
+ * cópias da constante, IF_FALSE/IF_TRUE com condição conhecida vira GOTO ou some
+ * e blocos inalcançáveis são removidos. Como só constantes substituem
+ * operandos, a SSA continua convencional: sair dela é só descartar os phis.
+ */
+public final class ConstantPropagation {
+    private static final byte TOP = 0, CONSTANT = 1, BOTTOM = 2;
+
+    private SSAForm ssa;
+    private TACProgram program;
+    private ControlFlowGraph cfg;
+
+    private byte[] state;
+    private Object[] value;
+
+    // Arestas executáveis, como em ControlFlowGraph: 2 * bloco + sucessor
+    private boolean[] edgeExecutable;
+    private boolean[] blockExecutable;
+
+    // Listas de trabalho: arestas recém-executáveis e valores que mudaram
+    private int[] edgeWork;
+    private int edgeTop;
+    private int[] valueWork;
+    private int valueTop;
+
+    private int foldedInstructions;
+    private int foldedBranches;
+    private int removedBlocks;
+
+    /** Programa equivalente com as constantes propagadas e os ramos mortos removidos. */
+    public TACProgram optimize(TACProgram program) {
+        this.program = program;
+        this.ssa = SSAForm.of(program);
+        this.cfg = ssa.cfg;
+        propagate();
+        return rewrite();
+    }
+
+    // Estatísticas da última otimização
+    public int foldedInstructions() {
+        return foldedInstructions;
+    }
+
+    public int foldedBranches() {
+        return foldedBranches;
+    }
+
+    public int removedBlocks() {
+        return removedBlocks;
+    }
+
+    // --- Propagação ---
+
+    private void propagate() {
+        state = new byte[ssa.valueCount];
+        value = new Object[ssa.valueCount];
+        state[SSAForm.UNDEFINED] = BOTTOM; // lido antes de definido: erro na execução, não constante
+        edgeExecutable = new boolean[cfg.blockCount() * 2];
+        blockExecutable = new boolean[cfg.blockCount()];
+        edgeWork = new int[cfg.blockCount() * 2 + 1];
+        edgeTop = 0;
+        valueWork = new int[16];
+        valueTop = 0;
+        if (cfg.blockCount() == 0) return;
+
+        visitBlock(0);
+        while (edgeTop > 0 || valueTop > 0) {
+            while (edgeTop > 0) {
+                int edge = edgeWork[--edgeTop];
+                int target = cfg.successor(edge >> 1, edge & 1);
+                if (!blockExecutable[target]) {
+                    visitBlock(target);
+                } else {
+                    // Mais uma aresta chegando: só os phis mudam
+                    for (int p = ssa.blockPhiStart[target]; p < ssa.blockPhiStart[target + 1]; p++) visitPhi(p);
+                }
+            }
+            while (valueTop > 0) {
+                int v = valueWork[--valueTop];
+                for (int u = ssa.useStart[v]; u < ssa.useStart[v + 1]; u++) {
+                    int site = ssa.useSites[u];
+                    if (site < 0) {
+                        int phi = -site - 1;
+                        if (blockExecutable[ssa.phiBlock[phi]]) visitPhi(phi);
+                    } else if (blockExecutable[cfg.blockOf(site)]) {
+                        visitInstruction(site);
+                    }
+                }
+            }
+        }
+    }
+
+    private void visitBlock(int block) {
+        blockExecutable[block] = true;
+        for (int p = ssa.blockPhiStart[block]; p < ssa.blockPhiStart[block + 1]; p++) visitPhi(p);
+        int end = cfg.blockEnd(block);
+        for (int i = cfg.blockStart(block); i < end; i++) visitInstruction(i);
+        // O salto condicional no fim decide as arestas em visitInstruction; os demais blocos seguem todas
+        if (!program.opcode(end - 1).isBranch()) {
+            for (int k = 0; k < cfg.successorCount(block); k++) markEdge(block, k);
+        }
+    }
+
+    private void markEdge(int block, int k) {
+        int edge = 2 * block + k;
+        if (edgeExecutable[edge]) return;
+        edgeExecutable[edge] = true;
+        edgeWork[edgeTop++] = edge;
+    }
+
+    private void visitPhi(int phi) {
+        int block = ssa.phiBlock[phi];
+        byte s = TOP;
+        Object c = null;
+        for (int j = 0; j < cfg.predecessorCount(block) && s != BOTTOM; j++) {
+            int pred = cfg.predecessor(block, j);
+            if (!edgeExecutable[2 * pred + successorIndex(pred, block)]) continue;
+            int arg = ssa.phiArgs[ssa.phiArgStart[phi] + j];
+            if (state[arg] == TOP) continue;
+            if (state[arg] == BOTTOM) s = BOTTOM;
+            else if (s == TOP) {
+                s = CONSTANT;
+                c = value[arg];
+            } else if (!sameConstant(c, value[arg])) {
+                s = BOTTOM;
+            }
+        }
+        set(ssa.phiValue[phi], s, c);
+    }
+
+    private int successorIndex(int block, int successor) {
+        return cfg.successor(block, 0) == successor ? 0 : 1;
+    }
+
+    private void visitInstruction(int i) {
+        TACOpcode opcode = program.opcode(i);
+        if (opcode.isBranch()) {
+            int block = cfg.blockOf(i);
+            byte s = operandState(program.arg1(i), ssa.use1[i]);
+            if (s == BOTTOM || cfg.successorCount(block) == 1) {
+                for (int k = 0; k < cfg.successorCount(block); k++) markEdge(block, k);
+            } else if (s == CONSTANT) {
+                boolean jumps = truthy(operandValue(program.arg1(i), ssa.use1[i])) == (opcode == TACOpcode.IF_TRUE);
+                markEdge(block, jumps ? 1 : 0);
+            }
+            return;
+        }
+        int v = ssa.def[i];
+        if (v < 0) return;
+        if (opcode == TACOpcode.CALL) {
+            set(v, BOTTOM, null);
+            return;
+        }
+
+        byte s1 = operandState(program.arg1(i), ssa.use1[i]);
+        Object c1 = operandValue(program.arg1(i), ssa.use1[i]);
+        if (opcode == TACOpcode.COPY || opcode.isUnary()) {
+            if (s1 != CONSTANT) {
+                set(v, s1, null);
+                return;
+            }
+            Object result = opcode == TACOpcode.COPY ? c1 : fold(opcode, c1, null);
+            set(v, result == null ? BOTTOM : CONSTANT, result);
+            return;
+        }
+
+        byte s2 = operandState(program.arg2(i), ssa.use2[i]);
+        Object c2 = operandValue(program.arg2(i), ssa.use2[i]);
+        // and/or com o lado esquerdo conhecido não dependem do direito
+        if (s1 == CONSTANT && (opcode == TACOpcode.AND && !truthy(c1) || opcode == TACOpcode.OR && truthy(c1))) {
+            set(v, CONSTANT, c1);
+            return;
+        }
+        if (s1 == BOTTOM || s2 == BOTTOM) set(v, BOTTOM, null);
+        else if (s1 == TOP || s2 == TOP) set(v, TOP, null);
+        else {
+            Object result = fold(opcode, c1, c2);
+            set(v, result == null ? BOTTOM : CONSTANT, result);
+        }
+    }
+
+    private byte operandState(int operand, int ssaValue) {
+        if (TACProgram.tag(operand) == TACProgram.CONSTANT) return CONSTANT;
+        return state[ssaValue];
+    }
+
+    private Object operandValue(int operand, int ssaValue) {
+        if (TACProgram.tag(operand) == TACProgram.CONSTANT) return program.constant(TACProgram.index(operand));
+        return value[ssaValue];
+    }
+
+    // O reticulado só sobe: TOP -> CONSTANT -> BOTTOM
+    private void set(int v, byte s, Object c) {
+        if (s <= state[v]) return;
+        state[v] = s;
+        value[v] = s == CONSTANT ? c : null;
+        if (valueTop == valueWork.length) valueWork = Arrays.copyOf(valueWork, valueTop * 2);
+        valueWork[valueTop++] = v;
+    }
+
+    // 1 e 1.0 são constantes diferentes (INT e FLOAT)
+    private static boolean sameConstant(Object a, Object b) {
+        return a.getClass() == b.getClass() && Objects.equals(a, b);
+    }
+
+    // --- Avaliação das operações ---
+
+    // Verdade no estilo do Python: False, 0, 0.0 e "" são falsos
+    private static boolean truthy(Object c) {
+        if (c instanceof Boolean) return (Boolean) c;
+        if (c instanceof Integer) return (Integer) c != 0;
+        if (c instanceof Double) return (Double) c != 0.0;
+        return !((String) c).isEmpty();
+    }
+
+    // Resultado da operação com operandos constantes, ou null se ela não
+    // pode ser dobrada (tipos inválidos, estouro, divisão não exata)
+    private static Object fold(TACOpcode opcode, Object a, Object b) {
+        switch (opcode) {
+            case NOT:
+                return !truthy(a);
+            case NEG:
+                if (a instanceof Integer) return (Integer) a == Integer.MIN_VALUE ? null : -(Integer) a;
+                if (a instanceof Double) return -(Double) a;
+                return null;
+            case AND:
+                return truthy(a) ? b : a;
+            case OR:
+                return truthy(a) ? a : b;
+            case ADD:
+                if (a instanceof String && b instanceof String) return (String) a + b;
+                return arithmetic(opcode, a, b);
+            case SUB: case MUL: case DIV:
+                return arithmetic(opcode, a, b);
+            default:
+                return compare(opcode, a, b);
+        }
+    }
+
+    private static Object arithmetic(TACOpcode opcode, Object a, Object b) {
+        if (!isNumber(a) || !isNumber(b)) return null;
+        if (a instanceof Integer && b instanceof Integer) {
+            long x = (Integer) a, y = (Integer) b;
+            long r;
+            switch (opcode) {
+                case ADD: r = x + y; break;
+                case SUB: r = x - y; break;
+                case MUL: r = x * y; break;
+                default:
+                    // INT / INT é INT na análise semântica; só a divisão exata
+                    // tem o mesmo resultado em qualquer arredondamento
+                    if (y == 0 || x % y != 0) return null;
+                    r = x / y;
+            }
+            return r == (int) r ? (Object) (int) r : null;
+        }
+        double x = ((Number) a).doubleValue(), y = ((Number) b).doubleValue();
+        switch (opcode) {
+            case ADD: return x + y;
+            case SUB: return x - y;
+            case MUL: return x * y;
+            default: return y == 0 ? null : (Object) (x / y);
+        }
+    }
+
+    private static Object compare(TACOpcode opcode, Object a, Object b) {
+        int cmp;
+        if (isNumber(a) && isNumber(b)) {
+            if (a instanceof Integer && b instanceof Integer) cmp = Integer.compare((Integer) a, (Integer) b);
+            else {
+                double x = ((Number) a).doubleValue(), y = ((Number) b).doubleValue();
+                if (Double.isNaN(x) || Double.isNaN(y)) return null;
+                cmp = Double.compare(x, y);
+                if (x == y) cmp = 0; // -0.0 == 0.0
+            }
+        } else if (a instanceof String && b instanceof String) {
+            cmp = ((String) a).compareTo((String) b);
+        } else if (a instanceof Boolean && b instanceof Boolean
+                && (opcode == TACOpcode.EQ || opcode == TACOpcode.NEQ)) {
+            cmp = a.equals(b) ? 0 : 1;
+        } else {
+            return null; // comparação que a análise semântica rejeita
+        }
+        switch (opcode) {
+            case GT: return cmp > 0;
+            case LT: return cmp < 0;
+            case GTE: return cmp >= 0;
+            case LTE: return cmp <= 0;
+            case EQ: return cmp == 0;
+            case NEQ: return cmp != 0;
+            default: return null;
+        }
+    }
+
+    private static boolean isNumber(Object c) {
+        return c instanceof Integer || c instanceof Double;
+    }
+
+    // --- Reescrita ---
+
+    private TACProgram rewrite() {
+        TACProgram out = program.emptyCopy();
+        // Temporários com mais de uma definição (resultado de and/or) chegam
+        // a um phi: como as variáveis, ficam com a cópia da constante
+        int[] tempDefs = new int[program.tempCount() + 1];
+        for (int i = 0; i < program.size(); i++) {
+            int result = program.result(i);
+            if (SSAForm.defines(program.opcode(i)) && TACProgram.tag(result) == TACProgram.TEMP) tempDefs[TACProgram.index(result)]++;
+        }
+        foldedInstructions = 0;
+        foldedBranches = 0;
+        removedBlocks = 0;
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            if (!blockExecutable[b]) {
+                removedBlocks++;
+                continue;
+            }
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                TACOpcode opcode = program.opcode(i);
+                int result = program.result(i);
+                int arg1 = constantOperand(out, program.arg1(i), ssa.use1[i]);
+                int arg2 = constantOperand(out, program.arg2(i), ssa.use2[i]);
+
+                if (opcode.isBranch() && TACProgram.tag(arg1) == TACProgram.CONSTANT) {
+                    foldedBranches++;
+                    if (truthy(out.constant(TACProgram.index(arg1))) == (opcode == TACOpcode.IF_TRUE)) {
+                        out.add(TACOpcode.GOTO, result, TACProgram.NONE, TACProgram.NONE, null);
+                    }
+                    continue;
+                }
+                int v = ssa.def[i];
+                if (v >= 0 && state[v] == CONSTANT) {
+                    if (opcode != TACOpcode.COPY) foldedInstructions++;
+                    // Temporários constantes somem (todos os usos recebem a
+                    // constante); variáveis ficam com uma cópia dela
+                    if (TACProgram.tag(result) == TACProgram.TEMP && tempDefs[TACProgram.index(result)] == 1) continue;
+                    Object c = value[v];
+                    out.add(TACOpcode.COPY, result, out.literal(c), TACProgram.NONE, TACProgram.constantType(c));
+                    continue;
+                }
+                out.add(opcode, result, arg1, arg2, program.type(i));
+            }
+        }
+        return out;
+    }
+
+    // O operando, ou a constante que o substitui
+    private int constantOperand(TACProgram out, int operand, int ssaValue) {
+        if (ssaValue < 0 || state[ssaValue] != CONSTANT) return operand;
+        return out.literal(value[ssaValue]);
+    }
+}
@@ -0,0 +1,462 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grafo de fluxo de controle de um programa TAC: blocos básicos, arestas,
+ * ordem reversa de pós-ordem (RPO), dominadores e laços naturais.
+ *
+ * Tudo fica em arrays de int indexados pelo número do bloco (0 = entrada) e
+ * é calculado sem recursão, em tempo quase linear: o gerador produz tanto
+ * código quanto a entrada, então um programa gerado pode ter centenas de
+ * milhares de blocos aninhados.
+ *
+ * Um bloco começa na primeira instrução, em cada LABEL e depois de cada
+ * GOTO/IF_FALSE/IF_TRUE. Os sucessores ficam na ordem [segue em frente,
+ * salta]: no IF_FALSE, o primeiro é o caminho verdadeiro e o segundo o label
+ * (no IF_TRUE, o contrário); no GOTO só há o label. O último bloco, se não saltar, não tem sucessores (saída).
+ */
+public final class ControlFlowGraph {
+    // Como cada instrução afeta o fluxo (ver buildBlocks)
+    private static final byte PLAIN = 0, LABEL = 1, GOTO = 2, BRANCH = 3;
+
+    private final int instructionCount;
+    private int blockCount;
+
+    // Instruções [blockStart[b], blockStart[b + 1]) de cada bloco
+    private int[] blockStart;
+    private int[] blockOf;
+
+    // Até dois sucessores por bloco (-1 = nenhum); predecessores compactados:
+    // preds[predStart[b]..predStart[b + 1])
+    private int[] succ;
+    private int[] predStart;
+    private int[] preds;
+
+    // rpo[i] = i-ésimo bloco na RPO; rpoIndex[b] = posição de b (-1 = inalcançável)
+    private int[] rpo;
+    private int[] rpoIndex;
+
+    // Dominador imediato (-1 na entrada e nos inalcançáveis) e intervalos da
+    // árvore de dominadores: a domina b sse domPre[a] <= domPre[b] <= domPost[a]
+    private int[] idom;
+    private int[] domPre;
+    private int[] domPost;
+    // Filhos na árvore de dominadores: domChildren[domChildStart[b]..domChildStart[b + 1])
+    private int[] domChildStart;
+    private int[] domChildren;
+
+    // Laços naturais, um por cabeçalho, do mais interno para o mais externo
+    private int loopCount;
+    private int[] loopHeader;
+    private int[] loopParent;
+    private int[] loopDepth;
+    // Laço mais interno que contém o bloco (-1 = fora de laços)
+    private int[] loopOf;
+
+    private ControlFlowGraph(byte[] flow, int[] target, int labelCount) {
+        this.instructionCount = flow.length;
+        buildBlocks(flow, target, labelCount);
+        buildPredecessors();
+        buildReversePostorder();
+        buildDominators();
+        buildLoops();
+    }
+
+    // --- Construção ---
+
+    public static ControlFlowGraph of(TACProgram program) {
+        int n = program.size();
+        byte[] flow = new byte[n];
+        int[] target = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (program.opcode(i)) {
+                case LABEL: flow[i] = LABEL; break;
+                case GOTO: flow[i] = GOTO; break;
+                case IF_FALSE: case IF_TRUE: flow[i] = BRANCH; break;
+                default: continue;
+            }
+            target[i] = TACProgram.index(program.result(i));
+        }
+        return new ControlFlowGraph(flow, target, program.labelCount() + 1);
+    }
+
+    public static ControlFlowGraph of(List<TACInstruction> code) {
+        int n = code.size();
+        byte[] flow = new byte[n];
+        int[] target = new int[n];
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            TACInstruction instr = code.get(i);
+            switch (instr.op) {
+                case "LABEL": flow[i] = LABEL; break;
+                case "GOTO": flow[i] = GOTO; break;
+                case "IF_FALSE": case "IF_TRUE": flow[i] = BRANCH; break;
+                default: continue;
+            }
+            Integer id = labels.get(instr.result);
+            if (id == null) {
+                id = labels.size();
+                labels.put(instr.result, id);
+            }
+            target[i] = id;
+        }
+        return new ControlFlowGraph(flow, target, labels.size());
+    }
+
+    private void buildBlocks(byte[] flow, int[] target, int labelCount) {
+        int n = flow.length;
+        blockOf = new int[n];
+        int[] starts = new int[n + 1];
+        int blocks = 0;
+        for (int i = 0; i < n; i++) {
+            boolean leader = i == 0 || flow[i] == LABEL || flow[i - 1] == GOTO || flow[i - 1] == BRANCH;
+            if (leader) starts[blocks++] = i;
+            blockOf[i] = blocks - 1;
+        }
+        starts[blocks] = n;
+        blockCount = blocks;
+        blockStart = Arrays.copyOf(starts, blocks + 1);
+
+        int[] labelBlock = new int[labelCount];
+        Arrays.fill(labelBlock, -1);
+        for (int i = 0; i < n; i++) {
+            if (flow[i] == LABEL) labelBlock[target[i]] = blockOf[i];
+        }
+
+        succ = new int[blocks * 2];
+        Arrays.fill(succ, -1);
+        for (int b = 0; b < blocks; b++) {
+            int last = blockStart[b + 1] - 1;
+            int next = b + 1 < blocks ? b + 1 : -1;
+            switch (flow[last]) {
+                case GOTO:
+                    succ[2 * b] = jumpTarget(labelBlock, target[last]);
+                    break;
+                case BRANCH: {
+                    int jump = jumpTarget(labelBlock, target[last]);
+                    succ[2 * b] = next;
+                    if (jump != next) succ[2 * b + 1] = jump;
+                    break;
+                }
+                default:
+                    succ[2 * b] = next;
+            }
+            if (succ[2 * b] == -1) { // só o salto (ou nada) em [1]
+                succ[2 * b] = succ[2 * b + 1];
+                succ[2 * b + 1] = -1;
+            }
+        }
+    }
+
+    private static int jumpTarget(int[] labelBlock, int label) {
+        int block = label < labelBlock.length ? labelBlock[label] : -1;
+        if (block < 0) throw new IllegalStateException("Salto para label inexistente: L" + label);
+        return block;
+    }
+
+    private void buildPredecessors() {
+        predStart = new int[blockCount + 1];
+        for (int s : succ) {
+            if (s >= 0) predStart[s + 1]++;
+        }
+        for (int b = 0; b < blockCount; b++) predStart[b + 1] += predStart[b];
+        preds = new int[predStart[blockCount]];
+        int[] fill = Arrays.copyOf(predStart, blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            for (int k = 0; k < 2; k++) {
+                int s = succ[2 * b + k];
+                if (s >= 0) preds[fill[s]++] = b;
+            }
+        }
+    }
+
+    // DFS iterativa a partir da entrada: pilha de blocos e do próximo
+    // sucessor a visitar em cada um
+    private void buildReversePostorder() {
+        rpoIndex = new int[blockCount];
+        Arrays.fill(rpoIndex, -1);
+        int[] postorder = new int[blockCount];
+        int visited = 0;
+        if (blockCount > 0) {
+            int[] stack = new int[blockCount];
+            int[] edge = new int[blockCount];
+            byte[] seen = new byte[blockCount];
+            int top = 0;
+            stack[0] = 0;
+            seen[0] = 1;
+            while (top >= 0) {
+                int b = stack[top];
+                int s = edge[top] < 2 ? succ[2 * b + edge[top]++] : -1;
+                if (s >= 0) {
+                    if (seen[s] == 0) {
+                        seen[s] = 1;
+                        stack[++top] = s;
+                        edge[top] = 0;
+                    }
+                } else if (edge[top] >= 2) {
+                    postorder[visited++] = b;
+                    top--;
+                }
+            }
+        }
+        rpo = new int[visited];
+        for (int i = 0; i < visited; i++) {
+            rpo[i] = postorder[visited - 1 - i];
+            rpoIndex[rpo[i]] = i;
+        }
+    }
+
+    // Cooper, Harvey e Kennedy, "A Simple, Fast Dominance Algorithm": em RPO,
+    // o idom de b é a interseção dos idoms dos predecessores já processados.
+    // Em grafos redutíveis (todo código gerado de if/while) bastam duas passadas.
+    private void buildDominators() {
+        idom = new int[blockCount];
+        Arrays.fill(idom, -1);
+        if (rpo.length == 0) {
+            domPre = new int[blockCount];
+            domPost = new int[blockCount];
+            domChildStart = new int[blockCount + 1];
+            domChildren = new int[0];
+            return;
+        }
+        idom[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < rpo.length; i++) {
+                int b = rpo[i];
+                int dom = -1;
+                for (int p = predStart[b]; p < predStart[b + 1]; p++) {
+                    int pred = preds[p];
+                    if (idom[pred] < 0) continue; // inalcançável ou ainda não visto
+                    dom = dom < 0 ? pred : intersect(pred, dom);
+                }
+                if (dom != idom[b]) {
+                    idom[b] = dom;
+                    changed = true;
+                }
+            }
+        }
+        idom[0] = -1;
+
+        // Árvore de dominadores (filhos compactados) numerada por uma DFS
+        int[] childStart = domChildStart = new int[blockCount + 1];
+        for (int b = 0; b < blockCount; b++) {
+            if (idom[b] >= 0) childStart[idom[b] + 1]++;
+        }
+        for (int b = 0; b < blockCount; b++) childStart[b + 1] += childStart[b];
+        int[] children = domChildren = new int[childStart[blockCount]];
+        int[] fill = Arrays.copyOf(childStart, blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            if (idom[b] >= 0) children[fill[idom[b]]++] = b;
+        }
+
+        domPre = new int[blockCount];
+        domPost = new int[blockCount];
+        Arrays.fill(domPre, -1);
+        int[] stack = new int[blockCount];
+        int[] next = new int[blockCount];
+        int top = 0, counter = 0;
+        stack[0] = 0;
+        next[0] = childStart[0];
+        domPre[0] = counter++;
+        while (top >= 0) {
+            int b = stack[top];
+            if (next[top] < childStart[b + 1]) {
+                int child = children[next[top]++];
+                domPre[child] = counter++;
+                stack[++top] = child;
+                next[top] = childStart[child];
+            } else {
+                domPost[b] = counter - 1; // maior número da subárvore
+                top--;
+            }
+        }
+    }
+
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (rpoIndex[a] > rpoIndex[b]) a = idom[a];
+            while (rpoIndex[b] > rpoIndex[a]) b = idom[b];
+        }
+        return a;
+    }
+
+    // Um laço por cabeçalho h que recebe aresta de retorno (p -> h com h
+    // dominando p): o corpo é tudo que alcança p sem passar por h. Os
+    // cabeçalhos são visitados do fim da RPO para o início, então os laços
+    // internos saem primeiro; union-find colapsa cada laço pronto no seu
+    // cabeçalho, e o externo passa por ele num passo só (quase linear mesmo
+    // com milhares de níveis de aninhamento).
+    private void buildLoops() {
+        loopOf = new int[blockCount];
+        Arrays.fill(loopOf, -1);
+        int[] headers = new int[4];
+        int[] parents = new int[4];
+        int[] set = new int[blockCount];
+        for (int b = 0; b < blockCount; b++) set[b] = b;
+        int[] stamp = new int[blockCount];
+        int[] work = new int[2 * blockCount + 2]; // cada bloco empilha seus predecessores uma vez por laço
+
+        for (int i = rpo.length - 1; i >= 0; i--) {
+            int h = rpo[i];
+            int top = 0;
+            for (int p = predStart[h]; p < predStart[h + 1]; p++) {
+                if (dominates(h, preds[p])) work[top++] = preds[p];
+            }
+            if (top == 0) continue;
+
+            int loop = loopCount++;
+            if (loop == headers.length) {
+                headers = Arrays.copyOf(headers, loop * 2);
+                parents = Arrays.copyOf(parents, loop * 2);
+            }
+            headers[loop] = h;
+            parents[loop] = -1;
+            loopOf[h] = loop;
+            stamp[h] = loop + 1;
+
+            while (top > 0) {
+                int x = find(set, work[--top]);
+                if (stamp[x] == loop + 1) continue;
+                stamp[x] = loop + 1;
+                if (loopOf[x] < 0) loopOf[x] = loop;
+                else parents[loopOf[x]] = loop; // x é o cabeçalho de um laço interno
+                set[x] = h;
+                for (int p = predStart[x]; p < predStart[x + 1]; p++) {
+                    if (rpoIndex[preds[p]] >= 0) work[top++] = preds[p];
+                }
+            }
+        }
+
+        loopHeader = Arrays.copyOf(headers, loopCount);
+        loopParent = Arrays.copyOf(parents, loopCount);
+        loopDepth = new int[loopCount];
+        for (int l = loopCount - 1; l >= 0; l--) { // pais vêm depois dos filhos
+            loopDepth[l] = loopParent[l] < 0 ? 1 : loopDepth[loopParent[l]] + 1;
+        }
+    }
+
+    private static int find(int[] set, int x) {
+        int root = x;
+        while (set[root] != root) root = set[root];
+        while (set[x] != root) {
+            int next = set[x];
+            set[x] = root;
+            x = next;
+        }
+        return root;
+    }
+
+    // --- Blocos e arestas ---
+
+    public int blockCount() {
+        return blockCount;
+    }
+
+    public int instructionCount() {
+        return instructionCount;
+    }
+
+    /** Primeira instrução do bloco. */
+    public int blockStart(int block) {
+        return blockStart[block];
+    }
+
+    /** Índice logo após a última instrução do bloco. */
+    public int blockEnd(int block) {
+        return blockStart[block + 1];
+    }
+
+    /** Bloco que contém a instrução. */
+    public int blockOf(int instruction) {
+        return blockOf[instruction];
+    }
+
+    public int successorCount(int block) {
+        return succ[2 * block] < 0 ? 0 : succ[2 * block + 1] < 0 ? 1 : 2;
+    }
+
+    public int successor(int block, int i) {
+        return succ[2 * block + i];
+    }
+
+    public int predecessorCount(int block) {
+        return predStart[block + 1] - predStart[block];
+    }
+
+    public int predecessor(int block, int i) {
+        return preds[predStart[block] + i];
+    }
+
+    // --- Ordem e dominadores ---
+
+    /** Blocos alcançáveis em ordem reversa de pós-ordem (a entrada primeiro). */
+    public int[] reversePostorder() {
+        return rpo.clone();
+    }
+
+    /** Posição do bloco na RPO, ou -1 se ele é inalcançável. */
+    public int rpoIndex(int block) {
+        return rpoIndex[block];
+    }
+
+    public boolean isReachable(int block) {
+        return rpoIndex[block] >= 0;
+    }
+
+    /** Dominador imediato, ou -1 para a entrada e blocos inalcançáveis. */
+    public int idom(int block) {
+        return idom[block];
+    }
+
+    public int domChildCount(int block) {
+        return domChildStart[block + 1] - domChildStart[block];
+    }
+
+    /** Blocos cujo dominador imediato é este. */
+    public int domChild(int block, int i) {
+        return domChildren[domChildStart[block] + i];
+    }
+
+    /** Se todo caminho da entrada até b passa por a (a domina a si mesmo). */
+    public boolean dominates(int a, int b) {
+        if (rpoIndex[a] < 0 || rpoIndex[b] < 0) return false;
+        return domPre[a] <= domPre[b] && domPre[b] <= domPost[a];
+    }
+
+    // --- Laços ---
+
+    public int loopCount() {
+        return loopCount;
+    }
+
+    public int loopHeader(int loop) {
+        return loopHeader[loop];
+    }
+
+    /** Laço que contém este diretamente, ou -1. */
+    public int loopParent(int loop) {
+        return loopParent[loop];
+    }
+
+    /** 1 para laços externos, 2 para os aninhados neles... */
+    public int loopDepth(int loop) {
+        return loopDepth[loop];
+    }
+
+    /** Laço mais interno que contém o bloco, ou -1. */
+    public int loopOf(int block) {
+        return loopOf[block];
+    }
+
+    public boolean loopContains(int loop, int block) {
+        int l = loopOf[block];
+        while (l >= 0 && loopDepth[l] > loopDepth[loop]) l = loopParent[l];
+        return l == loop;
+    }
+}
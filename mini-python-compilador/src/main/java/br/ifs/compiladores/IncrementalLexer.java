@@ -0,0 +1,132 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Reanálise léxica incremental para ferramentas de edição.
+ *
+ * Em vez de analisar o arquivo inteiro a cada alteração, retoma o lexer no
+ * início da linha da edição (com a pilha de indentação salva naquele ponto)
+ * e para assim que um NEWLINE depois da edição coincide com um NEWLINE da
+ * sequência antiga com a mesma pilha de indentação. Os tokens antigos dali em
+ * diante são reaproveitados sem cópia, então o custo acompanha o tamanho da
+ * edição e não o do arquivo.
+ */
+public final class IncrementalLexer {
+
+    private IncrementalLexer() { }
+
+    /**
+     * Aplica a edição à sequência anterior, que é atualizada no lugar.
+     * newSource é o texto completo já editado; a sequência resultante é igual
+     * à de TokenStream.of(newSource).
+     */
+    public static TokenEdit relex(TokenStream tokens, String newSource, TextEdit edit) {
+        if (!(tokens.source() instanceof StringCharSource)) {
+            throw new IllegalArgumentException("Reanálise incremental exige uma sequência criada a partir de String.");
+        }
+        if (!tokens.hasPositions()) {
+            throw new IllegalArgumentException("Reanálise incremental exige linha/coluna por token (TokenStream.of).");
+        }
+        int oldLength = tokens.start(tokens.size() - 1); // O EOF fica sempre no fim da fonte
+        if (edit.offset + edit.removedLength > oldLength || oldLength + edit.delta() != newSource.length()) {
+            throw new IllegalArgumentException("Edição não corresponde ao texto informado.");
+        }
+        int delta = edit.delta();
+        int editEnd = edit.offset + edit.insertedLength; // Fim da edição no texto novo
+
+        // 1. Ponto de retomada: início da linha que contém a edição
+        int resume = lineStartBefore(tokens, edit.offset);
+        int offset = resume == 0 ? 0 : tokens.start(resume - 1) + 1;
+        int line = resume == 0 ? 1 : tokens.line(resume - 1) + 1;
+        TokenStream.IndentStack oldStack = tokens.indentStackAt(resume);
+
+        CharSource source = new StringCharSource(newSource);
+        MiniPythonLexer lexer = MiniPythonLexer.resume(source, offset, line, oldStack.toArray());
+        int oldSize = tokens.size();
+        tokens.beginEdit(resume);
+
+        // 2. Reanalisa até reencontrar a sequência antiga
+        int oldCursor = resume;
+        int sync = -1;
+        while (true) {
+            TokenType type = lexer.scan();
+            tokens.add(type, lexer);
+            if (type == TokenType.EOF) break;
+            if (type != TokenType.NEWLINE || lexer.tokenStart < editEnd) continue;
+
+            // Avança na sequência antiga até a posição correspondente, acompanhando a indentação
+            int target = lexer.tokenStart - delta;
+            while (oldCursor < oldSize && tokens.start(tokens.oldIndex(oldCursor)) < target) {
+                int old = tokens.oldIndex(oldCursor++);
+                oldStack.apply(tokens.type(old), tokens.rawLength(old));
+            }
+            if (oldCursor < oldSize) {
+                int old = tokens.oldIndex(oldCursor);
+                if (tokens.start(old) == target
+                        && tokens.type(old) == TokenType.NEWLINE
+                        && Arrays.equals(oldStack.toArray(), lexer.indentSnapshot())) {
+                    sync = oldCursor;
+                    break;
+                }
+            }
+        }
+
+        // 3. Descarta os tokens antigos substituídos; o restante é reaproveitado
+        int oldEnd = sync >= 0 ? sync + 1 : oldSize;
+        int lineDelta = sync >= 0 ? lexer.tokenLine - tokens.line(tokens.oldIndex(sync)) : 0;
+        int newEnd = resume + tokens.inserted();
+        TokenEdit result = narrow(tokens, edit, resume, oldEnd, newEnd, delta, lineDelta);
+        tokens.endEdit(source, oldEnd, delta, lineDelta);
+        return result;
+    }
+
+    // Reduz o trecho alterado descartando tokens idênticos nas duas pontas
+    private static TokenEdit narrow(TokenStream tokens, TextEdit edit,
+                                    int start, int oldEnd, int newEnd, int delta, int lineDelta) {
+        while (start < oldEnd && start < newEnd) {
+            int old = tokens.oldIndex(start);
+            if (tokens.start(old) + extent(tokens, old) > edit.offset || !sameToken(tokens, old, start, 0, 0)) break;
+            start++;
+        }
+        int removedEnd = edit.offset + edit.removedLength;
+        while (oldEnd > start && newEnd > start) {
+            int old = tokens.oldIndex(oldEnd - 1);
+            if (tokens.start(old) < removedEnd || !sameToken(tokens, old, newEnd - 1, delta, lineDelta)) break;
+            oldEnd--;
+            newEnd--;
+        }
+        return new TokenEdit(tokens, start, oldEnd, newEnd);
+    }
+
+    private static boolean sameToken(TokenStream tokens, int old, int current, int delta, int lineDelta) {
+        TokenType type = tokens.type(old);
+        return type != TokenType.ERROR
+                && type == tokens.type(current)
+                && tokens.start(old) + delta == tokens.start(current)
+                && tokens.rawLength(old) == tokens.rawLength(current)
+                && tokens.line(old) + lineDelta == tokens.line(current)
+                && tokens.column(old) == tokens.column(current);
+    }
+
+    // Quantos caracteres da fonte o token ocupa (INDENT/ERROR não usam o campo de tamanho)
+    private static int extent(TokenStream tokens, int index) {
+        TokenType type = tokens.type(index);
+        return type == TokenType.INDENT || type == TokenType.ERROR ? 0 : tokens.rawLength(index);
+    }
+
+    // Índice do primeiro token da linha que contém offset (logo após o último NEWLINE anterior)
+    private static int lineStartBefore(TokenStream tokens, int offset) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.start(mid) < offset) low = mid + 1;
+            else high = mid;
+        }
+        for (int i = low - 1; i >= 0; i--) {
+            if (tokens.type(i) == TokenType.NEWLINE) return i + 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,49 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+
+/**
+ * Reanálise sintática incremental, para usar depois de IncrementalLexer.relex.
+ *
+ * Comandos cujos tokens ficaram fora do trecho alterado são reaproveitados da
+ * AST anterior sem releitura: os anteriores à edição direto da lista antiga e,
+ * assim que o parser reencontra um limite de comando depois da edição, todo o
+ * restante da lista. Um if/while atingido é relido, mas seus blocos repetem o
+ * processo, então só o bloco mais interno que contém a edição é analisado de
+ * novo (e um BlockStmt sem mudanças é devolvido como estava).
+ */
+public final class IncrementalParser {
+
+    private IncrementalParser() { }
+
+    /**
+     * previous é a AST da sequência antes da edição (resultado de
+     * MiniPythonParser.parse() ou de uma reanálise anterior) e edit o retorno
+     * de IncrementalLexer.relex sobre essa sequência. O resultado é igual ao de
+     * parse() sobre edit.tokens, a não ser pelas posições: os nós
+     * reaproveitados não são copiados, então os Tokens guardados neles
+     * (AssignStmt.name, BinaryExpr.operator, ...) mantêm a linha e a coluna da
+     * versão em que foram lidos, e depois de uma edição que acrescenta ou
+     * remove linhas acima deles essas posições ficam desatualizadas (a
+     * diferença se acumula a cada reanálise). Para a posição atual de um
+     * comando, use a sequência de tokens: edit.tokens.line/column de
+     * firstToken.
+     */
+    public static List<Stmt> reparse(List<Stmt> previous, TokenEdit edit) {
+        return new MiniPythonParser(edit.tokens).reparse(previous, edit);
+    }
+
+    /**
+     * Índice em tokens do primeiro token do comando index de statements (lista
+     * de nível superior devolvida por parse() ou reparse() sobre tokens),
+     * pulando as linhas em branco que o precedem. Calculado pelas larguras dos
+     * comandos, vale também para nós reaproveitados.
+     */
+    public static int firstToken(List<Stmt> statements, TokenStream tokens, int index) {
+        StmtList list = StmtList.of(statements);
+        int position = 0;
+        for (int i = 0; i < index; i++) position += list.width(i);
+        while (tokens.type(position) == TokenType.NEWLINE) position++;
+        return position;
+    }
+}
@@ -0,0 +1,47 @@
+package br.ifs.compiladores;
+
+/**
+ * Entrega ao parser os tokens do lexer sob demanda, sem montar a lista
+ * inteira antes da análise sintática.
+ *
+ * O parser só olha o token atual e o anterior, então basta guardar os
+ * últimos WINDOW tokens num buffer circular indexado pela posição absoluta.
+ */
+class LexerTokenSource implements TokenSource {
+    static final int WINDOW = 16; // Potência de 2
+    private static final int MASK = WINDOW - 1;
+
+    private final MiniPythonLexer lexer;
+    private final Token[] ring = new Token[WINDOW];
+    private int read = 0;         // Quantidade de tokens já lidos
+    private boolean eof = false;
+
+    LexerTokenSource(MiniPythonLexer lexer) {
+        this.lexer = lexer;
+    }
+
+    // Próximo token da entrada; chamado até devolver EOF
+    Token next() {
+        return lexer.nextToken();
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return get(index).type;
+    }
+
+    @Override
+    public Token get(int index) {
+        while (index >= read) {
+            if (eof) return ring[(read - 1) & MASK]; // Depois do fim, sempre o EOF
+            Token token = next();
+            ring[read & MASK] = token;
+            read++;
+            eof = token.type == TokenType.EOF;
+        }
+        if (index < read - WINDOW) {
+            throw new IllegalStateException("Token " + index + " já saiu da janela de " + WINDOW + " tokens.");
+        }
+        return ring[index & MASK];
+    }
+}
@@ -0,0 +1,58 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Tabela com o offset de início de cada linha da fonte. Responde linha e
+ * coluna de um offset por busca binária, o que permite guardar só a posição
+ * de cada token e calcular linha/coluna apenas quando alguém pergunta (por
+ * exemplo, ao montar uma mensagem de erro).
+ *
+ * Linhas e colunas começam em 1; colunas são contadas em caracteres UTF-16,
+ * como no MiniPythonLexer.
+ */
+final class LineIndex {
+    private final CharSource source;
+    private final int[] starts;
+    private final int lines;
+
+    private LineIndex(CharSource source, int[] starts, int lines) {
+        this.source = source;
+        this.starts = starts;
+        this.lines = lines;
+    }
+
+    static LineIndex of(CharSource source) {
+        int[] starts = new int[1024];
+        int lines = 1; // A linha 1 começa no offset 0
+        for (int nl = source.indexOf('\n', 0); source.has(nl); nl = source.indexOf('\n', nl + 1)) {
+            if (lines == starts.length) starts = Arrays.copyOf(starts, lines * 2);
+            starts[lines++] = nl + 1;
+        }
+        return new LineIndex(source, starts, lines);
+    }
+
+    int lineCount() {
+        return lines;
+    }
+
+    // Linha do offset: a última cujo início é <= offset
+    int line(int offset) {
+        int low = 0;
+        int high = lines - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= offset) low = mid;
+            else high = mid - 1;
+        }
+        return low + 1;
+    }
+
+    int lineStart(int line) {
+        return starts[line - 1];
+    }
+
+    int column(int offset) {
+        return source.charCount(lineStart(line(offset)), offset) + 1;
+    }
+}
@@ -0,0 +1,351 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Numeração de valores local (por bloco básico) sobre o TAC, com propagação
+ * de cópias e remoção de temporários mortos.
+ *
+ * Dentro de um bloco, cada operando recebe um número de valor: constantes
+ * iguais, cópias e expressões com o mesmo operador sobre os mesmos números
+ * ficam com o mesmo valor. Uma expressão já calculada vira cópia de quem
+ * guarda o valor, e cada operando é trocado pela constante, pela variável ou
+ * pelo temporário que o guarda (nessa ordem de preferência). Depois,
+ * temporários sem uso são removidos e "tN = a op b; x = tN" vira
+ * "x = a op b".
+ *
+ * report() resume a última otimização: instruções antes e depois, no total
+ * e por operação.
+ */
+public final class LocalValueNumbering {
+    private static final TACOpcode[] OPCODES = TACOpcode.values();
+
+    private TACProgram program;
+    private TACProgram out;
+
+    // Número de valor corrente de cada nome (variável ou temporário), válido
+    // só se nameStamp[nome] == block (número do bloco atual + 1)
+    private int variableCount;
+    private int[] nameValue;
+    private int[] nameStamp;
+    private int block;
+
+    // Por número de valor: a constante (operando) que ele é, e a primeira
+    // variável e o primeiro temporário que o receberam neste bloco (NONE se não há)
+    private int valueCount;
+    private int[] constantOf;
+    private int[] variableHolder;
+    private int[] tempHolder;
+    private int[] constantValue; // por índice do pool
+
+    // Expressões do bloco: (operação, valor1, valor2) -> valor, em
+    // endereçamento aberto; entradas de outros blocos valem como vazias
+    private long[] keys = new long[256];
+    private int[] values = new int[256];
+    private int[] stamps = new int[256];
+    private int expressions;
+
+    private int before;
+    private int after;
+    private int[] countsBefore;
+    private int[] countsAfter;
+    private int commonSubexpressions;
+    private int propagatedCopies;
+    private int removedTemps;
+    private int mergedCopies;
+
+    /** Programa equivalente sem subexpressões repetidas nos blocos, cópias e temporários mortos. */
+    public TACProgram optimize(TACProgram program) {
+        this.program = program;
+        this.out = program.emptyCopy();
+        ControlFlowGraph cfg = ControlFlowGraph.of(program);
+
+        variableCount = program.variableCount();
+        int names = variableCount + program.tempCount() + 1;
+        nameValue = new int[names];
+        nameStamp = new int[names];
+        valueCount = 1; // 0 = sem operando
+        int capacity = program.size() * 2 + 16;
+        constantOf = new int[capacity];
+        variableHolder = new int[capacity];
+        tempHolder = new int[capacity];
+        constantValue = new int[0];
+        Arrays.fill(stamps, 0);
+        commonSubexpressions = 0;
+        propagatedCopies = 0;
+
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            block = b + 1;
+            expressions = 0;
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) number(i);
+        }
+
+        TACProgram result = removeDeadTemps(out);
+        before = program.size();
+        after = result.size();
+        countsBefore = counts(program);
+        countsAfter = counts(result);
+        return result;
+    }
+
+    // --- Numeração ---
+
+    private void number(int i) {
+        TACOpcode opcode = program.opcode(i);
+        int result = program.result(i);
+        Type type = program.type(i);
+        switch (opcode) {
+            case LABEL: case GOTO:
+                out.add(opcode, result, TACProgram.NONE, TACProgram.NONE, type);
+                return;
+            case CALL: // nome da função e número de argumentos não são valores
+                out.add(opcode, result, program.arg1(i), program.arg2(i), type);
+                assign(result, newValue());
+                return;
+            default:
+        }
+
+        int v1 = valueOf(program.arg1(i));
+        int v2 = valueOf(program.arg2(i));
+        int arg1 = canonical(program.arg1(i), v1);
+        int arg2 = canonical(program.arg2(i), v2);
+
+        if (opcode == TACOpcode.COPY) {
+            if (arg1 != result) out.add(opcode, result, arg1, TACProgram.NONE, type);
+            assign(result, v1);
+            return;
+        }
+        if (!SSAForm.defines(opcode)) { // IF_FALSE/IF_TRUE, PRINT, PARAM
+            out.add(opcode, result, arg1, arg2, type);
+            return;
+        }
+
+        // Soma de números, multiplicação e igualdade não dependem da ordem
+        // (soma de STRING é concatenação, e a genérica pode ser)
+        boolean commutative = opcode == TACOpcode.MUL || opcode == TACOpcode.EQ || opcode == TACOpcode.NEQ
+            || opcode == TACOpcode.ADD && type != null && type.isNumber();
+        long key = (long) opcode.ordinal() << 58
+            | (long) (commutative ? Math.min(v1, v2) : v1) << 29
+            | (commutative ? Math.max(v1, v2) : v2);
+        int known = lookup(key);
+        if (known > 0) {
+            int holder = holder(known);
+            if (holder != TACProgram.NONE) {
+                commonSubexpressions++;
+                out.add(TACOpcode.COPY, result, holder, TACProgram.NONE, type);
+                assign(result, known);
+                return;
+            }
+        }
+        int value = known > 0 ? known : newValue();
+        if (known == 0) insert(key, value);
+        out.add(opcode, result, arg1, arg2, type);
+        assign(result, value);
+    }
+
+    private int newValue() {
+        if (valueCount == constantOf.length) {
+            int capacity = valueCount * 2;
+            constantOf = Arrays.copyOf(constantOf, capacity);
+            variableHolder = Arrays.copyOf(variableHolder, capacity);
+            tempHolder = Arrays.copyOf(tempHolder, capacity);
+        }
+        constantOf[valueCount] = TACProgram.NONE;
+        variableHolder[valueCount] = TACProgram.NONE;
+        tempHolder[valueCount] = TACProgram.NONE;
+        return valueCount++;
+    }
+
+    // Nome (índice em nameValue) do operando, ou -1 se não é variável nem temporário
+    private int name(int operand) {
+        if (operand == TACProgram.NONE) return -1;
+        switch (TACProgram.tag(operand)) {
+            case TACProgram.VARIABLE: return TACProgram.index(operand);
+            case TACProgram.TEMP: return variableCount + TACProgram.index(operand);
+            default: return -1;
+        }
+    }
+
+    private int valueOf(int operand) {
+        if (operand == TACProgram.NONE) return 0;
+        if (TACProgram.tag(operand) == TACProgram.CONSTANT) {
+            int index = TACProgram.index(operand);
+            if (index >= constantValue.length) constantValue = Arrays.copyOf(constantValue, Math.max(index + 1, constantValue.length * 2));
+            if (constantValue[index] == 0) { // o pool não repete constantes
+                int value = newValue();
+                constantOf[value] = operand; // mesmo índice em out (emptyCopy)
+                constantValue[index] = value;
+            }
+            return constantValue[index];
+        }
+        int name = name(operand);
+        if (nameStamp[name] != block) {
+            // Primeiro uso no bloco: valor que chega de fora
+            int value = newValue();
+            nameStamp[name] = block;
+            nameValue[name] = value;
+            if (TACProgram.tag(operand) == TACProgram.VARIABLE) variableHolder[value] = operand;
+            else tempHolder[value] = operand;
+        }
+        return nameValue[name];
+    }
+
+    private void assign(int operand, int value) {
+        int name = name(operand);
+        nameStamp[name] = block;
+        nameValue[name] = value;
+        if (TACProgram.tag(operand) == TACProgram.VARIABLE) {
+            if (!holds(variableHolder[value], value)) variableHolder[value] = operand;
+        } else if (!holds(tempHolder[value], value)) {
+            tempHolder[value] = operand;
+        }
+    }
+
+    // Se o operando ainda guarda o valor (a variável pode ter sido reatribuída)
+    private boolean holds(int operand, int value) {
+        if (operand == TACProgram.NONE) return false;
+        int name = name(operand);
+        return nameStamp[name] == block && nameValue[name] == value;
+    }
+
+    // Constante, variável ou temporário que guarda o valor agora, ou NONE
+    private int holder(int value) {
+        if (constantOf[value] != TACProgram.NONE) return constantOf[value];
+        if (holds(variableHolder[value], value)) return variableHolder[value];
+        if (holds(tempHolder[value], value)) return tempHolder[value];
+        return TACProgram.NONE;
+    }
+
+    private int canonical(int operand, int value) {
+        if (value == 0) return operand;
+        int holder = holder(value);
+        if (holder == TACProgram.NONE) return operand;
+        if (holder != operand) propagatedCopies++;
+        return holder;
+    }
+
+    // --- Tabela de expressões ---
+
+    private int lookup(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; stamps[i] == block; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return 0;
+    }
+
+    private void insert(long key, int value) {
+        if (++expressions * 2 > keys.length) growExpressions();
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (stamps[i] == block) i = (i + 1) & mask;
+        keys[i] = key;
+        values[i] = value;
+        stamps[i] = block;
+    }
+
+    private void growExpressions() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldStamps = stamps;
+        keys = new long[oldKeys.length * 2];
+        values = new int[keys.length];
+        stamps = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldStamps[j] != block) continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (stamps[i] == block) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+            stamps[i] = block;
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    // --- Temporários mortos e cópias ---
+
+    // De trás para frente: um temporário é lido depois de definido, então os
+    // usos já foram contados (e descontados) quando a definição aparece.
+    // Chamadas ficam mesmo sem uso: input() lê a entrada.
+    private TACProgram removeDeadTemps(TACProgram code) {
+        int n = code.size();
+        int[] uses = new int[code.tempCount() + 1];
+        boolean[] keep = new boolean[n];
+        for (int i = n - 1; i >= 0; i--) {
+            TACOpcode opcode = code.opcode(i);
+            int result = code.result(i);
+            if (SSAForm.defines(opcode) && opcode != TACOpcode.CALL
+                    && TACProgram.tag(result) == TACProgram.TEMP && uses[TACProgram.index(result)] == 0) {
+                continue;
+            }
+            keep[i] = true;
+            if (opcode == TACOpcode.CALL) continue;
+            countUse(uses, code.arg1(i));
+            countUse(uses, code.arg2(i));
+        }
+
+        TACProgram result = code.emptyCopy();
+        removedTemps = 0;
+        mergedCopies = 0;
+        for (int i = 0; i < n; i++) {
+            if (!keep[i]) {
+                removedTemps++;
+                continue;
+            }
+            TACOpcode opcode = code.opcode(i);
+            int temp = code.result(i);
+            // tN = a op b (ou call) seguido de x = tN, único uso de tN: x = a op b
+            if (opcode != TACOpcode.COPY && SSAForm.defines(opcode)
+                    && TACProgram.tag(temp) == TACProgram.TEMP && uses[TACProgram.index(temp)] == 1
+                    && i + 1 < n && keep[i + 1] && code.opcode(i + 1) == TACOpcode.COPY && code.arg1(i + 1) == temp) {
+                result.add(opcode, code.result(i + 1), code.arg1(i), code.arg2(i), code.type(i));
+                mergedCopies++;
+                i++;
+                continue;
+            }
+            result.add(opcode, temp, code.arg1(i), code.arg2(i), code.type(i));
+        }
+        return result;
+    }
+
+    private static void countUse(int[] uses, int operand) {
+        if (operand != TACProgram.NONE && TACProgram.tag(operand) == TACProgram.TEMP) uses[TACProgram.index(operand)]++;
+    }
+
+    // --- Relatório ---
+
+    private static int[] counts(TACProgram code) {
+        int[] counts = new int[OPCODES.length];
+        for (int i = 0; i < code.size(); i++) counts[code.opcode(i).ordinal()]++;
+        return counts;
+    }
+
+    public int instructionsBefore() {
+        return before;
+    }
+
+    public int instructionsAfter() {
+        return after;
+    }
+
+    /** Instruções antes e depois da última otimização, no total e por operação. */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Instruções: %d -> %d (%+d)%n", before, after, after - before));
+        sb.append(String.format("  subexpressões comuns: %d, cópias propagadas: %d, temporários mortos: %d, cópias fundidas: %d%n",
+            commonSubexpressions, propagatedCopies, removedTemps, mergedCopies));
+        for (TACOpcode opcode : OPCODES) {
+            int was = countsBefore[opcode.ordinal()];
+            int is = countsAfter[opcode.ordinal()];
+            if (was == 0 && is == 0) continue;
+            String name = opcode == TACOpcode.COPY ? "=" : opcode.symbol;
+            sb.append(String.format("  %-8s %d -> %d%n", name, was, is));
+        }
+        return sb.toString();
+    }
+}
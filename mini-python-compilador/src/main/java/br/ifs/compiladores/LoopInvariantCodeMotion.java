@@ -0,0 +1,209 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Move para fora dos laços os cálculos cujos operandos não mudam dentro
+ * deles (loop-invariant code motion).
+ *
+ * Os laços são os laços naturais do ControlFlowGraph; cada um ganha um
+ * pré-cabeçalho logo antes do LABEL do cabeçalho, por onde passa quem entra no
+ * laço sem ser pela aresta de retorno (saltos de fora são redirecionados para
+ * um label novo). Uma instrução sai do laço se:
+ *   - é pura (cópia, operação unária ou binária) e grava num temporário que
+ *     só ela define: a cópia "x = tN" de cada atribuição fica no laço, só o
+ *     cálculo sai;
+ *   - cada operando é constante ou vem de uma definição (SSA) fora do laço ou
+ *     já movida para fora dele;
+ *   - não pode falhar na execução (divisão, operação genérica que pode
+ *     receber tipos inválidos) ou está no cabeçalho antes de qualquer CALL:
+ *     o cabeçalho roda sempre que o laço é alcançado, o corpo pode nunca rodar.
+ * Uma instrução invariante em vários laços aninhados sai do mais externo
+ * possível.
+ */
+public final class LoopInvariantCodeMotion {
+    private TACProgram program;
+    private ControlFlowGraph cfg;
+    private SSAForm ssa;
+
+    // Laço para cujo pré-cabeçalho a instrução vai (-1 = fica)
+    private int[] target;
+
+    private int hoisted;
+    private int preheaders;
+
+    /** Programa equivalente com os cálculos invariantes nos pré-cabeçalhos dos laços. */
+    public TACProgram optimize(TACProgram program) {
+        this.program = program;
+        this.ssa = SSAForm.of(program);
+        this.cfg = ssa.cfg;
+        int n = program.size();
+        target = new int[n];
+        Arrays.fill(target, -1);
+        hoisted = 0;
+        preheaders = 0;
+        if (cfg.loopCount() == 0) return program;
+
+        boolean[] placeable = new boolean[cfg.loopCount()];
+        for (int l = 0; l < cfg.loopCount(); l++) placeable[l] = preheaderPlaceable(l);
+
+        int[] temps = new int[program.tempCount() + 1];
+        for (int i = 0; i < n; i++) {
+            int result = program.result(i);
+            if (SSAForm.defines(program.opcode(i)) && TACProgram.tag(result) == TACProgram.TEMP) temps[TACProgram.index(result)]++;
+        }
+
+        // Na ordem do programa: operandos movidos (temporários do mesmo
+        // bloco) são decididos antes de quem os usa
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            int loop = cfg.loopOf(b);
+            if (loop < 0 || !cfg.isReachable(b)) continue;
+            boolean callBefore = false;
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                TACOpcode opcode = program.opcode(i);
+                if (opcode == TACOpcode.CALL) callBefore = true;
+                if (opcode == TACOpcode.CALL || !SSAForm.defines(opcode)) continue;
+                int result = program.result(i);
+                if (TACProgram.tag(result) != TACProgram.TEMP || temps[TACProgram.index(result)] != 1) continue;
+
+                boolean mayFail = mayFail(opcode, program.type(i));
+                if (mayFail && (b != cfg.loopHeader(loop) || callBefore)) continue;
+                for (int l = loop; l >= 0 && placeable[l] && invariant(i, l); l = cfg.loopParent(l)) {
+                    target[i] = l;
+                    if (mayFail) break; // só o cabeçalho do laço mais interno roda com certeza
+                }
+                if (target[i] >= 0) hoisted++;
+            }
+        }
+        return hoisted == 0 ? program : rewrite();
+    }
+
+    public int hoistedInstructions() {
+        return hoisted;
+    }
+
+    public int preheaders() {
+        return preheaders;
+    }
+
+    // --- Análise ---
+
+    // Quem entra no cabeçalho sem ser pela aresta de retorno precisa passar
+    // pelo pré-cabeçalho: não dá se o bloco anterior na ordem do programa é
+    // do laço e cai no cabeçalho (o pré-cabeçalho rodaria a cada volta)
+    private boolean preheaderPlaceable(int loop) {
+        int header = cfg.loopHeader(loop);
+        if (program.opcode(cfg.blockStart(header)) != TACOpcode.LABEL) return false;
+        if (header == 0) return true;
+        int previous = header - 1;
+        TACOpcode last = program.opcode(cfg.blockEnd(previous) - 1);
+        boolean fallsThrough = last != TACOpcode.GOTO;
+        return !fallsThrough || !cfg.loopContains(loop, previous);
+    }
+
+    private static boolean mayFail(TACOpcode opcode, Type type) {
+        switch (opcode) {
+            case COPY: case NOT: case AND: case OR: case EQ: case NEQ:
+                return false;
+            case DIV:
+                return true;
+            default:
+                return type == null; // genérica: os tipos só são conhecidos na execução
+        }
+    }
+
+    private boolean invariant(int i, int loop) {
+        return outside(program.arg1(i), ssa.use1[i], loop) && outside(program.arg2(i), ssa.use2[i], loop);
+    }
+
+    // Se o operando está definido fora do laço (depois de mover o que já foi decidido)
+    private boolean outside(int operand, int value, int loop) {
+        if (operand == TACProgram.NONE || TACProgram.tag(operand) == TACProgram.CONSTANT) return true;
+        if (value == SSAForm.UNDEFINED) return true;
+        int def = ssa.valueDef[value];
+        int defLoop;
+        if (def < 0) defLoop = cfg.loopOf(ssa.phiBlock[-def - 1]);
+        else if (target[def] >= 0) defLoop = cfg.loopParent(target[def]);
+        else defLoop = cfg.loopOf(cfg.blockOf(def));
+        return defLoop < 0 || !within(defLoop, loop);
+    }
+
+    // Se o laço inner é loop ou está dentro dele
+    private boolean within(int inner, int loop) {
+        while (inner >= 0 && cfg.loopDepth(inner) > cfg.loopDepth(loop)) inner = cfg.loopParent(inner);
+        return inner == loop;
+    }
+
+    // --- Reescrita ---
+
+    private TACProgram rewrite() {
+        int n = program.size();
+        int loops = cfg.loopCount();
+        TACProgram out = program.emptyCopy();
+
+        // Instruções de cada pré-cabeçalho, na ordem do programa
+        int[] start = new int[loops + 1];
+        for (int i = 0; i < n; i++) {
+            if (target[i] >= 0) start[target[i] + 1]++;
+        }
+        for (int l = 0; l < loops; l++) start[l + 1] += start[l];
+        int[] moved = new int[start[loops]];
+        int[] fill = Arrays.copyOf(start, loops);
+        for (int i = 0; i < n; i++) {
+            if (target[i] >= 0) moved[fill[target[i]]++] = i;
+        }
+
+        // Label novo para os pré-cabeçalhos que recebem saltos de fora do laço
+        int[] labelBlock = new int[program.labelCount() + 1];
+        for (int i = 0; i < n; i++) {
+            if (program.opcode(i) == TACOpcode.LABEL) labelBlock[TACProgram.index(program.result(i))] = cfg.blockOf(i);
+        }
+        int[] loopAt = new int[cfg.blockCount()];
+        Arrays.fill(loopAt, -1);
+        int[] entryLabel = new int[loops];
+        Arrays.fill(entryLabel, TACProgram.NONE);
+        for (int l = 0; l < loops; l++) {
+            if (start[l] == start[l + 1]) continue;
+            int header = cfg.loopHeader(l);
+            loopAt[header] = l;
+            for (int j = 0; j < cfg.predecessorCount(header); j++) {
+                int pred = cfg.predecessor(header, j);
+                if (cfg.loopContains(l, pred)) continue;
+                int last = cfg.blockEnd(pred) - 1;
+                TACOpcode opcode = program.opcode(last);
+                boolean jumps = (opcode == TACOpcode.GOTO || opcode.isBranch())
+                    && labelBlock[TACProgram.index(program.result(last))] == header;
+                if (jumps && entryLabel[l] == TACProgram.NONE) entryLabel[l] = out.newLabel();
+            }
+        }
+
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            int l = loopAt[b];
+            if (l >= 0) {
+                preheaders++;
+                if (entryLabel[l] != TACProgram.NONE) {
+                    out.add(TACOpcode.LABEL, entryLabel[l], TACProgram.NONE, TACProgram.NONE, null);
+                }
+                for (int k = start[l]; k < start[l + 1]; k++) copy(out, moved[k], TACProgram.NONE);
+            }
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                if (target[i] >= 0) continue;
+                TACOpcode opcode = program.opcode(i);
+                int jump = TACProgram.NONE;
+                if (opcode == TACOpcode.GOTO || opcode.isBranch()) {
+                    int to = labelBlock[TACProgram.index(program.result(i))];
+                    if (loopAt[to] >= 0 && entryLabel[loopAt[to]] != TACProgram.NONE && !cfg.loopContains(loopAt[to], b)) {
+                        jump = entryLabel[loopAt[to]];
+                    }
+                }
+                copy(out, i, jump);
+            }
+        }
+        return out;
+    }
+
+    private void copy(TACProgram out, int i, int newResult) {
+        int result = newResult != TACProgram.NONE ? newResult : program.result(i);
+        out.add(program.opcode(i), result, program.arg1(i), program.arg2(i), program.type(i));
+    }
+}
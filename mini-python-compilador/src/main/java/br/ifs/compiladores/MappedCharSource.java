@@ -0,0 +1,75 @@
+package br.ifs.compiladores;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fonte de caracteres sobre os bytes (UTF-8) de um arquivo mapeado em memória.
+ *
+ * Identificadores, palavras-chave, operadores e números são ASCII, então o
+ * lexer trabalha direto nos bytes; só os trechos que viram lexema/literal são
+ * decodificados. As posições aqui são offsets em bytes: charCount/charEnd
+ * permitem ao lexer corrigir a coluna quando aparecem caracteres multibyte.
+ */
+final class MappedCharSource extends CharSource {
+    private final ByteBuffer bytes;
+    private final int length;
+    private final ByteScanner scanner;
+
+    MappedCharSource(ByteBuffer bytes) {
+        this(bytes, ByteScanner.INSTANCE);
+    }
+
+    MappedCharSource(ByteBuffer bytes, ByteScanner scanner) {
+        this.bytes = bytes;
+        this.length = bytes.limit();
+        this.scanner = scanner;
+    }
+
+    @Override
+    boolean has(int index) {
+        return index < length;
+    }
+
+    @Override
+    char charAt(int index) {
+        return (char) (bytes.get(index) & 0xFF);
+    }
+
+    @Override
+    String substring(int from, int to) {
+        byte[] dst = new byte[to - from];
+        bytes.get(from, dst);
+        return new String(dst, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    int charEnd(int index) {
+        int b = bytes.get(index) & 0xFF;
+        int size = b < 0xC0 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+        return Math.min(index + size, length);
+    }
+
+    @Override
+    int charCount(int from, int to) {
+        return scanner.charCount(bytes, from, to);
+    }
+
+    // Os caracteres procurados são ASCII, que em UTF-8 nunca aparecem dentro
+    // de um caractere multibyte: a busca pode ser feita byte a byte
+
+    @Override
+    int indexOf(char c, int from) {
+        return scanner.indexOf(bytes, (byte) c, from, length);
+    }
+
+    @Override
+    int skipBlanks(int from) {
+        return scanner.skipBlanks(bytes, from, length);
+    }
+
+    @Override
+    int count(char c, int from, int to) {
+        return scanner.count(bytes, (byte) c, from, to);
+    }
+}
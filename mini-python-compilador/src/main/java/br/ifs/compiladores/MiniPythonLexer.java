@@ -1,14 +1,22 @@
 package br.ifs.compiladores;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Stack;
 
 public class MiniPythonLexer {
-    private final String source;
-    private final int length;
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    static final String INDENT_ERROR = "Erro de Indentação: Nível inconsistente.";
+
+    private final CharSource input;
     private int current = 0;
     private int start = 0;
     private int line = 1;
@@ -16,140 +24,405 @@ public class MiniPythonLexer {
 
     // Controle de Indentação
     private final Stack<Integer> indentStack = new Stack<>();
-    private final Queue<Token> tokenBuffer = new LinkedList<>();
     private boolean atLineStart = true;
 
-    private static final Map<String, TokenType> keywords;
+    // Tokens pendentes gerados por handleIndentation (INDENT, DEDENTs e erro)
+    private boolean pendingIndent = false;
+    private int pendingDedents = 0;
+    private boolean pendingIndentError = false;
+    private int pendingLine;
+    private int pendingColumn;
+
+    // Modo de indentação bruta: em vez de INDENT/DEDENT, só anota a largura de cada linha
+    private boolean rawIndentation = false;
+    boolean indentMarked;
+    int markedWidth;
+    int markedColumn;
+
+    // Sem linha/coluna por token: as posições são calculadas depois a partir do offset (ver LineIndex)
+    boolean trackPositions = true;
+
+    // Dados do último token lido por scan()
+    int tokenStart;
+    int tokenEnd;
+    int tokenLine;
+    int tokenColumn;
+    String tokenMessage;
+
+    // --- Tabelas do scanner ---
+
+    // Classes de caractere (apenas ASCII; qualquer outro caractere é OTHER)
+    private static final byte OTHER = 0;
+    private static final byte BLANK = 1;      // ' ', '\t', '\r'
+    private static final byte NEWLINE = 2;
+    private static final byte HASH = 3;       // '#'
+    private static final byte QUOTE = 4;      // '"', '\''
+    private static final byte DIGIT = 5;
+    private static final byte ALPHA = 6;      // letras e '_'
+    private static final byte SINGLE = 7;     // operador de um caractere só
+    private static final byte EQUALS = 8;     // '=' ou '=='
+    private static final byte BANG = 9;       // '!='
+    private static final byte LESS = 10;      // '<' ou '<='
+    private static final byte GREATER = 11;   // '>' ou '>='
+
+    private static final byte[] CHAR_CLASS = new byte[128];
+    private static final TokenType[] SINGLE_TOKENS = new TokenType[128];
+
+    // Hash perfeito das palavras-chave: (primeiro + último caractere + tamanho) & 31
+    // não tem colisões para as 12 palavras da linguagem
+    private static final int KEYWORD_SLOTS = 32;
+    private static final String[] KEYWORD_TEXT = new String[KEYWORD_SLOTS];
+    private static final TokenType[] KEYWORD_TYPE = new TokenType[KEYWORD_SLOTS];
+    private static int minKeywordLength = Integer.MAX_VALUE;
+    private static int maxKeywordLength = 0;
 
     static {
-        keywords = new HashMap<>();
-        keywords.put("if", TokenType.IF);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("while", TokenType.WHILE);
-        keywords.put("print", TokenType.PRINT);
-        keywords.put("and", TokenType.AND);
-        keywords.put("or", TokenType.OR);
-        keywords.put("not", TokenType.NOT);
-        keywords.put("input", TokenType.INPUT);
-        keywords.put("int", TokenType.INT);
-        keywords.put("float", TokenType.FLOAT);
-        keywords.put("True", TokenType.TRUE);  
-        keywords.put("False", TokenType.FALSE); 
+        CHAR_CLASS[' '] = BLANK;
+        CHAR_CLASS['\t'] = BLANK;
+        CHAR_CLASS['\r'] = BLANK;
+        CHAR_CLASS['\n'] = NEWLINE;
+        CHAR_CLASS['#'] = HASH;
+        CHAR_CLASS['"'] = QUOTE;
+        CHAR_CLASS['\''] = QUOTE;
+        for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = DIGIT;
+        for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = ALPHA;
+        for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = ALPHA;
+        CHAR_CLASS['_'] = ALPHA;
+        CHAR_CLASS['='] = EQUALS;
+        CHAR_CLASS['!'] = BANG;
+        CHAR_CLASS['<'] = LESS;
+        CHAR_CLASS['>'] = GREATER;
+
+        single('(', TokenType.LPAREN);
+        single(')', TokenType.RPAREN);
+        single(':', TokenType.COLON);
+        single(',', TokenType.COMMA);
+        single('+', TokenType.PLUS);
+        single('-', TokenType.MINUS);
+        single('*', TokenType.MUL);
+        single('/', TokenType.DIV);
+
+        keyword("if", TokenType.IF);
+        keyword("else", TokenType.ELSE);
+        keyword("while", TokenType.WHILE);
+        keyword("print", TokenType.PRINT);
+        keyword("and", TokenType.AND);
+        keyword("or", TokenType.OR);
+        keyword("not", TokenType.NOT);
+        keyword("input", TokenType.INPUT);
+        keyword("int", TokenType.INT);
+        keyword("float", TokenType.FLOAT);
+        keyword("True", TokenType.TRUE);
+        keyword("False", TokenType.FALSE);
+    }
+
+    private static void single(char c, TokenType type) {
+        CHAR_CLASS[c] = SINGLE;
+        SINGLE_TOKENS[c] = type;
+    }
+
+    private static void keyword(String text, TokenType type) {
+        int slot = keywordSlot(text.charAt(0), text.charAt(text.length() - 1), text.length());
+        if (KEYWORD_TEXT[slot] != null) {
+            throw new IllegalStateException("Colisão no hash de palavras-chave: " + text + " / " + KEYWORD_TEXT[slot]);
+        }
+        KEYWORD_TEXT[slot] = text;
+        KEYWORD_TYPE[slot] = type;
+        minKeywordLength = Math.min(minKeywordLength, text.length());
+        maxKeywordLength = Math.max(maxKeywordLength, text.length());
+    }
+
+    private static int keywordSlot(char first, char last, int length) {
+        return (first + last + length) & (KEYWORD_SLOTS - 1);
+    }
+
+    private static byte classOf(char c) {
+        return c < 128 ? CHAR_CLASS[c] : OTHER;
     }
 
     public MiniPythonLexer(String source) {
-        this.source = source;
-        this.length = source.length();
+        this(new StringCharSource(source));
+    }
+
+    /**
+     * Lê a fonte de um Reader usando um buffer de tamanho fixo, sem carregar
+     * o arquivo inteiro em memória. O Reader não é fechado pelo lexer.
+     */
+    public MiniPythonLexer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public MiniPythonLexer(Reader reader, int bufferSize) {
+        this(new ReaderCharSource(reader, bufferSize));
+    }
+
+    /**
+     * Lê a fonte (UTF-8) de um canal de bytes, também via buffer deslizante.
+     */
+    public MiniPythonLexer(ReadableByteChannel channel) {
+        this(channel, StandardCharsets.UTF_8);
+    }
+
+    public MiniPythonLexer(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newReader(channel, charset));
+    }
+
+    /**
+     * Mapeia o arquivo (UTF-8) em memória e analisa os bytes diretamente,
+     * sem decodificar a fonte inteira para uma String. Apenas lexemas e
+     * literais são decodificados. Gera a mesma sequência de tokens que o
+     * construtor baseado em String.
+     */
+    public MiniPythonLexer(Path path) throws IOException {
+        this(new MappedCharSource(map(path)));
+    }
+
+    MiniPythonLexer(CharSource input) {
+        this.input = input;
         this.indentStack.push(0); // Nível base de indentação
     }
 
+    /**
+     * Cria um lexer que continua a análise no início de uma linha (logo após
+     * um NEWLINE), com a pilha de indentação salva naquele ponto.
+     */
+    static MiniPythonLexer resume(CharSource input, int offset, int line, int[] indents) {
+        MiniPythonLexer lexer = new MiniPythonLexer(input);
+        lexer.indentStack.clear();
+        for (int indent : indents) lexer.indentStack.push(indent);
+        lexer.current = offset;
+        lexer.start = Math.max(0, offset - 1); // Posição do '\n' anterior, como na análise contínua
+        lexer.columnStart = offset;
+        lexer.line = line;
+        return lexer;
+    }
+
+    /**
+     * Cria um lexer para um trecho que começa no início de uma linha, em modo
+     * de indentação bruta: a largura de cada linha é anotada em markedWidth
+     * e markedColumn (com indentMarked = true) antes do primeiro token da linha, e nenhum
+     * INDENT/DEDENT é emitido. As linhas são contadas a partir de 1.
+     */
+    static MiniPythonLexer segment(CharSource input, int offset) {
+        MiniPythonLexer lexer = resume(input, offset, 1, new int[] { 0 });
+        lexer.rawIndentation = true;
+        return lexer;
+    }
+
+    // Linha atual (quantidade de '\n' consumidos + 1)
+    int line() {
+        return line;
+    }
+
+    // Cópia da pilha de indentação (base primeiro)
+    int[] indentSnapshot() {
+        int[] snapshot = new int[indentStack.size()];
+        for (int i = 0; i < snapshot.length; i++) snapshot[i] = indentStack.get(i);
+        return snapshot;
+    }
+
+    // Nível de indentação atual (largura do último INDENT emitido)
+    int indentWidth() {
+        return indentStack.peek();
+    }
+
+    CharSource input() {
+        return input;
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo grande demais para mapear (" + size + " bytes): " + path);
+            }
+            // O mapeamento continua válido depois que o canal é fechado
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
     /**
      * Retorna o próximo token da fonte.
      */
     public Token nextToken() {
-        // 1. Se houver tokens pendentes (ex: múltiplos DEDENTs), retorna do buffer
-        if (!tokenBuffer.isEmpty()) {
-            return tokenBuffer.poll();
-        }
+        TokenType type = scan();
+        return new Token(type, tokenLexeme(type), literalOf(type), tokenLine, tokenColumn);
+    }
 
-        // 2. Verifica fim do arquivo
-        if (isAtEnd()) {
-            // Emite DEDENTs restantes antes do EOF se necessário
-            if (indentStack.peek() > 0) {
-                indentStack.pop();
-                return new Token(TokenType.DEDENT, "", null, line, 0);
+    /**
+     * Avança até o próximo token sem criar objetos Token. Posição, linha,
+     * coluna e mensagem (para ERROR) ficam nos campos token*; o lexema e o
+     * literal podem ser obtidos depois a partir da fonte.
+     */
+    TokenType scan() {
+        // Laço iterativo: espaços e comentários não geram chamadas recursivas
+        while (true) {
+            // 1. Se houver tokens pendentes (ex: múltiplos DEDENTs), retorna-os primeiro
+            if (hasPending()) {
+                return nextPending();
             }
-            return new Token(TokenType.EOF, "", null, line, 0);
-        }
 
-        // 3. Processamento de Indentação no início da linha
-        if (atLineStart) {
-            handleIndentation();
-            // Se handleIndentation gerou tokens (INDENT/DEDENT), retorna o primeiro
-            if (!tokenBuffer.isEmpty()) {
-                return tokenBuffer.poll();
+            // Tudo antes da posição atual já foi consumido
+            input.release(current);
+
+            // 2. Verifica fim do arquivo
+            if (isAtEnd()) {
+                tokenStart = tokenEnd = current;
+                tokenLine = line;
+                tokenColumn = 0;
+                // Emite DEDENTs restantes antes do EOF se necessário
+                if (!rawIndentation && indentStack.peek() > 0) {
+                    indentStack.pop();
+                    return TokenType.DEDENT;
+                }
+                return TokenType.EOF;
             }
-        }
 
-        start = current;
-        char c = advance();
+            // 3. Processamento de Indentação no início da linha
+            if (atLineStart) {
+                handleIndentation();
+                // Se handleIndentation gerou tokens (INDENT/DEDENT), retorna o primeiro
+                if (hasPending()) {
+                    return nextPending();
+                }
+                // Linha só com espaços no fim do arquivo
+                if (isAtEnd()) continue;
+            }
 
-        // Ignora espaços em branco fora do início da linha
-        if (c == ' ' || c == '\t' || c == '\r') {
-            return nextToken();
+            start = current;
+            char c = advance();
+
+            switch (classOf(c)) {
+                case BLANK:
+                    // Ignora espaços em branco fora do início da linha
+                    continue;
+
+                case NEWLINE:
+                    line++;
+                    columnStart = current;
+                    atLineStart = true;
+                    // Em Python, NEWLINE termina statements (linhas vazias também geram NEWLINE)
+                    setToken(line - 1);
+                    return TokenType.NEWLINE;
+
+                case HASH:
+                    // Comentários (ignorados até o fim da linha)
+                    atLineStart = false;
+                    current = input.indexOf('\n', current);
+                    adjustColumn(start, current);
+                    continue;
+
+                case SINGLE:
+                    atLineStart = false;
+                    return makeToken(SINGLE_TOKENS[c]);
+
+                case EQUALS:
+                    atLineStart = false;
+                    return makeToken(match('=') ? TokenType.EQ : TokenType.ASSIGN);
+
+                case BANG:
+                    atLineStart = false;
+                    if (match('=')) return makeToken(TokenType.NEQ);
+                    return errorToken("Esperado '=' após '!'");
+
+                case LESS:
+                    atLineStart = false;
+                    return makeToken(match('=') ? TokenType.LTE : TokenType.LT);
+
+                case GREATER:
+                    atLineStart = false;
+                    return makeToken(match('=') ? TokenType.GTE : TokenType.GT);
+
+                case QUOTE:
+                    atLineStart = false;
+                    return string(c);
+
+                case DIGIT:
+                    atLineStart = false;
+                    return number();
+
+                case ALPHA:
+                    atLineStart = false;
+                    return identifier();
+
+                default:
+                    atLineStart = false;
+                    // Consome o caractere inteiro (pode ocupar vários bytes na fonte)
+                    current = input.charEnd(start);
+                    TokenType error = errorToken("Caractere inesperado: " + input.substring(start, current));
+                    adjustColumn(start, current);
+                    return error;
+            }
         }
+    }
 
-        // Tratamento de Nova Linha
-        if (c == '\n') {
-            line++;
-            columnStart = current;
-            atLineStart = true;
-            // Ignora linhas em branco puras para não gerar NEWLINEs desnecessários
-            // Mas em Python, NEWLINE termina statements.
-            return new Token(TokenType.NEWLINE, "\n", null, line - 1, calculateCol());
-        }
+    // --- Materialização de tokens a partir da fonte ---
 
-        atLineStart = false; // Qualquer outro caractere quebra o status de início de linha
+    private String tokenLexeme(TokenType type) {
+        return type == TokenType.ERROR ? tokenMessage : lexeme(input, type, tokenStart, tokenEnd);
+    }
 
-        // Comentários(Ignorados até o fim da linha)
-        if (c == '#') {
-            while (peek() != '\n' && !isAtEnd()) advance();
-            return nextToken(); // Retorna o próximo token real
-        }
+    private Object literalOf(TokenType type) {
+        return literal(input, type, tokenStart, tokenEnd);
+    }
 
-        // Operadores e Pontuação
-        switch (c) {
-            case '(': return makeToken(TokenType.LPAREN);
-            case ')': return makeToken(TokenType.RPAREN);
-            case ':': return makeToken(TokenType.COLON);
-            case ',': return makeToken(TokenType.COMMA);
-            case '+': return makeToken(TokenType.PLUS);
-            case '-': return makeToken(TokenType.MINUS);
-            case '*': return makeToken(TokenType.MUL);
-            case '/': return makeToken(TokenType.DIV);
-            case '=': return makeToken(match('=') ? TokenType.EQ : TokenType.ASSIGN);
-            case '!':
-                if (match('=')) return makeToken(TokenType.NEQ);
-                else return errorToken("Esperado '=' após '!'");
-            case '<': return makeToken(match('=') ? TokenType.LTE : TokenType.LT);
-            case '>': return makeToken(match('=') ? TokenType.GTE : TokenType.GT);
+    // Lexema de um token não-ERROR que ocupa [start, end) na fonte
+    static String lexeme(CharSource input, TokenType type, int start, int end) {
+        switch (type) {
+            case INDENT:
+            case DEDENT:
+            case EOF:
+                return "";
+            case NEWLINE:
+                return "\n";
+            default:
+                return input.substring(start, end);
         }
+    }
 
-        // Literais de String
-        if (c == '"' || c == '\'') {
-            return string(c);
+    // Valor convertido (Integer, Double, String) de um literal em [start, end)
+    static Object literal(CharSource input, TokenType type, int start, int end) {
+        switch (type) {
+            case INTEGER_LITERAL: return Integer.parseInt(input.substring(start, end));
+            case FLOAT_LITERAL: return Double.parseDouble(input.substring(start, end));
+            case STRING_LITERAL: return input.substring(start + 1, end - 1);
+            default: return null;
         }
+    }
 
-        // Números
-        if (isDigit(c)) {
-            return number();
-        }
+    // --- Tokens pendentes gerados pela indentação ---
 
-        // Identificadores e Palavras-chave
-        if (isAlpha(c)) {
-            return identifier();
-        }
+    private boolean hasPending() {
+        return pendingIndent || pendingDedents > 0 || pendingIndentError;
+    }
 
-        return errorToken("Caractere inesperado: " + c);
+    private TokenType nextPending() {
+        tokenStart = tokenEnd = current;
+        tokenLine = pendingLine;
+        tokenColumn = pendingColumn;
+        if (pendingIndent) {
+            pendingIndent = false;
+            return TokenType.INDENT;
+        }
+        if (pendingDedents > 0) {
+            pendingDedents--;
+            return TokenType.DEDENT;
+        }
+        pendingIndentError = false;
+        tokenMessage = INDENT_ERROR;
+        return TokenType.ERROR;
     }
 
     // --- Lógica de Indentação ---
     private void handleIndentation() {
-        int spaces = 0;
         // Conta espaços/tabs a partir da posição atual (sem avançar 'current' permanentemente ainda)
-        int tempCurrent = current;
-        while (tempCurrent < length) {
-            char c = source.charAt(tempCurrent);
-            if (c == ' ') spaces++;
-            else if (c == '\t') spaces += 4; // Assume tab = 4 espaços
-            else break;
-            tempCurrent++;
-        }
+        int tempCurrent = input.skipBlanks(current);
+        int spaces = (tempCurrent - current) + 3 * input.count('\t', current, tempCurrent); // Assume tab = 4 espaços
 
-        char nextChar = (tempCurrent < length) ? source.charAt(tempCurrent) : '\0';
+        char nextChar = input.has(tempCurrent) ? input.charAt(tempCurrent) : '\0';
 
-        // Se a linha for vazia ou comentário, ignora indentação
-        if (nextChar == '\n' || nextChar == '\r' || nextChar == '#') {
+        // Se a linha for vazia, comentário ou só espaços no fim do arquivo, ignora indentação
+        if (nextChar == '\n' || nextChar == '\r' || nextChar == '#' || !input.has(tempCurrent)) {
              // Apenas consome os espaços e retorna, mantendo atLineStart = true
              current = tempCurrent;
              return; 
@@ -160,107 +433,155 @@ public class MiniPythonLexer {
         atLineStart = false; // Já processamos a indentação desta linha
 
         int currentIndent = spaces;
+        pendingLine = line;
+        pendingColumn = current - columnStart + 1; // Coluna do primeiro token da linha
+
+        if (rawIndentation) {
+            // Apenas registra a largura; INDENT/DEDENT são reconstruídos depois (ver ParallelLexer)
+            indentMarked = true;
+            markedWidth = currentIndent;
+            markedColumn = pendingColumn;
+            return;
+        }
+
         int previousIndent = indentStack.peek();
 
         if (currentIndent > previousIndent) {
             indentStack.push(currentIndent);
-            tokenBuffer.add(new Token(TokenType.INDENT, "", null, line, calculateCol()));
+            pendingIndent = true;
         } else if (currentIndent < previousIndent) {
             while (indentStack.peek() > currentIndent) {
-                tokenBuffer.add(new Token(TokenType.DEDENT, "", null, line, calculateCol()));
+                pendingDedents++;
                 indentStack.pop();
             }
             if (indentStack.peek() != currentIndent) {
-                tokenBuffer.add(errorToken("Erro de Indentação: Nível inconsistente."));
+                pendingIndentError = true;
             }
         }
     }
 
     // --- Helpers de Leitura ---
 
-    private Token string(char quoteType) {
-        while (peek() != quoteType && !isAtEnd()) {
-            if (peek() == '\n') line++;
-            advance();
+    private TokenType string(char quoteType) {
+        int end = input.indexOf(quoteType, current);
+        // Linha e coluna são as da aspa de abertura
+        setToken(line);
+        int lineStart = start;
+        if (trackPositions && input.count('\n', current, end) > 0) {
+            for (int nl = input.indexOf('\n', current); nl < end; nl = input.indexOf('\n', nl + 1)) {
+                line++;
+                columnStart = lineStart = nl + 1;
+            }
         }
+        current = end;
 
-        if (isAtEnd()) return errorToken("String não terminada.");
+        if (isAtEnd()) {
+            tokenEnd = current;
+            tokenMessage = "String não terminada.";
+            return TokenType.ERROR;
+        }
 
         advance(); // Consome a aspa de fechamento
-        String value = source.substring(start + 1, current - 1);
-        return new Token(TokenType.STRING_LITERAL, source.substring(start, current), value, line, calculateCol());
+        tokenEnd = current;
+        adjustColumn(lineStart, current);
+        return TokenType.STRING_LITERAL;
     }
 
-    private Token number() {
+    private TokenType number() {
         while (isDigit(peek())) advance();
 
         // Verifica ponto flutuante
         if (peek() == '.' && isDigit(peekNext())) {
             advance(); // Consome o '.'
             while (isDigit(peek())) advance();
-            String lexeme = source.substring(start, current);
-            return new Token(TokenType.FLOAT_LITERAL, lexeme, Double.parseDouble(lexeme), line, calculateCol());
+            return makeToken(TokenType.FLOAT_LITERAL);
         }
 
-        String lexeme = source.substring(start, current);
-        return new Token(TokenType.INTEGER_LITERAL, lexeme, Integer.parseInt(lexeme), line, calculateCol());
+        return makeToken(TokenType.INTEGER_LITERAL);
     }
 
-    private Token identifier() {
+    private TokenType identifier() {
         while (isAlphaNumeric(peek())) advance();
+        return makeToken(keywordOrIdentifier(start, current - start));
+    }
+
+    // Procura a palavra-chave direto no trecho da fonte, sem criar String
+    private TokenType keywordOrIdentifier(int from, int length) {
+        if (length < minKeywordLength || length > maxKeywordLength) return TokenType.IDENTIFIER;
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.getOrDefault(text, TokenType.IDENTIFIER);
-        return new Token(type, text, null, line, calculateCol());
+        int slot = keywordSlot(input.charAt(from), input.charAt(from + length - 1), length);
+        String keyword = KEYWORD_TEXT[slot];
+        if (keyword == null || keyword.length() != length) return TokenType.IDENTIFIER;
+
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(from + i) != keyword.charAt(i)) return TokenType.IDENTIFIER;
+        }
+        return KEYWORD_TYPE[slot];
     }
 
     // --- Utilitários Básicos ---
     private boolean match(char expected) {
         if (isAtEnd()) return false;
-        if (source.charAt(current) != expected) return false;
+        if (input.charAt(current) != expected) return false;
         current++;
         return true;
     }
 
     private char advance() {
-        return source.charAt(current++);
+        return input.charAt(current++);
     }
 
     private char peek() {
         if (isAtEnd()) return '\0';
-        return source.charAt(current);
+        return input.charAt(current);
     }
 
     private char peekNext() {
-        if (current + 1 >= length) return '\0';
-        return source.charAt(current + 1);
+        if (!input.has(current + 1)) return '\0';
+        return input.charAt(current + 1);
     }
 
     private boolean isAtEnd() {
-        return current >= length;
+        return !input.has(current);
     }
 
     private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
+        return classOf(c) == DIGIT;
     }
 
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    private boolean isAlphaNumeric(char c) {
+        byte cls = classOf(c);
+        return cls == ALPHA || cls == DIGIT;
     }
 
-    private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
+    private TokenType makeToken(TokenType type) {
+        setToken(line);
+        return type;
     }
 
-    private Token makeToken(TokenType type) {
-        return new Token(type, source.substring(start, current), null, line, calculateCol());
+    private TokenType errorToken(String message) {
+        setToken(line);
+        tokenMessage = message;
+        return TokenType.ERROR;
     }
 
-    private Token errorToken(String message) {
-        return new Token(TokenType.ERROR, message, null, line, calculateCol());
+    private void setToken(int tokenLine) {
+        this.tokenStart = start;
+        this.tokenEnd = current;
+        if (trackPositions) {
+            this.tokenLine = tokenLine;
+            this.tokenColumn = calculateCol();
+        }
     }
     
     private int calculateCol() {
         return start - columnStart + 1;
     }
+
+    // Compensa posições que ocupam mais de um caractere na fonte (bytes UTF-8),
+    // para que as colunas seguintes sejam contadas em caracteres
+    private void adjustColumn(int from, int to) {
+        if (!trackPositions) return;
+        columnStart += (to - from) - input.charCount(from, to);
+    }
 }
@@ -1,28 +1,115 @@
 package br.ifs.compiladores;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class MiniPythonParser {
-    private final List<Token> tokens;
+    private final TokenSource tokens;
     private int current = 0;
+    private boolean explicitStack = false;
+
+    // Tabela da AST anterior na reanálise incremental (null se a anterior
+    // ainda não foi resolvida); fora dela o parser não resolve nomes
+    private SymbolTable symbols;
 
     public MiniPythonParser(List<Token> tokens) {
+        this(TokenSource.of(tokens));
+    }
+
+    /**
+     * Consome um TokenStream diretamente: os tipos são lidos dos arrays e
+     * objetos Token só são criados para os nós da AST e mensagens de erro.
+     */
+    public MiniPythonParser(TokenStream tokens) {
+        this((TokenSource) tokens);
+    }
+
+    /**
+     * Lê os tokens direto do lexer, conforme o parser avança, sem montar a
+     * lista inteira antes da análise.
+     */
+    public MiniPythonParser(MiniPythonLexer lexer) {
+        this(lexer, false);
+    }
+
+    /**
+     * Como MiniPythonParser(MiniPythonLexer); com concurrentLexer = true o
+     * lexer roda numa thread separada, em paralelo com a análise sintática.
+     */
+    public MiniPythonParser(MiniPythonLexer lexer, boolean concurrentLexer) {
+        this(concurrentLexer ? new ConcurrentLexerTokenSource(lexer) : new LexerTokenSource(lexer));
+    }
+
+    MiniPythonParser(TokenSource tokens) {
         this.tokens = tokens;
     }
 
+    /**
+     * Com explicitStack = true, blocos e expressões aninhados são lidos com
+     * pilhas no heap em vez de chamadas recursivas: a profundidade máxima
+     * passa a depender só da memória, não do tamanho da pilha da thread.
+     */
+    public void setExplicitStack(boolean explicitStack) {
+        this.explicitStack = explicitStack;
+    }
+
     // --- API Pública ---
     public List<Stmt> parse() {
-        List<Stmt> statements = new ArrayList<>();
-        while (!isAtEnd()) {
-            // Ignora NEWLINES extras no nível global
-            if (check(TokenType.NEWLINE)) {
-                advance();
-                continue;
+        StmtList statements = new StmtList();
+        parse(statements::add);
+        return statements;
+    }
+
+    /**
+     * Como parse(), mas guarda o resultado numa AstArena: cada comando de
+     * nível superior é convertido assim que termina de ser lido, então os
+     * objetos Stmt/Expr vivem pouco e só a forma compacta fica retida.
+     */
+    public AstArena parseToArena() {
+        AstArena arena = new AstArena(new SymbolTable());
+        parse(arena::addRoot);
+        return arena;
+    }
+
+    /**
+     * Como parse(), mas sem parar no primeiro erro sintático: cada erro é
+     * registrado, o comando em que ocorreu é descartado e a análise continua
+     * no próximo NEWLINE/DEDENT. O resultado traz os comandos válidos e todos
+     * os erros, com as mesmas mensagens que parse() lançaria.
+     */
+    public ParseResult parseWithRecovery() {
+        errors = new ArrayList<>();
+        List<Stmt> statements = parse();
+        return new ParseResult(statements, errors);
+    }
+
+    // Entrega cada comando de nível superior a sink, na ordem do código
+    private void parse(Consumer<Stmt> sink) {
+        try {
+            if (explicitStack) {
+                parseWithStack(sink);
+                return;
+            }
+            int begin = current;
+            while (!isAtEnd()) {
+                // Ignora NEWLINES extras no nível global
+                if (check(TokenType.NEWLINE)) {
+                    advance();
+                    continue;
+                }
+                Stmt stmt = statementOrSkip();
+                if (stmt != null) {
+                    stmt.width = current - begin;
+                    sink.accept(stmt);
+                }
+                begin = current;
             }
-            statements.add(statement());
+        } finally {
+            tokens.close();
         }
-        return statements;
     }
 
     // --- Regras de Gramática ---
@@ -72,94 +159,131 @@ public class MiniPythonParser {
     }
 
     private Stmt block() {
+        int start = current;
         consume(TokenType.INDENT, "Esperado indentação para iniciar bloco.");
-        List<Stmt> statements = new ArrayList<>();
+        List<Stmt> statements = new StmtList();
         
+        int begin = current;
         while (!check(TokenType.DEDENT) && !isAtEnd()) {
             if (match(TokenType.NEWLINE)) continue; // Pula linhas vazias
-            statements.add(statement());
+            Stmt stmt = statementOrSkip();
+            if (stmt != null) {
+                stmt.width = current - begin;
+                statements.add(stmt);
+            }
+            begin = current;
         }
         
         consume(TokenType.DEDENT, "Esperado fim de indentação (DEDENT).");
-        return new BlockStmt(statements);
+        Stmt block = new BlockStmt(statements);
+        block.width = current - start;
+        return block;
     }
 
     private Stmt assignment() {
-        Token name = advance(); // Já checamos que é IDENTIFIER
+        advance(); // Já checamos que é IDENTIFIER
+        Token name = previous();
         consume(TokenType.ASSIGN, "Esperado '=' para atribuição.");
         Expr value = expression();
         consume(TokenType.NEWLINE, "Esperado nova linha após atribuição.");
         return new AssignStmt(name, value);
     }
 
-    // --- Expressões (Precedência) ---
+    // --- Recuperação de erros ---
 
-    private Expr expression() {
-        return logicOr();
-    }
+    // Com a recuperação ativa, error() registra a mensagem aqui e devolve
+    // RECOVERY, lançada só para voltar ao laço de comandos mais próximo
+    private List<String> errors;
 
-    private Expr logicOr() {
-        Expr expr = logicAnd();
-        while (match(TokenType.OR)) {
-            Token operator = previous();
-            Expr right = logicAnd();
-            expr = new BinaryExpr(expr, operator, right);
+    private static final SyntaxRecovery RECOVERY = new SyntaxRecovery();
+
+    // Sem mensagem nem pilha: uma única instância serve para todos os erros
+    private static final class SyntaxRecovery extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SyntaxRecovery() {
+            super(null, null, false, false);
         }
-        return expr;
     }
 
-    private Expr logicAnd() {
-        Expr expr = equality();
-        while (match(TokenType.AND)) {
-            Token operator = previous();
-            Expr right = equality();
-            expr = new BinaryExpr(expr, operator, right);
+    // statement(); com a recuperação ativa, um comando com erro é descartado
+    // (devolve null) e a análise segue do próximo comando
+    private Stmt statementOrSkip() {
+        int start = current;
+        try {
+            return statement();
+        } catch (SyntaxRecovery e) {
+            if (synchronize()) {
+                skipBlock();
+            } else if (current == start) {
+                advance(); // DEDENT solto no nível global
+            }
+            return null;
         }
-        return expr;
     }
 
-    private Expr equality() {
-        Expr expr = comparison();
-        while (match(TokenType.NEQ, TokenType.EQ)) {
-            Token operator = previous();
-            Expr right = comparison();
-            expr = new BinaryExpr(expr, operator, right);
+    // Pula o resto do comando com erro, até depois do NEWLINE ou até um DEDENT.
+    // Devolve true se em seguida vem um bloco (INDENT) do comando descartado.
+    private boolean synchronize() {
+        while (!isAtEnd()) {
+            TokenType type = tokens.type(current);
+            if (type == TokenType.DEDENT) return false;
+            if (type == TokenType.INDENT) return true;
+            advance();
+            if (type == TokenType.NEWLINE) return check(TokenType.INDENT);
         }
-        return expr;
+        return false;
     }
 
-    private Expr comparison() {
-        Expr expr = term();
-        while (match(TokenType.GT, TokenType.GTE, TokenType.LT, TokenType.LTE)) {
-            Token operator = previous();
-            Expr right = term();
-            expr = new BinaryExpr(expr, operator, right);
+    // Lê e descarta o bloco de um comando com erro, reportando os erros de dentro dele
+    private void skipBlock() {
+        try {
+            block();
+        } catch (SyntaxRecovery e) {
+            // Só acontece sem DEDENT antes do EOF; o erro já foi registrado
         }
-        return expr;
     }
 
-    private Expr term() {
-        Expr expr = factor();
-        while (match(TokenType.MINUS, TokenType.PLUS)) {
-            Token operator = previous();
-            Expr right = factor();
-            expr = new BinaryExpr(expr, operator, right);
-        }
-        return expr;
+    // --- Expressões (Pratt / precedence climbing) ---
+
+    // Força de ligação de cada operador binário (0 = não é operador binário).
+    // Todos associam à esquerda: o lado direito é lido com a força do próprio operador.
+    private static final byte[] BINDING_POWER = new byte[TokenType.values().length];
+
+    static {
+        bind(1, TokenType.OR);
+        bind(2, TokenType.AND);
+        bind(3, TokenType.NEQ, TokenType.EQ);
+        bind(4, TokenType.GT, TokenType.GTE, TokenType.LT, TokenType.LTE);
+        bind(5, TokenType.MINUS, TokenType.PLUS);
+        bind(6, TokenType.DIV, TokenType.MUL);
+    }
+
+    private static void bind(int power, TokenType... types) {
+        for (TokenType type : types) BINDING_POWER[type.ordinal()] = (byte) power;
+    }
+
+    private Expr expression() {
+        return explicitStack ? expressionWithStack() : expression(0);
     }
 
-    private Expr factor() {
+    // Lê um operando e, em seguida, todos os operadores que ligam mais forte que minPower
+    private Expr expression(int minPower) {
         Expr expr = unary();
-        while (match(TokenType.DIV, TokenType.MUL)) {
+        while (true) {
+            int power = BINDING_POWER[tokens.type(current).ordinal()];
+            if (power <= minPower) return expr;
+            advance();
             Token operator = previous();
-            Expr right = unary();
+            Expr right = expression(power);
             expr = new BinaryExpr(expr, operator, right);
         }
-        return expr;
     }
 
     private Expr unary() {
-        if (match(TokenType.NOT, TokenType.MINUS)) {
+        TokenType type = tokens.type(current);
+        if (type == TokenType.NOT || type == TokenType.MINUS) {
+            advance();
             Token operator = previous();
             Expr right = unary();
             return new UnaryExpr(operator, right);
@@ -168,62 +292,429 @@ public class MiniPythonParser {
     }
 
     private Expr primary() {
-        if (match(TokenType.INTEGER_LITERAL)) return new LiteralExpr(previous().literal);
-        if (match(TokenType.FLOAT_LITERAL)) return new LiteralExpr(previous().literal);
-        if (match(TokenType.STRING_LITERAL)) return new LiteralExpr(previous().literal);
-        
-        if (match(TokenType.IDENTIFIER)) return new VariableExpr(previous());
+        switch (tokens.type(current)) {
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+            case STRING_LITERAL:
+                advance();
+                return new LiteralExpr(previous().literal);
+
+            case IDENTIFIER: {
+                advance();
+                return new VariableExpr(previous());
+            }
+
+            case LPAREN: {
+                advance();
+                Expr expr = expression();
+                consume(TokenType.RPAREN, "Esperado ')' após expressão.");
+                return expr;
+            }
+
+            // Chamadas de funções built-in (input, int, float)
+            case INPUT:
+            case INT:
+            case FLOAT: {
+                advance();
+                Token func = previous();
+                consume(TokenType.LPAREN, "Esperado '(' após " + func.lexeme);
+                List<Expr> args = new ArrayList<>();
+                if (!check(TokenType.RPAREN)) {
+                    args.add(expression());
+                }
+                consume(TokenType.RPAREN, "Esperado ')' após argumentos.");
+                return new CallExpr(func, args);
+            }
+
+            default:
+                throw error(peek(), "Expressão esperada.");
+        }
+    }
 
-        if (match(TokenType.LPAREN)) {
-            Expr expr = expression();
-            consume(TokenType.RPAREN, "Esperado ')' após expressão.");
-            return expr;
+    // --- Reanálise incremental ---
+
+    // Tokens [editStart, editOldEnd) da sequência antiga foram substituídos;
+    // depois deles, os índices novos ficam editShift posições adiante
+    private int editStart;
+    private int editOldEnd;
+    private int editShift;
+
+    /**
+     * Analisa a sequência atual reaproveitando os comandos de previous (AST da
+     * sequência antiga) cujos tokens não foram atingidos pela edição.
+     */
+    List<Stmt> reparse(List<Stmt> previous, TokenEdit edit) {
+        editStart = edit.start;
+        editOldEnd = edit.oldEnd;
+        editShift = edit.newEnd - edit.oldEnd;
+        current = 0;
+        // Se a AST anterior já foi resolvida, os nós reaproveitados mantêm
+        // seus slots e só os nós novos são resolvidos, na mesma tabela; senão
+        // a resolução fica para o primeiro SymbolTable.of do resultado
+        symbols = previous instanceof StmtList ? ((StmtList) previous).symbols : null;
+        try {
+            int oldEof = edit.tokens.size() - 1 - editShift;
+            StmtList statements = statements(StmtList.of(previous), 0, oldEof, false);
+            statements.symbols = symbols;
+            return statements;
+        } finally {
+            tokens.close();
         }
+    }
+
+    // Resolve um trecho relido na tabela da AST anterior, se houver
+    private void resolve(Stmt stmt) {
+        if (symbols != null) symbols.resolve(stmt);
+    }
+
+    private void resolve(Expr expr) {
+        if (symbols != null) symbols.resolve(expr);
+    }
+
+    // Índice na sequência nova de um token antigo (-1 se foi substituído)
+    private int map(int old) {
+        if (old < editStart) return old;
+        return old >= editOldEnd ? old + editShift : -1;
+    }
 
-        // Chamadas de funções built-in (input, int, float)
-        if (match(TokenType.INPUT, TokenType.INT, TokenType.FLOAT)) {
-            Token func = previous();
-            consume(TokenType.LPAREN, "Esperado '(' após " + func.lexeme);
-            List<Expr> args = new ArrayList<>();
-            if (!check(TokenType.RPAREN)) {
-                args.add(expression());
+    // Lê uma lista de comandos (nível superior ou corpo de bloco) a partir de
+    // current. old é a lista correspondente na AST antiga, começando no token
+    // antigo q e terminando no DEDENT/EOF listEnd.
+    private StmtList statements(StmtList old, int q, int listEnd, boolean inBlock) {
+        StmtList result = new StmtList(old.size() + 4);
+        int i = 0;
+        int n = old.size();
+
+        // Comandos inteiramente antes da edição: iguais aos antigos
+        if (map(q) == current) {
+            while (i < n && q + old.extent(i) <= editStart) q += old.width(i++);
+            if (i > 0) {
+                result.addRange(old, 0, i);
+                current = q; // Antes da edição os índices não mudam
             }
-            consume(TokenType.RPAREN, "Esperado ')' após argumentos.");
-            return new CallExpr(func, args);
         }
 
-        throw error(peek(), "Expressão esperada.");
+        int begin = current;
+        while (true) {
+            // Descarta comandos antigos que ficaram para trás ou foram atingidos pela edição
+            while (i < n && map(q) < begin) q += old.width(i++);
+            Stmt previous = i < n && map(q) == begin ? old.get(i) : null;
+
+            if (previous != null && q >= editOldEnd) {
+                // Daqui até o fim da lista nada mudou
+                result.addRange(old, i, n);
+                current = map(listEnd);
+                return result;
+            }
+
+            while (match(TokenType.NEWLINE)) { } // Linhas vazias
+            if (isAtEnd() || (inBlock && check(TokenType.DEDENT))) return result;
+
+            // Um if/while atingido pela edição é relido, mas seus blocos ainda
+            // podem reaproveitar os comandos que não mudaram
+            Stmt stmt;
+            if (previous instanceof WhileStmt && check(TokenType.WHILE)) {
+                stmt = reparseWhile((WhileStmt) previous, q);
+            } else if (previous instanceof IfStmt && check(TokenType.IF)) {
+                stmt = reparseIf((IfStmt) previous, q);
+            } else {
+                stmt = statement();
+                resolve(stmt);
+            }
+            stmt.width = current - begin;
+            result.add(stmt);
+            begin = current;
+        }
     }
 
-    // --- Helpers ---
+    private Stmt reparseWhile(WhileStmt old, int q) {
+        advance();
+        Expr condition = expression();
+        resolve(condition);
+        consume(TokenType.COLON, "Esperado ':' após a condição.");
+        consume(TokenType.NEWLINE, "Esperado nova linha antes do bloco.");
+        Stmt body = block((BlockStmt) old.body, q + old.width - old.body.width);
+        return new WhileStmt(condition, body);
+    }
 
-    private boolean match(TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                advance();
-                return true;
+    private Stmt reparseIf(IfStmt old, int q) {
+        advance();
+        Expr condition = expression();
+        resolve(condition);
+        consume(TokenType.COLON, "Esperado ':' após a condição.");
+        consume(TokenType.NEWLINE, "Esperado nova linha antes do bloco.");
+
+        // Posições antigas dos blocos, contadas a partir do fim do comando
+        int elseWidth = old.elseBranch == null ? 0 : 3 + old.elseBranch.width; // else : NEWLINE bloco
+        Stmt thenBranch = block((BlockStmt) old.thenBranch, q + old.width - elseWidth - old.thenBranch.width);
+        Stmt elseBranch = null;
+
+        if (match(TokenType.ELSE)) {
+            consume(TokenType.COLON, "Esperado ':' após else.");
+            consume(TokenType.NEWLINE, "Esperado nova linha antes do bloco else.");
+            if (old.elseBranch == null) {
+                elseBranch = block();
+                resolve(elseBranch);
+            } else {
+                elseBranch = block((BlockStmt) old.elseBranch, q + old.width - old.elseBranch.width);
+            }
+        }
+
+        return new IfStmt(condition, thenBranch, elseBranch);
+    }
+
+    // Como block(), reaproveitando os comandos de old (que começava no token antigo q)
+    private Stmt block(BlockStmt old, int q) {
+        int start = current;
+        consume(TokenType.INDENT, "Esperado indentação para iniciar bloco.");
+        List<Stmt> statements = statements(StmtList.of(old.statements), q + 1, q + old.width - 1, true);
+        consume(TokenType.DEDENT, "Esperado fim de indentação (DEDENT).");
+
+        if (current - start == old.width && sameElements(statements, old.statements)) return old;
+        Stmt block = new BlockStmt(statements);
+        block.width = current - start;
+        return block;
+    }
+
+    private static boolean sameElements(List<Stmt> a, List<Stmt> b) {
+        if (a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) return false;
+        }
+        return true;
+    }
+
+    // --- Modo com pilha explícita ---
+
+    // Bloco aberto de um if/while: os comandos lidos até agora e, no if,
+    // o ramo then já fechado enquanto o else é lido
+    private static final class OpenBlock {
+        final boolean loop;
+        final Expr condition;
+        final int begin;  // Início do comando, com as linhas em branco anteriores
+        int blockStart;   // INDENT do bloco sendo lido
+        Stmt thenBranch;
+        List<Stmt> statements = new StmtList();
+        boolean orphan;   // Bloco de um comando com erro: lido só para reportar erros
+
+        OpenBlock(boolean loop, Expr condition, int begin, int blockStart) {
+            this.loop = loop;
+            this.condition = condition;
+            this.begin = begin;
+            this.blockStart = blockStart;
+        }
+
+        static OpenBlock orphan() {
+            OpenBlock block = new OpenBlock(false, null, 0, 0);
+            block.orphan = true;
+            return block;
+        }
+    }
+
+    // Mesma gramática de statement()/block(), com os blocos abertos numa pilha
+    private void parseWithStack(Consumer<Stmt> sink) {
+        ArrayDeque<OpenBlock> blocks = new ArrayDeque<>();
+        int begin = current; // Início do próximo comando da lista mais interna
+        while (true) {
+            OpenBlock open = blocks.peek();
+            Stmt stmt;
+            int stmtBegin = begin;
+            int start = current;
+            boolean closing = false;
+            if (open == null && isAtEnd()) return;
+
+            try {
+                if (open != null && (check(TokenType.DEDENT) || isAtEnd())) {
+                    closing = true;
+                    consume(TokenType.DEDENT, "Esperado fim de indentação (DEDENT).");
+                    if (open.orphan) {
+                        blocks.pop();
+                        begin = current;
+                        continue;
+                    }
+                    Stmt block = new BlockStmt(open.statements);
+                    block.width = current - open.blockStart;
+                    stmtBegin = open.begin;
+                    if (open.loop) {
+                        stmt = new WhileStmt(open.condition, block);
+                    } else if (open.thenBranch != null) {
+                        stmt = new IfStmt(open.condition, open.thenBranch, block);
+                    } else if (match(TokenType.ELSE)) {
+                        consume(TokenType.COLON, "Esperado ':' após else.");
+                        consume(TokenType.NEWLINE, "Esperado nova linha antes do bloco else.");
+                        open.blockStart = current;
+                        consume(TokenType.INDENT, "Esperado indentação para iniciar bloco.");
+                        open.thenBranch = block;
+                        open.statements = new StmtList();
+                        begin = current;
+                        continue;
+                    } else {
+                        stmt = new IfStmt(open.condition, block, null);
+                    }
+                    blocks.pop();
+                } else if (match(TokenType.NEWLINE)) {
+                    continue; // Linhas vazias
+                } else if (check(TokenType.IF) || check(TokenType.WHILE)) {
+                    boolean loop = check(TokenType.WHILE);
+                    advance();
+                    Expr condition = expression();
+                    consume(TokenType.COLON, "Esperado ':' após a condição.");
+                    consume(TokenType.NEWLINE, "Esperado nova linha antes do bloco.");
+                    int blockStart = current;
+                    consume(TokenType.INDENT, "Esperado indentação para iniciar bloco.");
+                    blocks.push(new OpenBlock(loop, condition, begin, blockStart));
+                    begin = current;
+                    continue;
+                } else if (match(TokenType.PRINT)) {
+                    stmt = printStatement();
+                } else if (check(TokenType.IDENTIFIER)) {
+                    stmt = assignment();
+                } else {
+                    throw error(peek(), "Esperado um comando válido.");
+                }
+            } catch (SyntaxRecovery e) {
+                // Descarta o comando com erro (ao fechar um bloco, o if/while inteiro)
+                if (closing) blocks.pop();
+                if (synchronize()) {
+                    advance();
+                    blocks.push(OpenBlock.orphan());
+                } else if (current == start) {
+                    advance(); // DEDENT solto no nível global
+                }
+                begin = current;
+                continue;
+            }
+
+            stmt.width = current - stmtBegin;
+            OpenBlock parent = blocks.peek();
+            if (parent == null) sink.accept(stmt);
+            else parent.statements.add(stmt);
+            begin = current;
+        }
+    }
+
+    // Quadros da pilha de expressões
+    private static final byte GROUP = 0;  // '(' aguardando ')'
+    private static final byte CALL = 1;   // input/int/float( aguardando ')'
+    private static final byte UNARY = 2;  // operador prefixo aguardando o operando
+    private static final byte BINARY = 3; // operando esquerdo e operador aguardando o direito
+
+    private byte[] frameKinds = new byte[16];
+    private byte[] framePowers = new byte[16];
+    private Token[] frameTokens = new Token[16];
+    private Expr[] frameOperands = new Expr[16];
+    private int frameCount = 0;
+
+    // Mesmo resultado de expression(0): os prefixos e operadores pendentes
+    // ficam nos quadros e são reduzidos quando chega um operador mais fraco
+    private Expr expressionWithStack() {
+        frameCount = 0;
+        while (true) {
+            Expr operand = null;
+            while (operand == null) {
+                switch (tokens.type(current)) {
+                    case NOT:
+                    case MINUS:
+                        advance();
+                        push(UNARY, 0, previous(), null);
+                        break;
+
+                    case LPAREN:
+                        advance();
+                        push(GROUP, 0, null, null);
+                        break;
+
+                    case INPUT:
+                    case INT:
+                    case FLOAT: {
+                        advance();
+                        Token func = previous();
+                        consume(TokenType.LPAREN, "Esperado '(' após " + func.lexeme);
+                        if (match(TokenType.RPAREN)) {
+                            operand = new CallExpr(func, new ArrayList<>());
+                        } else {
+                            push(CALL, 0, func, null);
+                        }
+                        break;
+                    }
+
+                    default:
+                        operand = primary(); // Literal ou variável (ou erro)
+                }
             }
+
+            while (true) {
+                int power = BINDING_POWER[tokens.type(current).ordinal()];
+                int top = frameCount - 1;
+                if (top >= 0 && frameKinds[top] == UNARY) {
+                    operand = new UnaryExpr(frameTokens[top], operand);
+                } else if (top >= 0 && frameKinds[top] == BINARY && framePowers[top] >= power) {
+                    operand = new BinaryExpr(frameOperands[top], frameTokens[top], operand);
+                } else if (power > 0) {
+                    advance();
+                    push(BINARY, power, previous(), operand);
+                    break; // Lê o operando direito
+                } else if (top < 0) {
+                    return operand;
+                } else if (frameKinds[top] == GROUP) {
+                    consume(TokenType.RPAREN, "Esperado ')' após expressão.");
+                } else {
+                    consume(TokenType.RPAREN, "Esperado ')' após argumentos.");
+                    List<Expr> args = new ArrayList<>();
+                    args.add(operand);
+                    operand = new CallExpr(frameTokens[top], args);
+                }
+                frameTokens[top] = null;
+                frameOperands[top] = null;
+                frameCount = top;
+            }
+        }
+    }
+
+    private void push(byte kind, int power, Token token, Expr operand) {
+        if (frameCount == frameKinds.length) {
+            int capacity = frameCount * 2;
+            frameKinds = Arrays.copyOf(frameKinds, capacity);
+            framePowers = Arrays.copyOf(framePowers, capacity);
+            frameTokens = Arrays.copyOf(frameTokens, capacity);
+            frameOperands = Arrays.copyOf(frameOperands, capacity);
+        }
+        frameKinds[frameCount] = kind;
+        framePowers[frameCount] = (byte) power;
+        frameTokens[frameCount] = token;
+        frameOperands[frameCount] = operand;
+        frameCount++;
+    }
+
+    // --- Helpers ---
+
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
         }
         return false;
     }
 
     private boolean check(TokenType type) {
         if (isAtEnd()) return false;
-        return peek().type == type;
+        return tokens.type(current) == type;
     }
 
-    private Token advance() {
+    private void advance() {
         if (!isAtEnd()) current++;
-        return tokens.get(current - 1);
     }
 
-    private Token consume(TokenType type, String message) {
-        if (check(type)) return advance();
+    private void consume(TokenType type, String message) {
+        if (check(type)) {
+            advance();
+            return;
+        }
         throw error(peek(), message);
     }
 
     private boolean isAtEnd() {
-        return peek().type == TokenType.EOF;
+        return tokens.type(current) == TokenType.EOF;
     }
 
     private Token peek() {
@@ -235,6 +726,9 @@ public class MiniPythonParser {
     }
 
     private RuntimeException error(Token token, String message) {
-        return new RuntimeException("Erro Sintático na linha " + token.line + ": " + message);
+        String text = "Erro Sintático na linha " + token.line + ": " + message;
+        if (errors == null) return new RuntimeException(text);
+        errors.add(text);
+        return RECOVERY;
     }
 }
\ No newline at end of file
@@ -1,107 +1,424 @@
 package br.ifs.compiladores;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Verificação e inferência de tipos sensível ao fluxo.
+ *
+ * O estado da análise é o tipo de cada variável no ponto atual do programa.
+ * Os dois ramos de um if partem do mesmo estado e são unidos com Type.join no
+ * fim; um while é repetido até o tipo das variáveis no cabeçalho (entrada do
+ * laço unida ao fim do corpo) parar de mudar. Cada expressão recebe o tipo que
+ * tem naquele ponto (AstArena.type, copiado para Expr.type quando a análise
+ * parte de uma List&lt;Stmt&gt;), usado pelo MiniPythonTACGenerator para gerar
+ * instruções especializadas.
+ *
+ * A análise percorre só a AstArena: uma List&lt;Stmt&gt; é convertida antes.
+ *
+ * Se a variável está definida é acompanhado à parte, por uma análise "em
+ * todos os caminhos" (definite, unida por interseção): no cabeçalho de um
+ * laço vale o estado da entrada, porque a volta só acrescenta definições.
+ * Ler uma variável que nenhum caminho vindo de cima define é erro, inclusive
+ * quando ela só é definida mais adiante no corpo do laço; uma variável
+ * definida em apenas alguns caminhos (só num ramo do if, só dentro do laço)
+ * pode ser lida, mas a leitura fica sem tipo (null) e o TAC a trata como
+ * genérica. Erros de tipo são apontados só quando certos: uma operação com
+ * um operando UNKNOWN é aceita.
+ */
 public class MiniPythonSemantic {
-    
-    // Tabela de Símbolos Simples: Nome da Variável -> Tipo ("INT", "FLOAT", "STRING")
-    private Map<String, String> symbolTable = new HashMap<>();
 
+    // Tipo de cada variável no ponto atual, indexado pelo slot, nos caminhos
+    // em que ela está definida (null = nenhum caminho a define)
+    private Type[] vars = new Type[0];
+    // Se a variável está definida em todos os caminhos até o ponto atual
+    private boolean[] definite = new boolean[0];
+
+    // Trilha de atribuições: slot, tipo e definição anteriores de cada uma,
+    // para voltar ao estado do início de um ramo ou do corpo de um laço.
+    // trailNew/trailNewDefinite guardam o estado da variável no fim do trecho.
+    private int[] trailSlots = new int[64];
+    private Type[] trailOld = new Type[64];
+    private Type[] trailNew = new Type[64];
+    private boolean[] trailOldDefinite = new boolean[64];
+    private boolean[] trailNewDefinite = new boolean[64];
+    private int trailSize = 0;
+
+    // Marcas por slot, para visitar cada variável uma vez ao unir os ramos
+    private int[] seen = new int[0];
+    private int seenMark = 0;
+    private int[] position = new int[0];
+
+    // Tipos que chegam pela volta de cada laço aninhado no laço mais externo
+    // em análise. Toda passada visita os mesmos laços na mesma ordem, então o
+    // n-ésimo laço visitado é sempre o mesmo.
+    // Os objetos são reaproveitados de um laço externo para o próximo: só os
+    // live primeiros pertencem ao laço atual.
+    private final List<LoopHeader> headers = new ArrayList<>();
+    private int live;
+    private int nextHeader;
+    private int loopDepth = 0;
+    // Enquanto o laço mais externo não converge, os erros ficam pendentes
+    private boolean iterating = false;
+    private boolean changed;
+    private String pendingError;
+
+    // AST sendo analisada
+    private AstArena ast;
+
+    /** Analisa a AST de objetos; os tipos inferidos ficam em Expr.type. */
     public void analyze(List<Stmt> statements) {
-        for (Stmt stmt : statements) {
-            analyzeStmt(stmt);
-        }
-    }
-
-    private void analyzeStmt(Stmt stmt) {
-        if (stmt instanceof BlockStmt) {
-            for (Stmt s : ((BlockStmt) stmt).statements) analyzeStmt(s);
-        } 
-        else if (stmt instanceof PrintStmt) {
-            getExprType(((PrintStmt) stmt).expression);
-        } 
-        else if (stmt instanceof AssignStmt) {
-            AssignStmt s = (AssignStmt) stmt;
-            String type = getExprType(s.value);
-            // Salva ou atualiza o tipo da variável na tabela
-            symbolTable.put(s.name.lexeme, type);
-        } 
-        else if (stmt instanceof IfStmt) {
-            IfStmt s = (IfStmt) stmt;
-            getExprType(s.condition); // Verifica validade da expressão
-            analyzeStmt(s.thenBranch);
-            if (s.elseBranch != null) analyzeStmt(s.elseBranch);
-        }
-        else if (stmt instanceof WhileStmt) {
-            WhileStmt s = (WhileStmt) stmt;
-            getExprType(s.condition);
-            analyzeStmt(s.body);
-        }
-    }
-
-    private String getExprType(Expr expr) {
-        if (expr instanceof LiteralExpr) {
-            Object v = ((LiteralExpr) expr).value;
-            if (v instanceof Integer) return "INT";
-            if (v instanceof Double) return "FLOAT";
-            if (v instanceof String) return "STRING";
-            return "UNKNOWN";
-        }
-
-        if (expr instanceof VariableExpr) {
-            String name = ((VariableExpr) expr).name.lexeme;
-            if (!symbolTable.containsKey(name)) {
-                throw new RuntimeException("Erro Semântico: Variável '" + name + "' não definida.");
+        AstArena arena = AstArena.linked(statements);
+        try {
+            analyze(arena);
+        } finally {
+            arena.copyTypesToSources();
+        }
+    }
+
+    public void analyze(AstArena ast) {
+        this.ast = ast;
+        reset(ast.slotCount());
+        for (int i = 0; i < ast.rootCount(); i++) {
+            analyzeStmt(ast.root(i));
+            trailSize = 0; // No nível superior não há o que desfazer
+        }
+    }
+
+    private void reset(int slots) {
+        vars = new Type[slots];
+        definite = new boolean[slots];
+        seen = new int[slots];
+        seenMark = 0;
+        position = new int[slots];
+        trailSize = 0;
+        headers.clear();
+        loopDepth = 0;
+        iterating = false;
+        pendingError = null;
+    }
+
+    // --- Comandos e expressões ---
+
+    private void analyzeStmt(int stmt) {
+        switch (ast.kind(stmt)) {
+            case BLOCK:
+                for (int i = 0; i < ast.childCount(stmt); i++) analyzeStmt(ast.child(stmt, i));
+                break;
+
+            case PRINT:
+                getExprType(ast.value(stmt));
+                break;
+
+            case ASSIGN:
+                assign(ast.slot(stmt), getExprType(ast.value(stmt)), true);
+                break;
+
+            case IF: {
+                getExprType(ast.condition(stmt)); // Verifica validade da expressão
+                int mark = trailSize;
+                analyzeStmt(ast.thenBranch(stmt));
+                int thenEnd = endThen(mark);
+                if (ast.elseBranch(stmt) >= 0) analyzeStmt(ast.elseBranch(stmt));
+                merge(mark, thenEnd);
+                break;
             }
-            return symbolTable.get(name);
-        }
-
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr b = (BinaryExpr) expr;
-            String left = getExprType(b.left);
-            String right = getExprType(b.right);
-
-            // Regras Aritméticas
-            if (b.operator.type == TokenType.PLUS || b.operator.type == TokenType.MINUS ||
-                b.operator.type == TokenType.MUL || b.operator.type == TokenType.DIV) {
-                
-                if (left.equals("STRING") || right.equals("STRING")) {
-                    // Python permite String * Int, mas vamos bloquear para simplificar ou permitir soma de strings
-                    if (b.operator.type == TokenType.PLUS && left.equals("STRING") && right.equals("STRING")) {
-                        return "STRING"; // Concatenação
-                    }
-                    throw new RuntimeException("Erro Semântico: Operação aritmética inválida com STRING.");
-                }
-                
-                if (left.equals("FLOAT") || right.equals("FLOAT")) return "FLOAT";
-                return "INT";
+
+            case WHILE:
+                loop(() -> {
+                    getExprType(ast.condition(stmt));
+                    analyzeStmt(ast.body(stmt));
+                });
+                break;
+
+            default:
+                throw new IllegalStateException("Nó não é um comando: " + ast.kind(stmt));
+        }
+    }
+
+    // Tipo da expressão, também gravado na AstArena
+    private Type getExprType(int expr) {
+        Type type;
+        switch (ast.kind(expr)) {
+            case LITERAL:
+                type = getLiteralType(ast.constant(expr));
+                break;
+
+            case VARIABLE: {
+                // A leitura de uma variável que pode não estar definida fica
+                // sem tipo, mas o tipo dos caminhos em que está segue na análise
+                int slot = ast.slot(expr);
+                Type value = getVariableType(slot, ast.name(expr));
+                ast.setType(expr, definite[slot] ? value : null);
+                return value;
+            }
+
+            case BINARY: {
+                Type left = getExprType(ast.left(expr));
+                type = getBinaryType(ast.operator(expr), left, getExprType(ast.right(expr)));
+                break;
             }
 
-            // Regras Relacionais
-            if (b.operator.type == TokenType.GT || b.operator.type == TokenType.LT || 
-                b.operator.type == TokenType.EQ) {
-                if (!left.equals(right) && !(isNumber(left) && isNumber(right))) {
-                     throw new RuntimeException("Erro Semântico: Comparação incompatível entre " + left + " e " + right);
+            case UNARY:
+                type = getUnaryType(ast.operator(expr), getExprType(ast.operand(expr)));
+                break;
+
+            case CALL:
+                for (int i = 0; i < ast.childCount(expr); i++) getExprType(ast.child(expr, i));
+                type = getCallType(ast.callee(expr));
+                break;
+
+            default:
+                throw new IllegalStateException("Nó não é uma expressão: " + ast.kind(expr));
+        }
+        ast.setType(expr, type);
+        return type;
+    }
+
+    // --- Fluxo de controle ---
+
+    // Muda o tipo da variável; defines = false só alarga o tipo (cabeçalho
+    // de laço), sem mudar se ela está definida
+    private void assign(int slot, Type type, boolean defines) {
+        if (trailSize == trailSlots.length) {
+            int capacity = trailSize * 2;
+            trailSlots = Arrays.copyOf(trailSlots, capacity);
+            trailOld = Arrays.copyOf(trailOld, capacity);
+            trailNew = Arrays.copyOf(trailNew, capacity);
+            trailOldDefinite = Arrays.copyOf(trailOldDefinite, capacity);
+            trailNewDefinite = Arrays.copyOf(trailNewDefinite, capacity);
+        }
+        trailSlots[trailSize] = slot;
+        trailOld[trailSize] = vars[slot];
+        trailOldDefinite[trailSize] = definite[slot];
+        trailSize++;
+        vars[slot] = type;
+        if (defines) definite[slot] = true;
+    }
+
+    // Guarda em trailNew o estado atual das variáveis atribuídas em [from, to)
+    private void capture(int from, int to) {
+        for (int k = from; k < to; k++) {
+            trailNew[k] = vars[trailSlots[k]];
+            trailNewDefinite[k] = definite[trailSlots[k]];
+        }
+    }
+
+    // Volta ao estado de antes das atribuições [from, to), mantendo-as na trilha
+    private void undo(int from, int to) {
+        for (int k = to - 1; k >= from; k--) {
+            vars[trailSlots[k]] = trailOld[k];
+            definite[trailSlots[k]] = trailOldDefinite[k];
+        }
+    }
+
+    // Fim do then de um if iniciado em mark: o else parte do estado de antes do if
+    private int endThen(int mark) {
+        int end = trailSize;
+        capture(mark, end);
+        undo(mark, end);
+        return end;
+    }
+
+    // Fim do if: une o fim do then (em trailNew) com o estado atual (fim do
+    // else); a variável fica definida se estiver nos dois
+    private void merge(int mark, int thenEnd) {
+        int id = ++seenMark;
+        for (int k = mark; k < thenEnd; k++) {
+            int slot = trailSlots[k];
+            vars[slot] = Type.join(trailNew[k], vars[slot]);
+            definite[slot] &= trailNewDefinite[k];
+            seen[slot] = id;
+        }
+        // Atribuídas só no else: a primeira entrada guarda o estado de antes do if
+        for (int k = thenEnd; k < trailSize; k++) {
+            int slot = trailSlots[k];
+            if (seen[slot] != id) {
+                seen[slot] = id;
+                vars[slot] = Type.join(trailOld[k], vars[slot]);
+                definite[slot] &= trailOldDefinite[k];
+            }
+        }
+    }
+
+    // iteration analisa a condição e o corpo do while
+    private void loop(Runnable iteration) {
+        if (loopDepth > 0) {
+            // O laço externo repete tudo até convergir
+            step(header(nextHeader++), iteration);
+            return;
+        }
+
+        live = 0;
+        int mark = trailSize;
+        loopDepth++;
+        iterating = true;
+        while (true) {
+            changed = false;
+            pendingError = null;
+            nextHeader = 0;
+            step(header(nextHeader++), iteration);
+            if (!changed) break;
+            undo(mark, trailSize);
+            trailSize = mark;
+        }
+        iterating = false;
+        loopDepth--;
+
+        // A última passada já usou os tipos finais, então seus erros são reais
+        if (pendingError != null) throw new RuntimeException(pendingError);
+    }
+
+    // Uma passada pelo laço: o cabeçalho é a entrada unida aos tipos que já
+    // chegaram pela volta; ao fim, acrescenta os tipos do fim do corpo e
+    // marca changed se o cabeçalho precisar crescer. O estado de saída é o
+    // do cabeçalho (a condição é falsa lá). Se cada variável está definida
+    // vem só da entrada, nos dois: o laço pode não executar.
+    private void step(LoopHeader header, Runnable iteration) {
+        int mark = trailSize;
+        for (int i = 0; i < header.size; i++) {
+            int slot = header.slots[i];
+            assign(slot, Type.join(vars[slot], header.types[i]), false);
+        }
+        iteration.run();
+        int end = trailSize;
+        capture(mark, end);
+        undo(mark, end);
+
+        for (int i = 0; i < header.size; i++) position[header.slots[i]] = i + 1;
+        for (int k = mark; k < end; k++) {
+            int slot = trailSlots[k];
+            Type entry = vars[slot];
+            int p = position[slot];
+            if (p == 0) {
+                position[slot] = header.add(slot, trailNew[k]);
+                if (Type.join(entry, trailNew[k]) != entry) changed = true;
+            } else {
+                Type old = header.types[p - 1];
+                Type widened = Type.join(old, trailNew[k]);
+                if (widened != old) {
+                    header.types[p - 1] = widened;
+                    if (Type.join(entry, widened) != Type.join(entry, old)) changed = true;
                 }
-                return "BOOLEAN";
             }
         }
-        
-        if (expr instanceof CallExpr) {
-            CallExpr c = (CallExpr) expr;
-            TokenType type = c.callee.type;
-            
-            if (type == TokenType.INPUT) return "STRING"; // input() retorna string
-            if (type == TokenType.INT) return "INT";      // int() retorna int
-            if (type == TokenType.FLOAT) return "FLOAT";  // float() retorna float
+
+        // As atribuições do corpo saem da trilha; as do cabeçalho cobrem as mesmas variáveis
+        trailSize = mark;
+        for (int i = 0; i < header.size; i++) {
+            int slot = header.slots[i];
+            position[slot] = 0;
+            assign(slot, Type.join(vars[slot], header.types[i]), false);
+        }
+    }
+
+    private LoopHeader header(int index) {
+        if (index == live) {
+            if (index == headers.size()) headers.add(new LoopHeader());
+            else headers.get(index).size = 0;
+            live++;
+        }
+        return headers.get(index);
+    }
+
+    // Variáveis atribuídas num laço e o tipo com que voltam ao cabeçalho
+    private static final class LoopHeader {
+        int[] slots = new int[4];
+        Type[] types = new Type[4];
+        int size = 0;
+
+        // Devolve a posição + 1
+        int add(int slot, Type type) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            slots[size] = slot;
+            types[size] = type;
+            return ++size;
+        }
+    }
+
+    // Erro semântico. Enquanto um laço converge, os tipos ainda podem crescer:
+    // a mensagem fica pendente e a análise segue com fallback.
+    private Type error(String message, Type fallback) {
+        if (!iterating) throw new RuntimeException(message);
+        if (pendingError == null) pendingError = message;
+        return fallback;
+    }
+
+    // --- Regras de tipos ---
+
+    private Type getLiteralType(Object v) {
+        if (v instanceof Integer) return Type.INT;
+        if (v instanceof Double) return Type.FLOAT;
+        if (v instanceof String) return Type.STRING;
+        return Type.UNKNOWN;
+    }
+
+    // Tipo da variável nos caminhos em que está definida. Os tipos do
+    // cabeçalho de um laço só crescem, e na primeira passada ainda não há
+    // nenhum vindo da volta: null ali quer dizer que nenhum caminho vindo de
+    // cima define a variável, e o erro é certo (name só é usado na mensagem)
+    private Type getVariableType(int slot, String name) {
+        Type type = vars[slot];
+        if (type == null) throw new RuntimeException("Erro Semântico: Variável '" + name + "' não definida.");
+        return type;
+    }
+
+    private Type getCallType(TokenType callee) {
+        switch (callee) {
+            case INPUT: return Type.STRING; // input() retorna string
+            case INT: return Type.INT;      // int() retorna int
+            case FLOAT: return Type.FLOAT;  // float() retorna float
+            default: return Type.UNKNOWN;
         }
+    }
 
-        return "UNKNOWN";
+    private Type getUnaryType(TokenType operator, Type operand) {
+        if (operator == TokenType.NOT) return Type.BOOLEAN;
+        if (operand == Type.STRING) {
+            return error("Erro Semântico: Operação aritmética inválida com STRING.", Type.UNKNOWN);
+        }
+        if (operand == Type.BOOLEAN) return Type.INT; // -True é -1
+        return operand;
     }
-    
-    private boolean isNumber(String type) {
-        return type.equals("INT") || type.equals("FLOAT");
+
+    private Type getBinaryType(TokenType operator, Type left, Type right) {
+        // Regras Aritméticas
+        if (operator == TokenType.PLUS || operator == TokenType.MINUS ||
+            operator == TokenType.MUL || operator == TokenType.DIV) {
+
+            if (left == Type.STRING || right == Type.STRING) {
+                // Python permite String * Int, mas vamos bloquear para simplificar ou permitir soma de strings
+                if (operator == TokenType.PLUS && left == Type.STRING && right == Type.STRING) {
+                    return Type.STRING; // Concatenação
+                }
+                if (operator == TokenType.PLUS && (left == Type.UNKNOWN || right == Type.UNKNOWN)) {
+                    return Type.UNKNOWN; // Talvez concatenação
+                }
+                return error("Erro Semântico: Operação aritmética inválida com STRING.", Type.UNKNOWN);
+            }
+
+            if (left == Type.UNKNOWN || right == Type.UNKNOWN) return Type.UNKNOWN;
+            if (left == Type.FLOAT || right == Type.FLOAT) return Type.FLOAT;
+            return Type.INT;
+        }
+
+        // Regras Relacionais
+        if (operator == TokenType.GT || operator == TokenType.LT || operator == TokenType.EQ ||
+            operator == TokenType.GTE || operator == TokenType.LTE || operator == TokenType.NEQ) {
+            if (left != right && !(left.isNumber() && right.isNumber())
+                    && left != Type.UNKNOWN && right != Type.UNKNOWN) {
+                return error("Erro Semântico: Comparação incompatível entre " + left + " e " + right, Type.BOOLEAN);
+            }
+            return Type.BOOLEAN;
+        }
+
+        // and/or devolvem um dos operandos
+        if (operator == TokenType.AND || operator == TokenType.OR) return Type.join(left, right);
+
+        return Type.UNKNOWN;
     }
-}
\ No newline at end of file
+}
@@ -1,192 +1,282 @@
 package br.ifs.compiladores;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class MiniPythonTACGenerator {
     
-    // Lista linear de instruções [cite: 76]
-    private final List<TACInstruction> code = new ArrayList<>();
-    
-    // Contadores para temporários e labels
-    private int tempCount = 1;
-    private int labelCount = 1;
+    // Lista linear de instruções [cite: 76], no formato compacto
+    private TACProgram code;
+
+    // AST sendo traduzida; uma List<Stmt> é convertida antes (AstArena.of,
+    // que leva junto os tipos anotados pela análise semântica)
+    private AstArena ast;
 
     // --- API Pública ---
     public List<TACInstruction> generate(List<Stmt> statements) {
-        code.clear();
-        tempCount = 1;
-        labelCount = 1;
+        return generateCompact(statements).toInstructions();
+    }
+
+    public List<TACInstruction> generate(AstArena ast) {
+        return generateCompact(ast).toInstructions();
+    }
+
+    /** Como generate, mas sem criar um TACInstruction (e suas Strings) por instrução. */
+    public TACProgram generateCompact(List<Stmt> statements) {
+        return generateCompact(AstArena.of(statements));
+    }
+
+    public TACProgram generateCompact(AstArena ast) {
+        this.ast = ast;
+        code = new TACProgram(ast.symbols(), ast.rootCount() * 8);
         
-        for (Stmt stmt : statements) {
-            genStmt(stmt);
+        for (int i = 0; i < ast.rootCount(); i++) {
+            genStmt(ast.root(i));
         }
         return code;
     }
 
-    // --- Geração de Declarações (Statements) ---
+    // --- Declarações (Statements) ---
+
+    private void genStmt(int stmt) {
+        switch (ast.kind(stmt)) {
+            case BLOCK:
+                for (int i = 0; i < ast.childCount(stmt); i++) {
+                    genStmt(ast.child(stmt, i));
+                }
+                break;
+
+            case ASSIGN: {
+                int exprTemp = genExpr(ast.value(stmt));
+                // x = t1
+                emit(TACOpcode.COPY, code.variable(ast.slot(stmt)), exprTemp, Type.concrete(ast.type(ast.value(stmt))));
+                break;
+            }
 
-    private void genStmt(Stmt stmt) {
-        if (stmt instanceof BlockStmt) {
-            for (Stmt s : ((BlockStmt) stmt).statements) {
-                genStmt(s);
+            case PRINT: {
+                int exprTemp = genExpr(ast.value(stmt));
+                // print t1
+                emit(TACOpcode.PRINT, TACProgram.NONE, exprTemp, Type.concrete(ast.type(ast.value(stmt))));
+                break;
             }
-        } 
-        else if (stmt instanceof AssignStmt) {
-            AssignStmt s = (AssignStmt) stmt;
-            String exprTemp = genExpr(s.value);
-            // x = t1
-            emit(new TACInstruction(s.name.lexeme, exprTemp));
-        } 
-        else if (stmt instanceof PrintStmt) {
-            PrintStmt s = (PrintStmt) stmt;
-            String exprTemp = genExpr(s.expression);
-            // print t1
-            emit(new TACInstruction(null, exprTemp, "PRINT", null));
-        } 
-        else if (stmt instanceof IfStmt) {
-            genIfStmt((IfStmt) stmt);
-        } 
-        else if (stmt instanceof WhileStmt) {
-            genWhileStmt((WhileStmt) stmt);
+
+            case IF:
+                genIfStmt(stmt);
+                break;
+
+            case WHILE:
+                genWhileStmt(stmt);
+                break;
+
+            default:
+                throw new IllegalStateException("Nó não é um comando: " + ast.kind(stmt));
         }
     }
 
-    private void genIfStmt(IfStmt stmt) {
-        String labelElse = newLabel();
-        String labelEnd = newLabel();
+    private void genIfStmt(int stmt) {
+        int labelElse = code.newLabel();
+        int labelEnd = code.newLabel();
 
-        // 1. Avalia condição
-        String condTemp = genExpr(stmt.condition);
-        
-        // 2. Se falso, pula para o Else (ou fim)
-        emit(new TACInstruction(labelElse, condTemp, "IF_FALSE", null));
+        // 1. Avalia a condição; se falsa, pula para o Else (ou fim)
+        genJump(ast.condition(stmt), TACProgram.NONE, labelElse);
         
-        // 3. Bloco Then
-        genStmt(stmt.thenBranch);
-        emit(new TACInstruction(labelEnd, null, "GOTO", null)); // Pula o else ao terminar o then
-
-        // 4. Label Else
-        emit(new TACInstruction(labelElse));
-        if (stmt.elseBranch != null) {
-            genStmt(stmt.elseBranch);
+        // 2. Bloco Then
+        genStmt(ast.thenBranch(stmt));
+        emit(TACOpcode.GOTO, labelEnd, TACProgram.NONE, null); // Pula o else ao terminar o then
+
+        // 3. Label Else
+        emit(TACOpcode.LABEL, labelElse, TACProgram.NONE, null);
+        if (ast.elseBranch(stmt) >= 0) {
+            genStmt(ast.elseBranch(stmt));
         }
 
-        // 5. Label Fim
-        emit(new TACInstruction(labelEnd));
+        // 4. Label Fim
+        emit(TACOpcode.LABEL, labelEnd, TACProgram.NONE, null);
     }
 
-    private void genWhileStmt(WhileStmt stmt) {
-        String labelStart = newLabel();
-        String labelEnd = newLabel();
+    private void genWhileStmt(int stmt) {
+        int labelStart = code.newLabel();
+        int labelEnd = code.newLabel();
 
         // 1. Label de início (para o loop voltar)
-        emit(new TACInstruction(labelStart));
-
-        // 2. Avalia condição
-        String condTemp = genExpr(stmt.condition);
+        emit(TACOpcode.LABEL, labelStart, TACProgram.NONE, null);
 
-        // 3. Se falso, sai do loop
-        emit(new TACInstruction(labelEnd, condTemp, "IF_FALSE", null));
+        // 2. Avalia a condição; se falsa, sai do loop
+        genJump(ast.condition(stmt), TACProgram.NONE, labelEnd);
 
-        // 4. Corpo do Loop
-        genStmt(stmt.body);
+        // 3. Corpo do Loop
+        genStmt(ast.body(stmt));
 
-        // 5. Volta para o início
-        emit(new TACInstruction(labelStart, null, "GOTO", null));
+        // 4. Volta para o início
+        emit(TACOpcode.GOTO, labelStart, TACProgram.NONE, null);
 
-        // 6. Label de fim
-        emit(new TACInstruction(labelEnd));
+        // 5. Label de fim
+        emit(TACOpcode.LABEL, labelEnd, TACProgram.NONE, null);
     }
 
-    // --- Geração de Expressões ---
+    // --- Expressões ---
 
-    private String genExpr(Expr expr) {
-        if (expr instanceof LiteralExpr) {
-            // Retorna o valor direto como string (ex: "10", "5.5")
-            return String.valueOf(((LiteralExpr) expr).value);
-        }
+    private int genExpr(int expr) {
+        switch (ast.kind(expr)) {
+            case LITERAL:
+                // O valor vai para o pool de constantes (ex: 10, 5.5)
+                return code.literal(ast.constant(expr));
 
-        if (expr instanceof VariableExpr) {
-            // Retorna o nome da variável (ex: "x")
-            return ((VariableExpr) expr).name.lexeme;
-        }
+            case VARIABLE:
+                // A variável, pelo slot (ex: x)
+                return code.variable(ast.slot(expr));
 
-        if (expr instanceof BinaryExpr) {
-            BinaryExpr b = (BinaryExpr) expr;
-            String t1 = genExpr(b.left);
-            String t2 = genExpr(b.right);
-            String temp = newTemp();
-            
-            String op = getOperatorSymbol(b.operator.type);
-            
-            // t3 = t1 + t2 
-            emit(new TACInstruction(temp, t1, op, t2));
-            return temp;
-        }
+            case BINARY: {
+                TokenType operator = ast.operator(expr);
+                if (operator == TokenType.AND || operator == TokenType.OR) {
+                    // t = a; ifFalse t goto L (or: ifTrue); t = b; L:
+                    int result = code.newTemp();
+                    int end = code.newLabel();
+                    emit(TACOpcode.COPY, result, genExpr(ast.left(expr)), Type.concrete(ast.type(ast.left(expr))));
+                    emit(shortCircuit(operator), end, result, Type.concrete(ast.type(ast.left(expr))));
+                    emit(TACOpcode.COPY, result, genExpr(ast.right(expr)), Type.concrete(ast.type(ast.right(expr))));
+                    emit(TACOpcode.LABEL, end, TACProgram.NONE, null);
+                    return result;
+                }
+                int t1 = genExpr(ast.left(expr));
+                int t2 = genExpr(ast.right(expr));
+                return genOperation(ast.operator(expr), t1, t2,
+                    operationType(ast.operator(expr), ast.type(ast.left(expr)), ast.type(ast.right(expr)), ast.type(expr)));
+            }
 
-        if (expr instanceof UnaryExpr) {
-            UnaryExpr u = (UnaryExpr) expr;
-            String t1 = genExpr(u.right);
-            String temp = newTemp();
-            
-            String op = getOperatorSymbol(u.operator.type);
-            
-            // t2 = - t1
-            emit(new TACInstruction(temp, t1, op, null));
-            return temp;
-        }
+            case UNARY:
+                return genOperation(ast.operator(expr), genExpr(ast.operand(expr)), TACProgram.NONE,
+                    unaryType(ast.operator(expr), ast.type(ast.operand(expr)), ast.type(expr)));
 
-        if (expr instanceof CallExpr) {
-            CallExpr c = (CallExpr) expr;
-            String funcName = c.callee.lexeme; // input, int, float
-            
-            // Avalia argumentos (simplificação: assume-se poucos argumentos para built-ins)
-            // Python real empilharia args, aqui vamos simplificar para "call func, num_args"
-            for (Expr arg : c.arguments) {
-                String t = genExpr(arg);
-                emit(new TACInstruction(null, t, "PARAM", null)); // param t1
+            case CALL: {
+                // Avalia argumentos (simplificação: assume-se poucos argumentos para built-ins)
+                // Python real empilharia args, aqui vamos simplificar para "call func, num_args"
+                int arguments = ast.childCount(expr);
+                for (int i = 0; i < arguments; i++) {
+                    int t = genExpr(ast.child(expr, i));
+                    emit(TACOpcode.PARAM, TACProgram.NONE, t, Type.concrete(ast.type(ast.child(expr, i)))); // param t1
+                }
+                return genCall(ast.calleeName(expr), arguments, ast.type(expr)); // input, int, float
             }
-            
-            String temp = newTemp();
-            // t1 = call input, 0
-            emit(new TACInstruction(temp, funcName, "CALL", String.valueOf(c.arguments.size())));
-            return temp;
+
+            default:
+                throw new IllegalStateException("Nó não é uma expressão: " + ast.kind(expr));
         }
+    }
+
+    // --- Código de salto ---
 
-        throw new RuntimeException("Expressão não suportada para TAC.");
+    // Condição de if/while sem calcular o valor booleano: salta para onTrue
+    // se verdadeira ou para onFalse se falsa, e um dos dois é NONE (segue em
+    // frente). and/or só avaliam o lado direito quando o esquerdo não decide,
+    // como no Python, e not troca os destinos:
+    //   a and b, falso salta:      a falso salta; b falso salta
+    //   a and b, verdadeiro salta: a falso vai para L; b verdadeiro salta; L:
+    //   a or b, verdadeiro salta:  a verdadeiro salta; b verdadeiro salta
+    //   a or b, falso salta:       a verdadeiro vai para L; b falso salta; L:
+    private void genJump(int condition, int onTrue, int onFalse) {
+        if (ast.kind(condition) == AstArena.Kind.BINARY) {
+            TokenType operator = ast.operator(condition);
+            if (operator == TokenType.AND && onFalse != TACProgram.NONE) {
+                genJump(ast.left(condition), TACProgram.NONE, onFalse);
+                genJump(ast.right(condition), TACProgram.NONE, onFalse);
+                return;
+            }
+            if (operator == TokenType.OR && onTrue != TACProgram.NONE) {
+                genJump(ast.left(condition), onTrue, TACProgram.NONE);
+                genJump(ast.right(condition), onTrue, TACProgram.NONE);
+                return;
+            }
+            if (operator == TokenType.AND || operator == TokenType.OR) {
+                int skip = code.newLabel();
+                if (operator == TokenType.AND) genJump(ast.left(condition), TACProgram.NONE, skip);
+                else genJump(ast.left(condition), skip, TACProgram.NONE);
+                genJump(ast.right(condition), onTrue, onFalse);
+                emit(TACOpcode.LABEL, skip, TACProgram.NONE, null);
+                return;
+            }
+        }
+        if (ast.kind(condition) == AstArena.Kind.UNARY && ast.operator(condition) == TokenType.NOT) {
+            genJump(ast.operand(condition), onFalse, onTrue);
+            return;
+        }
+        emitBranch(genExpr(condition), onTrue, onFalse, Type.concrete(ast.type(condition)));
     }
 
     // --- Helpers ---
 
-    private void emit(TACInstruction instr) {
-        code.add(instr);
+    // ifFalse value goto onFalse, ou ifTrue value goto onTrue
+    private void emitBranch(int value, int onTrue, int onFalse, Type type) {
+        if (onFalse != TACProgram.NONE) emit(TACOpcode.IF_FALSE, onFalse, value, type);
+        else emit(TACOpcode.IF_TRUE, onTrue, value, type);
+    }
+
+    // and pula o lado direito se o esquerdo é falso; or, se é verdadeiro
+    private static TACOpcode shortCircuit(TokenType operator) {
+        return operator == TokenType.AND ? TACOpcode.IF_FALSE : TACOpcode.IF_TRUE;
+    }
+
+    // t3 = t1 + t2, ou t2 = - t1 (right == NONE)
+    private int genOperation(TokenType operator, int left, int right, Type type) {
+        int temp = code.newTemp();
+        code.add(opcode(operator, right == TACProgram.NONE), temp, left, right, type);
+        return temp;
+    }
+
+    // t1 = call input, 0 (nome e número de argumentos no pool de constantes)
+    private int genCall(String funcName, int arguments, Type result) {
+        int temp = code.newTemp();
+        code.add(TACOpcode.CALL, temp, code.literal(funcName), code.literal(arguments), Type.concrete(result));
+        return temp;
+    }
+
+    // Tipo da instrução binária a partir dos tipos anotados pela análise
+    // semântica (todos null se ela não foi feita; null num operando que lê
+    // uma variável talvez indefinida): nas comparações, o dos operandos, com
+    // INT e FLOAT misturados comparados como FLOAT; na aritmética, o do
+    // resultado, se os dois operandos têm tipo e nenhum é booleano; nas
+    // demais, o do resultado.
+    private static Type operationType(TokenType operator, Type left, Type right, Type result) {
+        switch (operator) {
+            case GT: case LT: case EQ: case GTE: case LTE: case NEQ:
+                if (left == right) return Type.concrete(left);
+                if (left != null && right != null && left.isNumber() && right.isNumber()) return Type.FLOAT;
+                return null;
+            case PLUS: case MINUS: case MUL: case DIV:
+                // Booleano entra na conta como int (True + 1 é 2), mas o
+                // operando continua booleano: a instrução fica genérica
+                if (left == null || right == null || left == Type.BOOLEAN || right == Type.BOOLEAN) return null;
+                return Type.concrete(result);
+            default:
+                return Type.concrete(result);
+        }
     }
 
-    private String newTemp() {
-        return "t" + (tempCount++);
+    // No not, BOOLEAN só se o operando já for; no menos unário, o do
+    // resultado se o operando tem tipo e não é booleano (-True é -1)
+    private static Type unaryType(TokenType operator, Type operand, Type result) {
+        if (operator == TokenType.NOT) return operand == Type.BOOLEAN ? Type.BOOLEAN : null;
+        if (operand == null || operand == Type.BOOLEAN) return null;
+        return Type.concrete(result);
     }
 
-    private String newLabel() {
-        return "L" + (labelCount++);
+    private void emit(TACOpcode opcode, int result, int arg1, Type type) {
+        code.add(opcode, result, arg1, TACProgram.NONE, type);
     }
 
-    private String getOperatorSymbol(TokenType type) {
+    private static TACOpcode opcode(TokenType type, boolean unary) {
         switch (type) {
-            case PLUS: return "+";
-            case MINUS: return "-";
-            case MUL: return "*";
-            case DIV: return "/";
-            case GT: return ">";
-            case LT: return "<";
-            case GTE: return ">=";
-            case LTE: return "<=";
-            case EQ: return "==";
-            case NEQ: return "!=";
-            case AND: return "&&";
-            case OR: return "||";
-            case NOT: return "!";
-            default: return "?";
+            case PLUS: return TACOpcode.ADD;
+            case MINUS: return unary ? TACOpcode.NEG : TACOpcode.SUB;
+            case MUL: return TACOpcode.MUL;
+            case DIV: return TACOpcode.DIV;
+            case GT: return TACOpcode.GT;
+            case LT: return TACOpcode.LT;
+            case GTE: return TACOpcode.GTE;
+            case LTE: return TACOpcode.LTE;
+            case EQ: return TACOpcode.EQ;
+            case NEQ: return TACOpcode.NEQ;
+            case NOT: return TACOpcode.NOT;
+            default: throw new IllegalStateException("Operador sem instrução TAC: " + type);
         }
     }
 }
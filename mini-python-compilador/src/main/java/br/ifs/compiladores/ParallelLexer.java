@@ -0,0 +1,350 @@
+package br.ifs.compiladores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Análise léxica em paralelo para fontes grandes.
+ *
+ * A fonte é dividida em trechos que começam no início de uma linha. Um '\n'
+ * só é ponto de corte seguro fora de strings, então cada bloco bruto é
+ * percorrido uma vez para cada estado de entrada possível (código, comentário
+ * ou string com aspas duplas/simples) e os resultados são compostos em ordem
+ * para achar os cortes. Cada trecho é analisado de forma independente, sem
+ * INDENT/DEDENT: o lexer só anota a largura de cada linha. Uma passada
+ * sequencial, que só visita essas anotações, reconstrói os INDENT/DEDENT com
+ * a pilha global, e os trechos são copiados em paralelo para o TokenStream
+ * final. O resultado é igual ao de TokenStream.of(source).
+ */
+public final class ParallelLexer {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    // Estados do pré-scan
+    private static final int CODE = 0;
+    private static final int COMMENT = 1;
+    private static final int DOUBLE_QUOTED = 2;
+    private static final int SINGLE_QUOTED = 3;
+    private static final int STATES = 4;
+
+    private ParallelLexer() { }
+
+    /** Analisa a fonte usando o pool comum e blocos de DEFAULT_CHUNK_SIZE caracteres. */
+    public static TokenStream tokenize(String source) {
+        return tokenize(source, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public static TokenStream tokenize(String source, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Tamanho de bloco inválido: " + chunkSize);
+        if (source.length() <= chunkSize) return TokenStream.of(source);
+
+        // 1. Pontos de corte
+        int chunks = (source.length() + chunkSize - 1) / chunkSize;
+        List<Callable<ChunkScan>> scans = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = i * chunkSize;
+            int to = Math.min(source.length(), from + chunkSize);
+            scans.add(() -> ChunkScan.of(source, from, to));
+        }
+        List<ChunkScan> scanned = invokeAll(pool, scans);
+
+        int[] cuts = new int[chunks + 2];
+        int segments = 0;
+        cuts[segments++] = 0;
+        int state = CODE;
+        for (ChunkScan chunk : scanned) {
+            int cut = chunk.firstCut[state];
+            if (cut > cuts[segments - 1] && cut < source.length()) cuts[segments++] = cut;
+            state = chunk.exit[state];
+        }
+        cuts[segments] = source.length();
+
+        // 2. Análise de cada trecho
+        List<Callable<Segment>> lexes = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            int from = cuts[i];
+            int to = cuts[i + 1];
+            lexes.add(() -> Segment.lex(source, from, to));
+        }
+        List<Segment> parts = invokeAll(pool, lexes);
+
+        // 3. Reconstrução da indentação (sequencial, só sobre as anotações)
+        TokenStream.IndentStack stack = new TokenStream.IndentStack(new int[] { 0 });
+        List<int[]> checkpointStacks = new ArrayList<>();
+        List<Integer> checkpointIndexes = new ArrayList<>();
+        int marks = 0;
+        int size = 0;
+        int lines = 0;
+        int messages = 0;
+        boolean indentErrors = false;
+        for (Segment part : parts) {
+            part.outBase = size;
+            part.lineBase = lines;
+            part.messageBase = messages;
+            int synthetic = 0;
+            for (int m = 0; m < part.markCount; m++) {
+                if (++marks == TokenStream.CHECKPOINT_INTERVAL) {
+                    checkpointIndexes.add(size + part.markToken[m] + synthetic);
+                    checkpointStacks.add(stack.toArray());
+                    marks = 0;
+                }
+                int width = part.markWidth[m];
+                if (width > stack.peek()) {
+                    stack.push(width);
+                    part.markIndent[m] = true;
+                    synthetic++;
+                } else if (width < stack.peek()) {
+                    int dedents = 0;
+                    while (stack.peek() > width) {
+                        stack.pop();
+                        dedents++;
+                    }
+                    part.markDedents[m] = dedents;
+                    synthetic += dedents;
+                    if (stack.peek() != width) {
+                        part.markError[m] = true;
+                        indentErrors = true;
+                        synthetic++;
+                    }
+                }
+            }
+            size += part.size + synthetic;
+            lines += part.lineCount;
+            messages += part.messages.size();
+        }
+        int finalDedents = stack.size() - 1;
+        size += finalDedents + 1;
+
+        List<String> allMessages = new ArrayList<>(messages + 1);
+        for (Segment part : parts) allMessages.addAll(part.messages);
+        int indentError = allMessages.size();
+        if (indentErrors) allMessages.add(MiniPythonLexer.INDENT_ERROR);
+
+        // 4. Cópia para os arrays finais
+        byte[] types = new byte[size];
+        int[] starts = new int[size];
+        int[] lengths = new int[size];
+        int[] lineArray = new int[size];
+        int[] columns = new int[size];
+        List<Callable<Void>> copies = new ArrayList<>(segments);
+        for (Segment part : parts) {
+            copies.add(() -> {
+                part.copyTo(types, starts, lengths, lineArray, columns, indentError);
+                return null;
+            });
+        }
+        invokeAll(pool, copies);
+
+        int p = size - finalDedents - 1;
+        for (int i = 0; i <= finalDedents; i++, p++) {
+            types[p] = (byte) (i < finalDedents ? TokenType.DEDENT : TokenType.EOF).ordinal();
+            starts[p] = source.length();
+            lineArray[p] = lines + 1;
+        }
+
+        TokenStream stream = new TokenStream(new StringCharSource(source), types, starts, lengths, lineArray, columns,
+                allMessages);
+        for (int i = 0; i < checkpointIndexes.size(); i++) {
+            stream.addCheckpoint(checkpointIndexes.get(i), checkpointStacks.get(i));
+        }
+        return stream;
+    }
+
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) results.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análise léxica interrompida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    // --- Pré-scan de um bloco bruto ---
+
+    // Para cada estado de entrada: estado de saída e primeiro corte seguro (-1 se não houver)
+    private static final class ChunkScan {
+        final int[] exit = new int[STATES];
+        final int[] firstCut = new int[STATES];
+
+        static ChunkScan of(String source, int from, int to) {
+            ChunkScan scan = new ChunkScan();
+            for (int entry = 0; entry < STATES; entry++) {
+                int state = entry;
+                int cut = -1;
+                for (int i = from; i < to; i++) {
+                    char c = source.charAt(i);
+                    switch (state) {
+                        case CODE:
+                            if (c == '#') state = COMMENT;
+                            else if (c == '"') state = DOUBLE_QUOTED;
+                            else if (c == '\'') state = SINGLE_QUOTED;
+                            else if (c == '\n' && cut < 0) cut = i + 1;
+                            break;
+                        case COMMENT:
+                            if (c == '\n') {
+                                state = CODE;
+                                if (cut < 0) cut = i + 1;
+                            }
+                            break;
+                        case DOUBLE_QUOTED:
+                            if (c == '"') state = CODE;
+                            break;
+                        default:
+                            if (c == '\'') state = CODE;
+                            break;
+                    }
+                }
+                scan.exit[entry] = state;
+                scan.firstCut[entry] = cut;
+            }
+            return scan;
+        }
+    }
+
+    // --- Trecho analisado sem indentação ---
+
+    private static final class Segment {
+        byte[] types;
+        int[] starts;
+        int[] lengths;
+        int[] lines;
+        int[] columns;
+        int size;
+        final List<String> messages = new ArrayList<>();
+        int lineCount;
+
+        // Anotações de indentação: antes do token markToken[i] começa uma linha de largura markWidth[i]
+        int[] markToken = new int[16];
+        int[] markWidth = new int[16];
+        int[] markLine = new int[16];
+        int[] markColumn = new int[16];
+        int[] markStart = new int[16];
+        int markCount;
+
+        // Preenchidos na reconstrução da indentação
+        boolean[] markIndent;
+        int[] markDedents;
+        boolean[] markError;
+        int outBase;
+        int lineBase;
+        int messageBase;
+
+        static Segment lex(String source, int from, int to) {
+            Segment part = new Segment(Math.max(16, (to - from) / 4));
+            MiniPythonLexer lexer = MiniPythonLexer.segment(new StringCharSource(source, to), from);
+            TokenType type;
+            while ((type = lexer.scan()) != TokenType.EOF) {
+                if (lexer.indentMarked) {
+                    lexer.indentMarked = false;
+                    part.mark(lexer.markedWidth, lexer.tokenLine, lexer.markedColumn, lexer.tokenStart);
+                }
+                part.add(type, lexer);
+            }
+            part.lineCount = lexer.line() - 1;
+            part.markIndent = new boolean[part.markCount];
+            part.markDedents = new int[part.markCount];
+            part.markError = new boolean[part.markCount];
+            return part;
+        }
+
+        Segment(int capacity) {
+            types = new byte[capacity];
+            starts = new int[capacity];
+            lengths = new int[capacity];
+            lines = new int[capacity];
+            columns = new int[capacity];
+        }
+
+        void add(TokenType type, MiniPythonLexer lexer) {
+            if (size == types.length) {
+                int capacity = size + (size >> 1);
+                types = Arrays.copyOf(types, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+            }
+            int length = lexer.tokenEnd - lexer.tokenStart;
+            if (type == TokenType.ERROR) {
+                length = messages.size();
+                messages.add(lexer.tokenMessage);
+            }
+            types[size] = (byte) type.ordinal();
+            starts[size] = lexer.tokenStart;
+            lengths[size] = length;
+            lines[size] = lexer.tokenLine;
+            columns[size] = lexer.tokenColumn;
+            size++;
+        }
+
+        void mark(int width, int line, int column, int start) {
+            if (markCount == markToken.length) {
+                int capacity = markCount * 2;
+                markToken = Arrays.copyOf(markToken, capacity);
+                markWidth = Arrays.copyOf(markWidth, capacity);
+                markLine = Arrays.copyOf(markLine, capacity);
+                markColumn = Arrays.copyOf(markColumn, capacity);
+                markStart = Arrays.copyOf(markStart, capacity);
+            }
+            markToken[markCount] = size;
+            markWidth[markCount] = width;
+            markLine[markCount] = line;
+            markColumn[markCount] = column;
+            markStart[markCount] = start;
+            markCount++;
+        }
+
+        // Copia os tokens para a posição final, intercalando os INDENT/DEDENT reconstruídos
+        void copyTo(byte[] outTypes, int[] outStarts, int[] outLengths, int[] outLines, int[] outColumns,
+                    int indentError) {
+            int out = outBase;
+            int from = 0;
+            for (int m = 0; m <= markCount; m++) {
+                int to = m < markCount ? markToken[m] : size;
+                int count = to - from;
+                System.arraycopy(types, from, outTypes, out, count);
+                System.arraycopy(starts, from, outStarts, out, count);
+                System.arraycopy(lengths, from, outLengths, out, count);
+                System.arraycopy(columns, from, outColumns, out, count);
+                for (int i = 0; i < count; i++) {
+                    outLines[out + i] = lines[from + i] + lineBase;
+                    if (types[from + i] == TokenType.ERROR.ordinal()) outLengths[out + i] += messageBase;
+                }
+                out += count;
+                from = to;
+                if (m == markCount) break;
+
+                int synthetic = (markIndent[m] ? 1 : 0) + markDedents[m] + (markError[m] ? 1 : 0);
+                for (int i = 0; i < synthetic; i++, out++) {
+                    TokenType type;
+                    int length = 0;
+                    if (markIndent[m]) {
+                        type = TokenType.INDENT;
+                        length = markWidth[m];
+                    } else if (i < markDedents[m]) {
+                        type = TokenType.DEDENT;
+                    } else {
+                        type = TokenType.ERROR;
+                        length = indentError;
+                    }
+                    outTypes[out] = (byte) type.ordinal();
+                    outStarts[out] = markStart[m];
+                    outLengths[out] = length;
+                    outLines[out] = markLine[m] + lineBase;
+                    outColumns[out] = markColumn[m];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+
+/**
+ * Resultado de MiniPythonParser.parseWithRecovery(): os comandos lidos sem
+ * erro (uma AST parcial, se houve erros) e as mensagens de todos os erros
+ * sintáticos, na ordem em que aparecem no código.
+ */
+public final class ParseResult {
+    public final List<Stmt> statements;
+    public final List<String> errors;
+
+    ParseResult(List<Stmt> statements, List<String> errors) {
+        this.statements = statements;
+        this.errors = errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,256 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Otimização peephole dos saltos e labels do TAC.
+ *
+ * Cada rodada passa uma janela pelas instruções, olhando o salto atual, a
+ * instrução seguinte e os labels logo depois; as rodadas se repetem enquanto
+ * algo muda (remover um salto pode deixar um label sem uso, que por sua vez
+ * junta dois grupos de labels). As regras (Rule) podem ser escolhidas no
+ * construtor:
+ *   THREAD_JUMPS          salto para "L: goto M" vai direto para M
+ *   REMOVE_JUMP_TO_NEXT   goto/ifFalse para um label logo depois some
+ *   MERGE_LABELS          labels seguidos viram o primeiro deles
+ *   INVERT_BRANCHES       "ifFalse c goto L1; goto L2; L1:" vira "ifTrue c goto L2; L1:"
+ *   REMOVE_UNUSED_LABELS  label sem salto para ele some (junta blocos)
+ *
+ * No if sem else, "goto L2; L1: L2:" vira só "L1:".
+ */
+public final class PeepholeOptimizer {
+    public enum Rule { THREAD_JUMPS, REMOVE_JUMP_TO_NEXT, MERGE_LABELS, INVERT_BRANCHES, REMOVE_UNUSED_LABELS }
+
+    private final Set<Rule> rules;
+
+    private TACProgram program;
+
+    // Programa corrente: instrução original, opcode e label (LABEL, GOTO e
+    // saltos condicionais; o resto copia os campos da original)
+    private int size;
+    private int[] from;
+    private TACOpcode[] ops;
+    private int[] labels;
+
+    // Saída da rodada (as consultas da janela leem o programa corrente inteiro)
+    private int[] nextFrom;
+    private TACOpcode[] nextOps;
+    private int[] nextLabels;
+
+    // Por label: posição do LABEL e do primeiro label do seu grupo, alvo final
+    // depois de seguir gotos (0 = ainda não calculado) e usos
+    private int[] labelAt;
+    private int[] groupStart;
+    private int[] resolved;
+    private int[] uses;
+
+    private int threadedJumps;
+    private int removedJumps;
+    private int invertedBranches;
+    private int removedLabels;
+
+    public PeepholeOptimizer() {
+        this(EnumSet.allOf(Rule.class));
+    }
+
+    public PeepholeOptimizer(Set<Rule> rules) {
+        this.rules = rules.isEmpty() ? EnumSet.noneOf(Rule.class) : EnumSet.copyOf(rules);
+    }
+
+    /** Programa equivalente com os saltos e labels simplificados. */
+    public TACProgram optimize(TACProgram program) {
+        this.program = program;
+        size = program.size();
+        from = new int[size];
+        ops = new TACOpcode[size];
+        labels = new int[size];
+        nextFrom = new int[size];
+        nextOps = new TACOpcode[size];
+        nextLabels = new int[size];
+        for (int i = 0; i < size; i++) {
+            from[i] = i;
+            ops[i] = program.opcode(i);
+            if (jumpsOrLabel(ops[i])) labels[i] = TACProgram.index(program.result(i));
+        }
+        int labelCount = program.labelCount() + 1;
+        labelAt = new int[labelCount];
+        groupStart = new int[labelCount];
+        resolved = new int[labelCount];
+        uses = new int[labelCount];
+        threadedJumps = 0;
+        removedJumps = 0;
+        invertedBranches = 0;
+        removedLabels = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = round();
+            if (rules.contains(Rule.REMOVE_UNUSED_LABELS)) changed |= removeUnusedLabels();
+        }
+
+        TACProgram out = program.emptyCopy();
+        for (int p = 0; p < size; p++) {
+            int i = from[p];
+            int result = jumpsOrLabel(ops[p]) ? TACProgram.operand(TACProgram.LABEL, labels[p]) : program.result(i);
+            out.add(ops[p], result, program.arg1(i), program.arg2(i), program.type(i));
+        }
+        return out;
+    }
+
+    public int threadedJumps() {
+        return threadedJumps;
+    }
+
+    public int removedJumps() {
+        return removedJumps;
+    }
+
+    public int invertedBranches() {
+        return invertedBranches;
+    }
+
+    public int removedLabels() {
+        return removedLabels;
+    }
+
+    private static boolean jumpsOrLabel(TACOpcode opcode) {
+        return opcode == TACOpcode.LABEL || opcode == TACOpcode.GOTO || opcode.isBranch();
+    }
+
+    // --- Rodada ---
+
+    private boolean round() {
+        for (int p = 0; p < size; p++) {
+            if (ops[p] != TACOpcode.LABEL) continue;
+            labelAt[labels[p]] = p;
+            groupStart[labels[p]] = p > 0 && ops[p - 1] == TACOpcode.LABEL ? groupStart[labels[p - 1]] : p;
+        }
+        Arrays.fill(resolved, 0);
+
+        boolean merge = rules.contains(Rule.MERGE_LABELS);
+        boolean toNext = rules.contains(Rule.REMOVE_JUMP_TO_NEXT);
+        boolean invert = rules.contains(Rule.INVERT_BRANCHES);
+        boolean changed = false;
+        int kept = 0;
+        for (int p = 0; p < size; p++) {
+            TACOpcode opcode = ops[p];
+            int label = labels[p];
+            if (opcode == TACOpcode.LABEL) {
+                if (merge && groupStart[label] != p) {
+                    removedLabels++;
+                    changed = true;
+                    continue;
+                }
+            } else if (opcode == TACOpcode.GOTO || opcode.isBranch()) {
+                int target = target(label);
+                if (target != label) {
+                    changed = true;
+                    if (target != (merge ? labels[groupStart[label]] : label)) threadedJumps++;
+                }
+
+                // Janela: o salto cai no label logo depois
+                if (toNext && p + 1 < size && ops[p + 1] == TACOpcode.LABEL && sameGroup(target, p + 1)) {
+                    removedJumps++;
+                    changed = true;
+                    continue;
+                }
+                // Janela: "if c goto L1; goto L2; L1:" -> "if !c goto L2; L1:"
+                if (invert && opcode.isBranch() && p + 2 < size && ops[p + 1] == TACOpcode.GOTO
+                        && ops[p + 2] == TACOpcode.LABEL && sameGroup(target, p + 2)) {
+                    opcode = opcode == TACOpcode.IF_FALSE ? TACOpcode.IF_TRUE : TACOpcode.IF_FALSE;
+                    target = target(labels[p + 1]);
+                    invertedBranches++;
+                    removedJumps++;
+                    changed = true;
+                    emit(kept++, p++, opcode, target);
+                    continue;
+                }
+                label = target;
+            }
+            emit(kept++, p, opcode, label);
+        }
+
+        int[] swapFrom = from;
+        from = nextFrom;
+        nextFrom = swapFrom;
+        TACOpcode[] swapOps = ops;
+        ops = nextOps;
+        nextOps = swapOps;
+        int[] swapLabels = labels;
+        labels = nextLabels;
+        nextLabels = swapLabels;
+        size = kept;
+        return changed;
+    }
+
+    private void emit(int q, int p, TACOpcode opcode, int label) {
+        nextFrom[q] = from[p];
+        nextOps[q] = opcode;
+        nextLabels[q] = label;
+    }
+
+    // Se o label está no grupo de labels que começa na posição p
+    private boolean sameGroup(int label, int p) {
+        return groupStart[label] == p;
+    }
+
+    // Destino final de um salto para o label: o primeiro do grupo, seguindo
+    // "L: goto M" (até voltar a um label do caminho, num laço de gotos)
+    private int target(int label) {
+        if (resolved[label] != 0) return resolved[label];
+        boolean thread = rules.contains(Rule.THREAD_JUMPS);
+        int[] path = new int[4];
+        int length = 0;
+        int current = label;
+        int result;
+        while (true) {
+            if (resolved[current] > 0) {
+                result = resolved[current];
+                break;
+            }
+            if (resolved[current] < 0) { // já no caminho: laço
+                result = current;
+                break;
+            }
+            resolved[current] = -1;
+            if (length == path.length) path = Arrays.copyOf(path, length * 2);
+            path[length++] = current;
+            int next = thread ? gotoAfter(current) : -1;
+            if (next < 0) {
+                result = current;
+                break;
+            }
+            current = next;
+        }
+        if (rules.contains(Rule.MERGE_LABELS)) result = labels[groupStart[result]];
+        for (int k = 0; k < length; k++) resolved[path[k]] = result;
+        return result;
+    }
+
+    // Label do goto que segue o grupo do label (-1 se não há)
+    private int gotoAfter(int label) {
+        int p = labelAt[label];
+        while (p < size && ops[p] == TACOpcode.LABEL) p++;
+        return p < size && ops[p] == TACOpcode.GOTO ? labels[p] : -1;
+    }
+
+    private boolean removeUnusedLabels() {
+        Arrays.fill(uses, 0);
+        for (int p = 0; p < size; p++) {
+            if (ops[p] != TACOpcode.LABEL) uses[labels[p]]++;
+        }
+        int kept = 0;
+        for (int p = 0; p < size; p++) {
+            if (ops[p] == TACOpcode.LABEL && uses[labels[p]] == 0) continue;
+            ops[kept] = ops[p];
+            labels[kept] = labels[p];
+            from[kept++] = from[p];
+        }
+        boolean changed = kept < size;
+        removedLabels += size - kept;
+        size = kept;
+        return changed;
+    }
+}
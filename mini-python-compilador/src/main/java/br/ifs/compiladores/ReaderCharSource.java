@@ -0,0 +1,82 @@
+package br.ifs.compiladores;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Fonte de caracteres lida de um Reader através de um buffer deslizante.
+ *
+ * O buffer guarda apenas o trecho a partir do token atual; o restante já
+ * consumido é descartado a cada recarga. Ele só cresce se um único token
+ * (ou uma sequência de indentação) for maior que a capacidade inicial.
+ */
+final class ReaderCharSource extends CharSource {
+    private final Reader reader;
+    private char[] buffer;
+    private int base = 0;   // Posição absoluta de buffer[0]
+    private int count = 0;  // Quantidade de caracteres válidos no buffer
+    private int mark = 0;   // Menor posição que ainda pode ser lida
+    private boolean eof = false;
+
+    ReaderCharSource(Reader reader, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Tamanho de buffer inválido: " + bufferSize);
+        }
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    @Override
+    boolean has(int index) {
+        while (index >= base + count) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    char charAt(int index) {
+        return buffer[index - base];
+    }
+
+    @Override
+    String substring(int from, int to) {
+        return new String(buffer, from - base, to - from);
+    }
+
+    @Override
+    void release(int index) {
+        if (index > mark) mark = index;
+    }
+
+    // Descarta o trecho já consumido e lê mais caracteres do Reader
+    private boolean fill() {
+        if (eof) return false;
+
+        int discard = mark - base;
+        if (discard > 0) {
+            System.arraycopy(buffer, discard, buffer, 0, count - discard);
+            count -= discard;
+            base = mark;
+        }
+        if (count == buffer.length) {
+            // Token atual não cabe no buffer: cresce em vez de perder dados
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read;
+        try {
+            read = reader.read(buffer, count, buffer.length - count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        count += read;
+        return true;
+    }
+}
@@ -0,0 +1,332 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Forma SSA de um TACProgram, sem reescrever as instruções: cada definição
+ * (instrução com resultado ou phi) recebe um número de valor, e cada uso de
+ * variável ou temporário aponta para o valor que o alcança.
+ *
+ * Os nomes são as variáveis (pelo slot) e os temporários. Phis ficam nas
+ * fronteiras de dominância iteradas dos blocos que definem cada nome, só para
+ * nomes lidos em algum bloco antes de serem definidos nele (SSA semi-podada):
+ * quase todo temporário nasce e morre no mesmo bloco e não recebe phi; o de
+ * um and/or, definido nos dois caminhos, recebe.
+ *
+ * O valor 0 é o de um nome ainda não definido na entrada do programa.
+ */
+final class SSAForm {
+    static final int UNDEFINED = 0;
+
+    final TACProgram program;
+    final ControlFlowGraph cfg;
+
+    // Nomes: slot da variável, ou variableCount + índice do temporário
+    private final int variableCount;
+    private final int nameCount;
+
+    // Por instrução: valor definido e valores usados em arg1/arg2 (-1 = nenhum)
+    final int[] def;
+    final int[] use1;
+    final int[] use2;
+
+    // Phis agrupados por bloco: phis [blockPhiStart[b], blockPhiStart[b + 1]).
+    // Os argumentos do phi p vêm na ordem dos predecessores do bloco:
+    // phiArgs[phiArgStart[p] + j] chega pelo predecessor j
+    int phiCount;
+    int[] blockPhiStart;
+    int[] phiBlock;
+    int[] phiName;
+    int[] phiValue;
+    int[] phiArgStart;
+    int[] phiArgs;
+
+    // Por valor: instrução que o define, ou -(phi + 1); UNDEFINED não tem
+    int valueCount;
+    int[] valueDef;
+
+    // Usos de cada valor: useSites[useStart[v]..useStart[v + 1]) com a
+    // instrução i ou -(phi + 1), repetidos se o valor aparece duas vezes (x + x)
+    int[] useStart;
+    int[] useSites;
+
+    SSAForm(TACProgram program, ControlFlowGraph cfg) {
+        this.program = program;
+        this.cfg = cfg;
+        this.variableCount = program.variableCount();
+        this.nameCount = variableCount + program.tempCount() + 1;
+        int n = program.size();
+        def = new int[n];
+        use1 = new int[n];
+        use2 = new int[n];
+        Arrays.fill(def, -1);
+        Arrays.fill(use1, -1);
+        Arrays.fill(use2, -1);
+
+        placePhis();
+        rename();
+        buildUses();
+    }
+
+    static SSAForm of(TACProgram program) {
+        return new SSAForm(program, ControlFlowGraph.of(program));
+    }
+
+    // --- Nomes ---
+
+    // Nome do operando (variável ou temporário), ou -1
+    int name(int operand) {
+        if (operand == TACProgram.NONE) return -1;
+        switch (TACProgram.tag(operand)) {
+            case TACProgram.VARIABLE: return TACProgram.index(operand);
+            case TACProgram.TEMP: return variableCount + TACProgram.index(operand);
+            default: return -1;
+        }
+    }
+
+    // Se a instrução grava em result (as de salto usam result para o label)
+    static boolean defines(TACOpcode opcode) {
+        return opcode == TACOpcode.COPY || opcode == TACOpcode.CALL || opcode.isBinary() || opcode.isUnary();
+    }
+
+    // --- Posicionamento dos phis ---
+
+    private void placePhis() {
+        int blocks = cfg.blockCount();
+
+        // Blocos que definem cada nome (listas encadeadas) e nomes "globais",
+        // lidos em algum bloco antes de uma definição local
+        int[] defHead = new int[nameCount];
+        Arrays.fill(defHead, -1);
+        int[] defNext = new int[program.size()];
+        int[] defBlock = new int[program.size()];
+        int defs = 0;
+        boolean[] global = new boolean[nameCount];
+        int[] definedIn = new int[nameCount];
+        Arrays.fill(definedIn, -1);
+        for (int b = 0; b < blocks; b++) {
+            if (!cfg.isReachable(b)) continue;
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                int a1 = name(program.arg1(i));
+                int a2 = name(program.arg2(i));
+                if (a1 >= 0 && definedIn[a1] != b) global[a1] = true;
+                if (a2 >= 0 && definedIn[a2] != b) global[a2] = true;
+                if (!defines(program.opcode(i))) continue;
+                int r = name(program.result(i));
+                if (definedIn[r] != b) {
+                    definedIn[r] = b;
+                    defBlock[defs] = b;
+                    defNext[defs] = defHead[r];
+                    defHead[r] = defs++;
+                }
+            }
+        }
+
+        int[][] frontier = dominanceFrontiers();
+
+        // Fronteira iterada de cada nome global; hasPhi/queued marcados com o nome + 1
+        int[] hasPhi = new int[blocks];
+        int[] queued = new int[blocks];
+        int[] work = new int[blocks];
+        int[] phiBlocks = new int[16];
+        int[] phiNames = new int[16];
+        int count = 0;
+        for (int x = 0; x < nameCount; x++) {
+            if (!global[x]) continue;
+            int top = 0;
+            for (int d = defHead[x]; d >= 0; d = defNext[d]) {
+                queued[defBlock[d]] = x + 1;
+                work[top++] = defBlock[d];
+            }
+            while (top > 0) {
+                int b = work[--top];
+                for (int y : frontier[b]) {
+                    if (hasPhi[y] == x + 1) continue;
+                    hasPhi[y] = x + 1;
+                    if (count == phiBlocks.length) {
+                        phiBlocks = Arrays.copyOf(phiBlocks, count * 2);
+                        phiNames = Arrays.copyOf(phiNames, count * 2);
+                    }
+                    phiBlocks[count] = y;
+                    phiNames[count++] = x;
+                    if (queued[y] != x + 1) {
+                        queued[y] = x + 1;
+                        work[top++] = y;
+                    }
+                }
+            }
+        }
+
+        // Agrupa por bloco (contagem) e reserva os argumentos
+        phiCount = count;
+        blockPhiStart = new int[blocks + 1];
+        for (int p = 0; p < count; p++) blockPhiStart[phiBlocks[p] + 1]++;
+        for (int b = 0; b < blocks; b++) blockPhiStart[b + 1] += blockPhiStart[b];
+        phiBlock = new int[count];
+        phiName = new int[count];
+        int[] fill = Arrays.copyOf(blockPhiStart, blocks);
+        for (int p = 0; p < count; p++) {
+            int slot = fill[phiBlocks[p]]++;
+            phiBlock[slot] = phiBlocks[p];
+            phiName[slot] = phiNames[p];
+        }
+        phiArgStart = new int[count + 1];
+        for (int p = 0; p < count; p++) phiArgStart[p + 1] = phiArgStart[p] + cfg.predecessorCount(phiBlock[p]);
+        phiArgs = new int[phiArgStart[count]];
+    }
+
+    // Cooper, Harvey e Kennedy: cada predecessor de uma junção sobe pelos
+    // dominadores até o idom da junção, que entra na fronteira de cada bloco
+    // do caminho
+    private int[][] dominanceFrontiers() {
+        int blocks = cfg.blockCount();
+        int[] head = new int[blocks];
+        Arrays.fill(head, -1);
+        int[] next = new int[16];
+        int[] member = new int[16];
+        int[] size = new int[blocks];
+        int entries = 0;
+        for (int b = 0; b < blocks; b++) {
+            if (!cfg.isReachable(b) || cfg.predecessorCount(b) < 2) continue;
+            for (int j = 0; j < cfg.predecessorCount(b); j++) {
+                int runner = cfg.predecessor(b, j);
+                if (!cfg.isReachable(runner)) continue;
+                while (runner != cfg.idom(b)) {
+                    if (head[runner] < 0 || member[head[runner]] != b) { // b chega aqui uma vez por predecessor
+                        if (entries == next.length) {
+                            next = Arrays.copyOf(next, entries * 2);
+                            member = Arrays.copyOf(member, entries * 2);
+                        }
+                        member[entries] = b;
+                        next[entries] = head[runner];
+                        head[runner] = entries++;
+                        size[runner]++;
+                    }
+                    runner = cfg.idom(runner);
+                }
+            }
+        }
+        int[][] frontier = new int[blocks][];
+        for (int b = 0; b < blocks; b++) {
+            frontier[b] = new int[size[b]];
+            int k = 0;
+            for (int e = head[b]; e >= 0; e = next[e]) frontier[b][k++] = member[e];
+        }
+        return frontier;
+    }
+
+    // --- Renomeação ---
+
+    // DFS iterativa na árvore de dominadores com o valor corrente de cada
+    // nome; as trocas ficam numa pilha e são desfeitas ao sair do bloco
+    private void rename() {
+        int n = program.size();
+        valueCount = 1; // UNDEFINED
+        for (int i = 0; i < n; i++) {
+            if (defines(program.opcode(i))) def[i] = valueCount++;
+        }
+        phiValue = new int[phiCount];
+        for (int p = 0; p < phiCount; p++) phiValue[p] = valueCount++;
+
+        valueDef = new int[valueCount];
+        for (int i = 0; i < n; i++) {
+            if (def[i] >= 0) valueDef[def[i]] = i;
+        }
+        for (int p = 0; p < phiCount; p++) valueDef[phiValue[p]] = -(p + 1);
+
+        int blocks = cfg.blockCount();
+        if (blocks == 0) return;
+        int[] current = new int[nameCount]; // UNDEFINED = 0
+        int[] trailName = new int[16];
+        int[] trailOld = new int[16];
+        int trail = 0;
+
+        int[] stack = new int[blocks];
+        int[] nextChild = new int[blocks];
+        int[] mark = new int[blocks];
+        int top = 0;
+        stack[0] = 0;
+        nextChild[0] = -1;
+        while (top >= 0) {
+            int b = stack[top];
+            if (nextChild[top] < 0) {
+                // Primeira visita: phis e instruções do bloco, depois os phis dos sucessores
+                mark[top] = trail;
+                nextChild[top] = 0;
+                for (int p = blockPhiStart[b]; p < blockPhiStart[b + 1]; p++) {
+                    if (trail == trailName.length) {
+                        trailName = Arrays.copyOf(trailName, trail * 2);
+                        trailOld = Arrays.copyOf(trailOld, trail * 2);
+                    }
+                    trailName[trail] = phiName[p];
+                    trailOld[trail++] = current[phiName[p]];
+                    current[phiName[p]] = phiValue[p];
+                }
+                for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                    int a1 = name(program.arg1(i));
+                    int a2 = name(program.arg2(i));
+                    if (a1 >= 0) use1[i] = current[a1];
+                    if (a2 >= 0) use2[i] = current[a2];
+                    if (def[i] < 0) continue;
+                    int r = name(program.result(i));
+                    if (trail == trailName.length) {
+                        trailName = Arrays.copyOf(trailName, trail * 2);
+                        trailOld = Arrays.copyOf(trailOld, trail * 2);
+                    }
+                    trailName[trail] = r;
+                    trailOld[trail++] = current[r];
+                    current[r] = def[i];
+                }
+                for (int k = 0; k < cfg.successorCount(b); k++) {
+                    int s = cfg.successor(b, k);
+                    int j = predecessorIndex(s, b);
+                    for (int p = blockPhiStart[s]; p < blockPhiStart[s + 1]; p++) {
+                        phiArgs[phiArgStart[p] + j] = current[phiName[p]];
+                    }
+                }
+            }
+            if (nextChild[top] < cfg.domChildCount(b)) {
+                int child = cfg.domChild(b, nextChild[top]++);
+                stack[++top] = child;
+                nextChild[top] = -1;
+            } else {
+                while (trail > mark[top]) {
+                    trail--;
+                    current[trailName[trail]] = trailOld[trail];
+                }
+                top--;
+            }
+        }
+    }
+
+    /** Posição de pred entre os predecessores de block. */
+    int predecessorIndex(int block, int pred) {
+        for (int j = 0; ; j++) {
+            if (cfg.predecessor(block, j) == pred) return j;
+        }
+    }
+
+    // --- Cadeias def-uso ---
+
+    private void buildUses() {
+        useStart = new int[valueCount + 1];
+        int n = program.size();
+        for (int i = 0; i < n; i++) {
+            if (use1[i] >= 0) useStart[use1[i] + 1]++;
+            if (use2[i] >= 0) useStart[use2[i] + 1]++;
+        }
+        for (int a = 0; a < phiArgs.length; a++) useStart[phiArgs[a] + 1]++;
+        for (int v = 0; v < valueCount; v++) useStart[v + 1] += useStart[v];
+        useSites = new int[useStart[valueCount]];
+        int[] fill = Arrays.copyOf(useStart, valueCount);
+        for (int i = 0; i < n; i++) {
+            if (use1[i] >= 0) useSites[fill[use1[i]]++] = i;
+            if (use2[i] >= 0) useSites[fill[use2[i]]++] = i;
+        }
+        for (int p = 0; p < phiCount; p++) {
+            for (int a = phiArgStart[p]; a < phiArgStart[p + 1]; a++) {
+                useSites[fill[phiArgs[a]]++] = -(p + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package br.ifs.compiladores;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila limitada sem bloqueio para exatamente uma thread produtora e uma
+ * consumidora. Cada lado só escreve no seu próprio índice e publica com
+ * lazySet; a posição do outro lado é relida apenas quando a cópia local
+ * indica fila cheia (produtor) ou vazia (consumidor).
+ */
+final class SpscQueue<T> {
+    private final Object[] items;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Próximo a ler (escrito só pelo consumidor)
+    private final AtomicLong tail = new AtomicLong(); // Próximo a escrever (escrito só pelo produtor)
+    private long cachedHead = 0; // Usado só pelo produtor
+    private long cachedTail = 0; // Usado só pelo consumidor
+
+    SpscQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacidade deve ser potência de 2: " + capacity);
+        this.items = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /** Produtor: insere o item, ou retorna false se a fila estiver cheia. */
+    boolean offer(T item) {
+        long t = tail.get();
+        if (t - cachedHead == items.length) {
+            cachedHead = head.get();
+            if (t - cachedHead == items.length) return false;
+        }
+        items[(int) t & mask] = item;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Consumidor: remove o próximo item, ou retorna null se a fila estiver vazia. */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+            if (h == cachedTail) return null;
+        }
+        int slot = (int) h & mask;
+        T item = (T) items[slot];
+        items[slot] = null;
+        head.lazySet(h + 1);
+        return item;
+    }
+}
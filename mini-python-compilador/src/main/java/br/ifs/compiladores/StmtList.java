@@ -0,0 +1,91 @@
+package br.ifs.compiladores;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Lista de comandos produzida pelo parser. Além dos nós, guarda num int[] a
+ * largura (Stmt.width) de cada comando e se ele olhou um token adiante (if
+ * sem else), para a reanálise incremental calcular posições sem visitar os
+ * nós e copiar trechos reaproveitados com arraycopy.
+ */
+final class StmtList extends AbstractList<Stmt> implements RandomAccess {
+    private Stmt[] items;
+    private int[] spans; // width << 1 | lookahead
+    private int size = 0;
+
+    // Só na lista de nível superior devolvida pelo parser: a tabela em que os
+    // slots dos nós foram registrados, guardada por SymbolTable.of na primeira
+    // resolução (null até lá)
+    SymbolTable symbols;
+
+    StmtList() {
+        this(8);
+    }
+
+    StmtList(int capacity) {
+        items = new Stmt[Math.max(capacity, 4)];
+        spans = new int[items.length];
+    }
+
+    // Lista com as larguras de statements (cópia, se ainda não for uma StmtList)
+    static StmtList of(List<Stmt> statements) {
+        if (statements instanceof StmtList) return (StmtList) statements;
+        StmtList list = new StmtList(statements.size());
+        for (Stmt stmt : statements) list.add(stmt);
+        return list;
+    }
+
+    @Override
+    public Stmt get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Índice " + index + ", tamanho " + size);
+        return items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Acrescenta o comando; a largura é lida de stmt.width neste momento. */
+    @Override
+    public boolean add(Stmt stmt) {
+        boolean lookahead = stmt instanceof IfStmt && ((IfStmt) stmt).elseBranch == null;
+        ensureCapacity(size + 1);
+        items[size] = stmt;
+        spans[size] = stmt.width << 1 | (lookahead ? 1 : 0);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    // Acrescenta os comandos [from, to) de other
+    void addRange(StmtList other, int from, int to) {
+        int count = to - from;
+        ensureCapacity(size + count);
+        System.arraycopy(other.items, from, items, size, count);
+        System.arraycopy(other.spans, from, spans, size, count);
+        size += count;
+        modCount++;
+    }
+
+    // Tokens consumidos pelo comando (Stmt.width)
+    int width(int index) {
+        return spans[index] >>> 1;
+    }
+
+    // Tokens que determinam o comando: a largura mais o token olhado adiante
+    int extent(int index) {
+        return (spans[index] >>> 1) + (spans[index] & 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > items.length) {
+            int grown = Math.max(capacity, items.length + (items.length >> 1));
+            items = Arrays.copyOf(items, grown);
+            spans = Arrays.copyOf(spans, grown);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package br.ifs.compiladores;
+
+// Fonte de caracteres sobre uma String já carregada em memória
+final class StringCharSource extends CharSource {
+    private final String text;
+    private final int length;
+
+    StringCharSource(String text) {
+        this(text, text.length());
+    }
+
+    // Apenas o prefixo [0, length) é visível
+    StringCharSource(String text, int length) {
+        this.text = text;
+        this.length = length;
+    }
+
+    @Override
+    boolean has(int index) {
+        return index < length;
+    }
+
+    @Override
+    char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    String substring(int from, int to) {
+        return text.substring(from, to);
+    }
+
+    // String.indexOf já é compilado pela JVM com instruções vetoriais
+    @Override
+    int indexOf(char c, int from) {
+        int index = text.indexOf(c, from);
+        return index < 0 || index > length ? length : index;
+    }
+}
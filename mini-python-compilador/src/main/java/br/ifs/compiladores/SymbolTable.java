@@ -0,0 +1,180 @@
+package br.ifs.compiladores;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nomes de variáveis internados em slots densos (0, 1, 2... na ordem da
+ * primeira ocorrência). Depois da resolução, as passagens indexam arrays pelo
+ * slot em vez de procurar o nome num HashMap.
+ */
+final class SymbolTable {
+    private final List<String> names = new ArrayList<>();
+
+    // Endereçamento aberto (sondagem linear) de nome -> slot, sem Integer nem
+    // nós de HashMap: a resolução consulta a tabela a cada identificador
+    private String[] keys = new String[64];
+    private int[] slots = new int[64];
+
+    // Slot do nome, criando um novo na primeira ocorrência
+    int slot(String name) {
+        int mask = keys.length - 1;
+        int i = hash(name) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (key.equals(name)) return slots[i];
+            i = (i + 1) & mask;
+        }
+        int slot = names.size();
+        names.add(name);
+        keys[i] = name;
+        slots[i] = slot;
+        if (names.size() * 2 > keys.length) rehash();
+        return slot;
+    }
+
+    // Só o tamanho e as pontas do nome: String.hashCode percorre o lexema
+    // inteiro, recém-criado a cada ocorrência. Nomes que colidem são
+    // separados por equals na sondagem.
+    private static int hash(String name) {
+        int n = name.length();
+        int h = n * 31 + name.charAt(0);
+        h = h * 31 + name.charAt(n - 1);
+        if (n > 2) h = (h * 31 + name.charAt(n - 2)) * 31 + name.charAt(n >> 1);
+        if (n > 4) h = h * 31 + name.charAt(n - 3);
+        return h * 0x9E3779B9 >>> 16;
+    }
+
+    private void rehash() {
+        String[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new String[oldKeys.length * 2];
+        slots = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            String key = oldKeys[j];
+            if (key == null) continue;
+            int i = hash(key) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = key;
+            slots[i] = oldSlots[j];
+        }
+    }
+
+    String name(int slot) {
+        return names.get(slot);
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    // --- Resolução de uma AST de objetos ---
+
+    /**
+     * Tabela dos slots de statements. O parser não resolve os nomes: na
+     * primeira chamada sobre a lista devolvida por MiniPythonParser a árvore é
+     * resolvida e a tabela fica guardada na lista, então as passagens
+     * seguintes (e a reanálise incremental) a reaproveitam. Outras listas são
+     * resolvidas a cada chamada.
+     */
+    static SymbolTable of(List<Stmt> statements) {
+        if (!(statements instanceof StmtList)) return resolve(statements);
+        StmtList list = (StmtList) statements;
+        if (list.symbols == null) list.symbols = resolve(statements);
+        return list.symbols;
+    }
+
+    /**
+     * Grava em cada AssignStmt e VariableExpr o slot do seu nome, numerando os
+     * nomes na ordem do código, como o parser faz. Nós compartilhados com
+     * outra AST (reanálise incremental) ficam com o slot da última resolução.
+     */
+    static SymbolTable resolve(List<Stmt> statements) {
+        SymbolTable table = new SymbolTable();
+        for (Stmt stmt : statements) table.resolve(stmt);
+        return table;
+    }
+
+    private Resolver resolver;
+
+    // Resolve uma subárvore nesta tabela (nomes novos entram no fim)
+    void resolve(Stmt stmt) {
+        stmt.accept(resolver());
+    }
+
+    void resolve(Expr expr) {
+        expr.accept(resolver());
+    }
+
+    private Resolver resolver() {
+        if (resolver == null) resolver = new Resolver();
+        return resolver;
+    }
+
+    private final class Resolver implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+        @Override
+        public Void visitBlock(BlockStmt stmt) {
+            for (Stmt s : stmt.statements) s.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitIf(IfStmt stmt) {
+            stmt.condition.accept(this);
+            stmt.thenBranch.accept(this);
+            if (stmt.elseBranch != null) stmt.elseBranch.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitWhile(WhileStmt stmt) {
+            stmt.condition.accept(this);
+            stmt.body.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitAssign(AssignStmt stmt) {
+            stmt.value.accept(this); // x = x + 1: o valor é lido antes do alvo
+            stmt.slot = slot(stmt.name.lexeme);
+            return null;
+        }
+
+        @Override
+        public Void visitPrint(PrintStmt stmt) {
+            stmt.expression.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitBinary(BinaryExpr expr) {
+            expr.left.accept(this);
+            expr.right.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitUnary(UnaryExpr expr) {
+            expr.right.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteral(LiteralExpr expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitVariable(VariableExpr expr) {
+            expr.slot = slot(expr.name.lexeme);
+            return null;
+        }
+
+        @Override
+        public Void visitCall(CallExpr expr) {
+            for (Expr argument : expr.arguments) argument.accept(this);
+            return null;
+        }
+    }
+}
@@ -6,11 +6,21 @@ public class TACInstruction {
     public final String arg2;   // Segundo operando (ou null)
     public final String result; // Onde o resultado é armazenado (ou label de destino)
 
+    // Tipo em que a instrução opera, quando a análise semântica o fixou: INT/FLOAT/STRING
+    // separam soma de inteiros, de floats e concatenação (numa comparação, o tipo dos
+    // operandos). null = genérica, o tipo é verificado na execução.
+    public final Type type;
+
     public TACInstruction(String result, String arg1, String op, String arg2) {
+        this(result, arg1, op, arg2, null);
+    }
+
+    public TACInstruction(String result, String arg1, String op, String arg2, Type type) {
         this.result = result;
         this.arg1 = arg1;
         this.op = op;
         this.arg2 = arg2;
+        this.type = type;
     }
 
     // Construtor para instruções de cópia ou unárias (x = y)
@@ -34,6 +44,9 @@ public class TACInstruction {
         if (op.equals("IF_FALSE")) {
             return "ifFalse " + arg1 + " goto " + result;
         }
+        if (op.equals("IF_TRUE")) {
+            return "ifTrue " + arg1 + " goto " + result;
+        }
         if (op.equals("PRINT")) {
             return "print " + arg1;
         }
@@ -0,0 +1,45 @@
+package br.ifs.compiladores;
+
+/** Operações do TAC compacto (TACProgram). */
+public enum TACOpcode {
+    LABEL, GOTO, IF_FALSE, PRINT, PARAM, CALL,
+
+    COPY(""), // x = y
+
+    // Binárias: result = arg1 op arg2
+    ADD("+"), SUB("-"), MUL("*"), DIV("/"),
+    GT(">"), LT("<"), GTE(">="), LTE("<="), EQ("=="), NEQ("!="),
+    AND("&&"), OR("||"),
+
+    // Unárias: result = op arg1
+    NEG("-"), NOT("!"),
+
+    // Salta se a condição é verdadeira (código de salto de or/not no gerador
+    // e inversão de desvios no PeepholeOptimizer); no fim para não mudar os
+    // opcodes já gravados por TACProgram.writeTo
+    IF_TRUE;
+
+    // Campo op do TACInstruction equivalente
+    final String symbol;
+
+    TACOpcode() {
+        this.symbol = name();
+    }
+
+    TACOpcode(String symbol) {
+        this.symbol = symbol;
+    }
+
+    boolean isBinary() {
+        return compareTo(ADD) >= 0 && compareTo(OR) <= 0;
+    }
+
+    boolean isUnary() {
+        return this == NEG || this == NOT;
+    }
+
+    // Salto condicional: ifFalse/ifTrue arg1 goto result
+    boolean isBranch() {
+        return this == IF_FALSE || this == IF_TRUE;
+    }
+}
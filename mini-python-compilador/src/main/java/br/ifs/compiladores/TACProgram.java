@@ -0,0 +1,338 @@
+package br.ifs.compiladores;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TAC compacto: cada instrução ocupa 4 ints de um único array, em vez de um
+ * TACInstruction com quatro Strings.
+ *
+ *   [opcode | (tipo + 1) << 8, result, arg1, arg2]
+ *
+ * O tipo é o de TACInstruction.type (0 = genérica). Cada operando é um int
+ * com a tabela nos 2 bits baixos e o índice no resto (NONE = sem operando):
+ *   TEMP     temporário tN
+ *   VARIABLE variável, pelo slot (nomes em SymbolTable)
+ *   CONSTANT pool de constantes: literais, nome da função e número de
+ *            argumentos de CALL, valores dobrados pelos otimizadores
+ *   LABEL    label LN
+ *
+ * toInstructions() e toString() reproduzem exatamente a lista de
+ * TACInstruction que o gerador devolvia; writeTo/readFrom gravam e leem o
+ * programa num formato binário sem perda.
+ */
+public final class TACProgram {
+    private static final TACOpcode[] OPCODES = TACOpcode.values();
+    private static final Type[] TYPES = Type.values();
+
+    public static final int NONE = -1;
+    public static final int TEMP = 0;
+    public static final int VARIABLE = 1;
+    public static final int CONSTANT = 2;
+    public static final int LABEL = 3;
+
+    private static final int MAGIC = 0x54414331; // "TAC1"
+
+    private int[] code;
+    private int size = 0;
+
+    private int tempCount = 0;
+    private int labelCount = 0;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private final SymbolTable variables;
+
+    // Textos de temporários, constantes e labels, por tag e índice
+    private final String[][] texts = new String[4][];
+
+    TACProgram(SymbolTable variables, int capacity) {
+        this.variables = variables;
+        this.code = new int[Math.max(capacity, 4) * 4];
+    }
+
+    // Programa sem instruções com as mesmas variáveis, constantes e contadores:
+    // os otimizadores copiam nele as instruções que mantêm, e os operandos
+    // continuam válidos
+    TACProgram emptyCopy() {
+        return emptyCopy(tempCount);
+    }
+
+    // O mesmo, com os temporários renumerados para t1..t{temps}
+    TACProgram emptyCopy(int temps) {
+        TACProgram copy = new TACProgram(variables, size);
+        for (Object value : constants) copy.literal(value);
+        copy.tempCount = temps;
+        copy.labelCount = labelCount;
+        return copy;
+    }
+
+    // --- Operandos ---
+
+    public static int tag(int operand) {
+        return operand & 3;
+    }
+
+    public static int index(int operand) {
+        return operand >>> 2;
+    }
+
+    static int operand(int tag, int index) {
+        return index << 2 | tag;
+    }
+
+    // --- Construção (MiniPythonTACGenerator) ---
+
+    // Temporários e labels são numerados a partir de 1, como t1 e L1
+    int newTemp() {
+        return operand(TEMP, ++tempCount);
+    }
+
+    int newLabel() {
+        return operand(LABEL, ++labelCount);
+    }
+
+    int variable(int slot) {
+        return operand(VARIABLE, slot);
+    }
+
+    int literal(Object value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return operand(CONSTANT, index);
+    }
+
+    void add(TACOpcode opcode, int result, int arg1, int arg2, Type type) {
+        // Cresce em instruções inteiras: o tamanho do array fica múltiplo de 4
+        if (size * 4 == code.length) code = Arrays.copyOf(code, (size + (size >> 1) + 4) * 4);
+        int p = size * 4;
+        code[p] = opcode.ordinal() | (type == null ? 0 : type.ordinal() + 1) << 8;
+        code[p + 1] = result;
+        code[p + 2] = arg1;
+        code[p + 3] = arg2;
+        size++;
+    }
+
+    // --- Consulta ---
+
+    /** Quantidade de instruções. */
+    public int size() {
+        return size;
+    }
+
+    public TACOpcode opcode(int instr) {
+        return OPCODES[code[instr * 4] & 0xFF];
+    }
+
+    /** Tipo em que a instrução opera (null = genérica), como em TACInstruction.type. */
+    public Type type(int instr) {
+        int type = code[instr * 4] >>> 8;
+        return type == 0 ? null : TYPES[type - 1];
+    }
+
+    public int result(int instr) {
+        return code[instr * 4 + 1];
+    }
+
+    public int arg1(int instr) {
+        return code[instr * 4 + 2];
+    }
+
+    public int arg2(int instr) {
+        return code[instr * 4 + 3];
+    }
+
+    public int tempCount() {
+        return tempCount;
+    }
+
+    public int labelCount() {
+        return labelCount;
+    }
+
+    public Object constant(int index) {
+        return constants.get(index);
+    }
+
+    int variableCount() {
+        return variables.size();
+    }
+
+    public String variableName(int slot) {
+        return variables.name(slot);
+    }
+
+    /** Texto do operando, como nos campos de TACInstruction (null para NONE). */
+    public String operandString(int operand) {
+        if (operand == NONE) return null;
+        int index = index(operand);
+        int tag = tag(operand);
+        if (tag == VARIABLE) return variables.name(index);
+
+        // Cada texto é montado uma vez e compartilhado pelas instruções que
+        // usam o operando, como as Strings que o gerador repassava
+        if (texts[tag] == null || texts[tag].length <= index) {
+            int count = tag == TEMP ? tempCount + 1 : tag == LABEL ? labelCount + 1 : constants.size();
+            texts[tag] = texts[tag] == null ? new String[count] : Arrays.copyOf(texts[tag], count);
+        }
+        String text = texts[tag][index];
+        if (text == null) {
+            if (tag == TEMP) text = "t" + index;
+            else if (tag == LABEL) text = "L" + index;
+            else text = constantString(constants.get(index));
+            texts[tag][index] = text;
+        }
+        return text;
+    }
+
+    // Booleanos (só surgem de comparações dobradas) no estilo do Python
+    private static String constantString(Object value) {
+        if (value instanceof Boolean) return (Boolean) value ? "True" : "False";
+        return String.valueOf(value);
+    }
+
+    /** Tipo do valor de uma constante do pool. */
+    static Type constantType(Object value) {
+        if (value instanceof Integer) return Type.INT;
+        if (value instanceof Double) return Type.FLOAT;
+        if (value instanceof Boolean) return Type.BOOLEAN;
+        return Type.STRING;
+    }
+
+    // --- Conversão e impressão ---
+
+    /** A instrução na forma de objeto (mesmos campos que o gerador produzia). */
+    public TACInstruction instruction(int instr) {
+        return new TACInstruction(operandString(result(instr)), operandString(arg1(instr)),
+            opcode(instr).symbol, operandString(arg2(instr)), type(instr));
+    }
+
+    public List<TACInstruction> toInstructions() {
+        List<TACInstruction> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) list.add(instruction(i));
+        return list;
+    }
+
+    /** Mesmo texto que TACInstruction.toString() da instrução. */
+    public String toString(int instr) {
+        String result = operandString(result(instr));
+        String arg1 = operandString(arg1(instr));
+        TACOpcode opcode = opcode(instr);
+        switch (opcode) {
+            case LABEL: return result + ":";
+            case GOTO: return "goto " + result;
+            case IF_FALSE: return "ifFalse " + arg1 + " goto " + result;
+            case IF_TRUE: return "ifTrue " + arg1 + " goto " + result;
+            case PRINT: return "print " + arg1;
+            case PARAM: return result + " = PARAM " + arg1; // como TACInstruction, result é null
+            case CALL: return result + " = call " + arg1 + ", " + operandString(arg2(instr));
+            case COPY: return result + " = " + arg1;
+            default:
+                if (opcode.isUnary()) return result + " = " + opcode.symbol + " " + arg1;
+                return result + " = " + arg1 + " " + opcode.symbol + " " + operandString(arg2(instr));
+        }
+    }
+
+    /** Mesmo texto que toInstructions().toString(). */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 12 + 2).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(toString(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    // --- Formato binário ---
+    //
+    // int MAGIC, tempCount, labelCount
+    // int n; n constantes: byte (0 Integer, 1 Double, 2 String, 3 Boolean) + valor
+    // int n; n nomes de variáveis, na ordem dos slots
+    // int n; n instruções, 4 ints cada
+    // Strings: int com o tamanho em bytes + UTF-8
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(tempCount);
+        out.writeInt(labelCount);
+
+        out.writeInt(constants.size());
+        for (Object value : constants) {
+            if (value instanceof Integer) {
+                out.writeByte(0);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Double) {
+                out.writeByte(1);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(3);
+                out.writeBoolean((Boolean) value);
+            } else {
+                out.writeByte(2);
+                writeString(out, (String) value);
+            }
+        }
+
+        out.writeInt(variables.size());
+        for (int i = 0; i < variables.size(); i++) writeString(out, variables.name(i));
+
+        out.writeInt(size);
+        for (int i = 0; i < size * 4; i++) out.writeInt(code[i]);
+    }
+
+    public static TACProgram readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Formato de TAC inválido.");
+        int temps = in.readInt();
+        int labels = in.readInt();
+
+        int constantCount = in.readInt();
+        Object[] values = new Object[constantCount];
+        for (int i = 0; i < constantCount; i++) {
+            byte kind = in.readByte();
+            switch (kind) {
+                case 0: values[i] = in.readInt(); break;
+                case 1: values[i] = in.readDouble(); break;
+                case 2: values[i] = readString(in); break;
+                case 3: values[i] = in.readBoolean(); break;
+                default: throw new IOException("Constante de tipo desconhecido: " + kind);
+            }
+        }
+
+        SymbolTable variables = new SymbolTable();
+        int variableCount = in.readInt();
+        for (int i = 0; i < variableCount; i++) variables.slot(readString(in));
+
+        int size = in.readInt();
+        TACProgram program = new TACProgram(variables, size);
+        for (Object value : values) program.literal(value);
+        for (int i = 0; i < size * 4; i++) program.code[i] = in.readInt();
+        program.size = size;
+        program.tempCount = temps;
+        program.labelCount = labels;
+        return program;
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
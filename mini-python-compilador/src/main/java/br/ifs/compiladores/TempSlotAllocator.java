@@ -0,0 +1,229 @@
+package br.ifs.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Reaproveita os temporários: cada tN vira um de poucos slots t1..tK, com K
+ * igual ao maior número de temporários vivos ao mesmo tempo, e o quadro de
+ * quem executa o TAC só precisa de K posições.
+ *
+ * A vida de cada temporário vem de uma análise de vivacidade por nome: de
+ * cada uso sem definição antes no mesmo bloco, sobe pelos predecessores até
+ * os blocos que o definem (caso dos temporários que a LICM tira do laço e do
+ * resultado de and/or, definido nos dois caminhos). O intervalo do
+ * temporário vai da primeira à última posição em que está vivo e os slots
+ * são distribuídos por varredura linear (linear scan) em ordem de início,
+ * liberando os intervalos já terminados. Posições: 2i é a leitura
+ * dos operandos da instrução i e 2i + 1 a escrita do resultado, de modo que
+ * em "t3 = t1 + t2" t3 pode ficar no slot de t1 se for seu último uso.
+ *
+ * report() resume a última alocação.
+ */
+public final class TempSlotAllocator {
+    private TACProgram program;
+    private ControlFlowGraph cfg;
+
+    // Intervalo de cada temporário (start > end = não aparece)
+    private int[] start;
+    private int[] end;
+    private int[] slot;
+
+    private int totalTemps;
+    private int slots;
+    private int crossBlock;
+
+    /** Programa equivalente com os temporários renumerados para os slots. */
+    public TACProgram optimize(TACProgram program) {
+        this.program = program;
+        this.cfg = ControlFlowGraph.of(program);
+        int temps = program.tempCount();
+        start = new int[temps + 1];
+        end = new int[temps + 1];
+        Arrays.fill(start, Integer.MAX_VALUE);
+        Arrays.fill(end, -1);
+        slot = new int[temps + 1];
+        totalTemps = 0;
+        slots = 0;
+        crossBlock = 0;
+
+        liveness();
+        allocate();
+
+        TACProgram out = program.emptyCopy(slots);
+        for (int i = 0; i < program.size(); i++) {
+            out.add(program.opcode(i), rename(program.result(i)), rename(program.arg1(i)),
+                rename(program.arg2(i)), program.type(i));
+        }
+        return out;
+    }
+
+    /** Temporários distintos no programa de entrada. */
+    public int totalTemps() {
+        return totalTemps;
+    }
+
+    /** Slots usados, igual ao pico de temporários vivos ao mesmo tempo. */
+    public int slots() {
+        return slots;
+    }
+
+    /** Temporários vivos na entrada de algum bloco (usados fora do bloco onde são definidos). */
+    public int crossBlockTemps() {
+        return crossBlock;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Temporários: %d -> %d slots%n", totalTemps, slots));
+        sb.append(String.format("  pico de vivos: %d, vivos entre blocos: %d%n", slots, crossBlock));
+        return sb.toString();
+    }
+
+    // --- Vivacidade ---
+
+    private void liveness() {
+        int temps = program.tempCount();
+
+        // Bloco da última definição vista de cada temporário, e os blocos que
+        // definem cada um (um só, menos no resultado de and/or)
+        int[] lastDefBlock = new int[temps + 1];
+        Arrays.fill(lastDefBlock, -1);
+        int[] defStart = new int[temps + 2];
+        int[] defPairs = new int[16];
+        int defPairCount = 0;
+
+        // Usos sem definição antes no mesmo bloco: (temporário, bloco)
+        int[] exposed = new int[16];
+        int exposedCount = 0;
+
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            for (int i = cfg.blockStart(b); i < cfg.blockEnd(b); i++) {
+                for (int k = 0; k < 2; k++) {
+                    int operand = k == 0 ? program.arg1(i) : program.arg2(i);
+                    if (operand == TACProgram.NONE || TACProgram.tag(operand) != TACProgram.TEMP) continue;
+                    int t = TACProgram.index(operand);
+                    extend(t, 2 * i);
+                    if (lastDefBlock[t] != b) {
+                        if (exposedCount + 2 > exposed.length) exposed = Arrays.copyOf(exposed, exposed.length * 2);
+                        exposed[exposedCount++] = t;
+                        exposed[exposedCount++] = b;
+                    }
+                }
+                int result = program.result(i);
+                if (SSAForm.defines(program.opcode(i)) && TACProgram.tag(result) == TACProgram.TEMP) {
+                    int t = TACProgram.index(result);
+                    extend(t, 2 * i + 1);
+                    if (lastDefBlock[t] != b) {
+                        lastDefBlock[t] = b;
+                        if (defPairCount + 2 > defPairs.length) defPairs = Arrays.copyOf(defPairs, defPairs.length * 2);
+                        defPairs[defPairCount++] = t;
+                        defPairs[defPairCount++] = b;
+                        defStart[t + 1]++;
+                    }
+                }
+            }
+        }
+        for (int t = 0; t <= temps; t++) defStart[t + 1] += defStart[t];
+        int[] defBlocks = new int[defStart[temps + 1]];
+        int[] fill = Arrays.copyOf(defStart, temps + 1);
+        for (int d = 0; d < defPairCount; d += 2) defBlocks[fill[defPairs[d]]++] = defPairs[d + 1];
+
+        // Sobe pelos predecessores marcando o temporário vivo na entrada e na
+        // saída dos blocos até chegar a quem o define; visited[b] == t evita
+        // repetir blocos do mesmo temporário
+        int[] visited = new int[cfg.blockCount()];
+        int[] stack = new int[Math.max(cfg.blockCount(), 1)];
+        boolean[] counted = new boolean[temps + 1];
+        for (int e = 0; e < exposedCount; e += 2) {
+            int t = exposed[e];
+            int b = exposed[e + 1];
+            if (!counted[t]) {
+                counted[t] = true;
+                crossBlock++;
+            }
+            if (visited[b] == t) continue;
+            visited[b] = t;
+            int top = 0;
+            stack[top++] = b;
+            while (top > 0) {
+                int block = stack[--top];
+                extend(t, 2 * cfg.blockStart(block)); // vivo na entrada
+                for (int j = 0; j < cfg.predecessorCount(block); j++) {
+                    int pred = cfg.predecessor(block, j);
+                    extend(t, 2 * (cfg.blockEnd(pred) - 1) + 1); // vivo na saída
+                    if (visited[pred] == t || defines(defBlocks, defStart[t], defStart[t + 1], pred)) continue;
+                    visited[pred] = t;
+                    stack[top++] = pred;
+                }
+            }
+        }
+    }
+
+    private static boolean defines(int[] defBlocks, int from, int to, int block) {
+        for (int d = from; d < to; d++) {
+            if (defBlocks[d] == block) return true;
+        }
+        return false;
+    }
+
+    private void extend(int t, int position) {
+        if (position < start[t]) start[t] = position;
+        if (position > end[t]) end[t] = position;
+    }
+
+    // --- Varredura linear ---
+
+    private void allocate() {
+        int temps = program.tempCount();
+        int positions = 2 * program.size();
+
+        // Temporários em ordem de início (counting sort pelas posições)
+        int[] first = new int[positions + 1];
+        for (int t = 1; t <= temps; t++) {
+            if (start[t] <= end[t]) first[start[t] + 1]++;
+        }
+        for (int p = 0; p < positions; p++) first[p + 1] += first[p];
+        int[] order = new int[first[positions]];
+        for (int t = 1; t <= temps; t++) {
+            if (start[t] <= end[t]) order[first[start[t]]++] = t;
+        }
+        totalTemps = order.length;
+
+        // Ativos num heap pelo fim do intervalo; slots livres numa pilha
+        int[] heap = new int[order.length];
+        int heapSize = 0;
+        int[] free = new int[order.length];
+        int freeCount = 0;
+        for (int t : order) {
+            while (heapSize > 0 && end[heap[0]] < start[t]) {
+                free[freeCount++] = slot[heap[0]];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, 0);
+            }
+            slot[t] = freeCount > 0 ? free[--freeCount] : ++slots;
+            int k = heapSize++;
+            while (k > 0 && end[heap[(k - 1) / 2]] > end[t]) {
+                heap[k] = heap[(k - 1) / 2];
+                k = (k - 1) / 2;
+            }
+            heap[k] = t;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, int k) {
+        int t = heap[k];
+        while (2 * k + 1 < size) {
+            int child = 2 * k + 1;
+            if (child + 1 < size && end[heap[child + 1]] < end[heap[child]]) child++;
+            if (end[heap[child]] >= end[t]) break;
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = t;
+    }
+
+    private int rename(int operand) {
+        if (operand == TACProgram.NONE || TACProgram.tag(operand) != TACProgram.TEMP) return operand;
+        return TACProgram.operand(TACProgram.TEMP, slot[TACProgram.index(operand)]);
+    }
+}
@@ -0,0 +1,25 @@
+package br.ifs.compiladores;
+
+/**
+ * Edição de texto: removedLength caracteres a partir de offset foram
+ * substituídos por insertedLength caracteres novos.
+ */
+public final class TextEdit {
+    public final int offset;
+    public final int removedLength;
+    public final int insertedLength;
+
+    public TextEdit(int offset, int removedLength, int insertedLength) {
+        if (offset < 0 || removedLength < 0 || insertedLength < 0) {
+            throw new IllegalArgumentException("Edição inválida: " + offset + ", " + removedLength + ", " + insertedLength);
+        }
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedLength = insertedLength;
+    }
+
+    // Diferença de tamanho do texto após a edição
+    int delta() {
+        return insertedLength - removedLength;
+    }
+}
@@ -0,0 +1,21 @@
+package br.ifs.compiladores;
+
+/**
+ * Resultado de uma reanálise incremental: a nova sequência de tokens e o
+ * trecho que mudou. Os tokens [start, oldEnd) da sequência antiga foram
+ * substituídos pelos tokens [start, newEnd) da nova; o restante é idêntico
+ * (a não ser pelo deslocamento de posição e linha depois do trecho).
+ */
+public final class TokenEdit {
+    public final TokenStream tokens;
+    public final int start;
+    public final int oldEnd;
+    public final int newEnd;
+
+    TokenEdit(TokenStream tokens, int start, int oldEnd, int newEnd) {
+        this.tokens = tokens;
+        this.start = start;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+    }
+}
@@ -0,0 +1,33 @@
+package br.ifs.compiladores;
+
+import java.util.List;
+
+/**
+ * Acesso por índice aos tokens consumidos pelo MiniPythonParser.
+ *
+ * O parser consulta apenas o tipo na maior parte do tempo; o Token completo
+ * só é pedido quando vai para a AST ou para uma mensagem de erro.
+ */
+interface TokenSource {
+
+    TokenType type(int index);
+
+    Token get(int index);
+
+    /** Libera recursos da origem (por exemplo, a thread do lexer) ao fim da análise. */
+    default void close() { }
+
+    static TokenSource of(List<Token> tokens) {
+        return new TokenSource() {
+            @Override
+            public TokenType type(int index) {
+                return tokens.get(index).type;
+            }
+
+            @Override
+            public Token get(int index) {
+                return tokens.get(index);
+            }
+        };
+    }
+}
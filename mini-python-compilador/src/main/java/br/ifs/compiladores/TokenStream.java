@@ -0,0 +1,445 @@
+package br.ifs.compiladores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sequência de tokens guardada em arrays primitivos paralelos (tipo, início,
+ * tamanho, linha e coluna), em vez de um objeto Token por token.
+ *
+ * A fonte é mantida junto, então lexemas e literais são criados apenas quando
+ * pedidos. Para ERROR o campo de tamanho guarda o índice da mensagem e, para
+ * INDENT, a largura da indentação empilhada.
+ *
+ * Os arrays funcionam como um gap buffer para que o IncrementalLexer possa
+ * editar a sequência no lugar: tokens depois da lacuna guardam início e linha
+ * relativos ao fim da fonte, então uma edição não precisa deslocar o resto do
+ * arquivo. A cada CHECKPOINT_INTERVAL linhas é salva uma cópia da pilha de
+ * indentação, usada para retomar a análise no meio do arquivo.
+ *
+ * Criada com lazyPositions, a sequência guarda só o offset de cada token: os
+ * arrays de linha e coluna não existem e line/column são respondidos por um
+ * LineIndex, montado na primeira consulta.
+ */
+public class TokenStream implements TokenSource {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private CharSource source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;     // null sem posições (ver lazyPositions)
+    private int[] columns;
+    private LineIndex lineIndex;
+    private int size = 0;
+    private final List<String> messages;
+
+    // Lacuna [gapStart, gapStart + gapLength) nos arrays; fica no fim enquanto a sequência é preenchida
+    private int gapStart = 0;
+    private int gapLength;
+    // Deslocamento acumulado (posição e linha) a somar nos tokens depois da lacuna
+    private int endOffset = 0;
+    private int endLine = 0;
+
+    // Checkpoints: índice do primeiro token de uma linha e a pilha de indentação nesse ponto
+    static final int CHECKPOINT_INTERVAL = 256;
+    private int[] checkpointIndex = new int[8];
+    private int[][] checkpointStack = new int[8][];
+    private int checkpoints = 0;
+    private int linesSinceCheckpoint = 0;
+
+    // Edição em andamento (ver beginEdit/endEdit)
+    private int editStart;
+    private int[] detachedIndex;
+    private int[][] detachedStack;
+
+    TokenStream(CharSource source, int capacity) {
+        this(source, capacity, true);
+    }
+
+    TokenStream(CharSource source, int capacity, boolean positions) {
+        this.source = source;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        if (positions) {
+            this.lines = new int[capacity];
+            this.columns = new int[capacity];
+        }
+        this.gapLength = capacity;
+        this.messages = new ArrayList<>();
+    }
+
+    // Sequência já montada nos arrays (ver ParallelLexer)
+    TokenStream(CharSource source, byte[] types, int[] starts, int[] lengths, int[] lines, int[] columns,
+                List<String> messages) {
+        this.source = source;
+        this.types = types;
+        this.starts = starts;
+        this.lengths = lengths;
+        this.lines = lines;
+        this.columns = columns;
+        this.size = types.length;
+        this.gapStart = size;
+        this.gapLength = 0;
+        this.messages = messages;
+    }
+
+    /** Analisa a fonte inteira, até o EOF (inclusive). */
+    public static TokenStream of(String source) {
+        return tokenize(new StringCharSource(source), Math.max(16, source.length() / 4));
+    }
+
+    /** Analisa um arquivo UTF-8 mapeado em memória (ver MiniPythonLexer(Path)). */
+    public static TokenStream of(Path path) throws IOException {
+        MiniPythonLexer lexer = new MiniPythonLexer(path);
+        return fill(lexer, new TokenStream(lexer.input(), 1024));
+    }
+
+    /**
+     * Como of(String), mas sem linha/coluna por token: o lexer não faz essa
+     * contagem e cada token ocupa menos memória. As posições são calculadas
+     * sob demanda por line/column/get.
+     */
+    public static TokenStream lazyPositions(String source) {
+        MiniPythonLexer lexer = new MiniPythonLexer(source);
+        lexer.trackPositions = false;
+        return fill(lexer, new TokenStream(lexer.input(), Math.max(16, source.length() / 4), false));
+    }
+
+    /** Como of(Path), mas sem linha/coluna por token (ver lazyPositions(String)). */
+    public static TokenStream lazyPositions(Path path) throws IOException {
+        MiniPythonLexer lexer = new MiniPythonLexer(path);
+        lexer.trackPositions = false;
+        return fill(lexer, new TokenStream(lexer.input(), 1024, false));
+    }
+
+    private static TokenStream tokenize(CharSource source, int capacity) {
+        return fill(new MiniPythonLexer(source), new TokenStream(source, capacity));
+    }
+
+    private static TokenStream fill(MiniPythonLexer lexer, TokenStream stream) {
+        TokenType type;
+        do {
+            type = lexer.scan();
+            stream.add(type, lexer);
+        } while (type != TokenType.EOF);
+        stream.trim();
+        return stream;
+    }
+
+    // Insere (no ponto de inserção atual) o token que o lexer acabou de ler
+    void add(TokenType type, MiniPythonLexer lexer) {
+        int length = lexer.tokenEnd - lexer.tokenStart;
+        if (type == TokenType.ERROR) {
+            length = messages.size();
+            messages.add(lexer.tokenMessage);
+        } else if (type == TokenType.INDENT) {
+            length = lexer.indentWidth();
+        }
+        add(type, lexer.tokenStart, length, lexer.tokenLine, lexer.tokenColumn);
+
+        if (type == TokenType.NEWLINE && ++linesSinceCheckpoint == CHECKPOINT_INTERVAL) {
+            addCheckpoint(gapStart, lexer.indentSnapshot());
+        }
+    }
+
+    void add(TokenType type, int start, int length, int line, int column) {
+        ensureGap(1);
+        int p = gapStart;
+        types[p] = (byte) type.ordinal();
+        starts[p] = start;
+        lengths[p] = length;
+        if (lines != null) {
+            lines[p] = line;
+            columns[p] = column;
+        }
+        gapStart++;
+        gapLength--;
+        size++;
+    }
+
+    void addCheckpoint(int index, int[] stack) {
+        if (checkpoints == checkpointIndex.length) {
+            checkpointIndex = Arrays.copyOf(checkpointIndex, checkpoints * 2);
+            checkpointStack = Arrays.copyOf(checkpointStack, checkpoints * 2);
+        }
+        checkpointIndex[checkpoints] = index;
+        checkpointStack[checkpoints] = stack;
+        checkpoints++;
+        linesSinceCheckpoint = 0;
+    }
+
+    private void ensureGap(int needed) {
+        if (gapLength >= needed) return;
+
+        int capacity = types.length;
+        int after = capacity - gapStart - gapLength;
+        // Crescimento geométrico ao preencher; folga menor para edições no meio
+        int extra = after == 0 ? Math.max(needed, (capacity >> 1) + 16) : Math.max(needed, 4096 + (capacity >> 6));
+        int newCapacity = capacity + extra;
+
+        byte[] newTypes = new byte[newCapacity];
+        int[] newStarts = new int[newCapacity];
+        int[] newLengths = new int[newCapacity];
+        copyAroundGap(types, newTypes, capacity, newCapacity, after);
+        copyAroundGap(starts, newStarts, capacity, newCapacity, after);
+        copyAroundGap(lengths, newLengths, capacity, newCapacity, after);
+        types = newTypes;
+        starts = newStarts;
+        lengths = newLengths;
+        if (lines != null) {
+            int[] newLines = new int[newCapacity];
+            int[] newColumns = new int[newCapacity];
+            copyAroundGap(lines, newLines, capacity, newCapacity, after);
+            copyAroundGap(columns, newColumns, capacity, newCapacity, after);
+            lines = newLines;
+            columns = newColumns;
+        }
+        gapLength += extra;
+    }
+
+    // Copia o trecho antes da lacuna para o início e os 'after' tokens seguintes para o fim do novo array
+    private void copyAroundGap(Object from, Object to, int capacity, int newCapacity, int after) {
+        System.arraycopy(from, 0, to, 0, gapStart);
+        System.arraycopy(from, capacity - after, to, newCapacity - after, after);
+    }
+
+    // Remove a folga que sobrou no fim após o preenchimento
+    void trim() {
+        moveGap(size);
+        types = Arrays.copyOf(types, size);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        if (lines != null) {
+            lines = Arrays.copyOf(lines, size);
+            columns = Arrays.copyOf(columns, size);
+        }
+        gapLength = 0;
+    }
+
+    // Move a lacuna para antes do token index, convertendo as posições que mudam de lado
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            int to = index + gapLength;
+            shift(index, to, count, -endOffset, -endLine);
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            int from = gapStart + gapLength;
+            shift(from, gapStart, count, endOffset, endLine);
+        }
+        gapStart = index;
+    }
+
+    private void shift(int from, int to, int count, int offsetDelta, int lineDelta) {
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(lengths, from, lengths, to, count);
+        System.arraycopy(columns, from, columns, to, count);
+        System.arraycopy(starts, from, starts, to, count);
+        System.arraycopy(lines, from, lines, to, count);
+        for (int i = to; i < to + count; i++) {
+            starts[i] += offsetDelta;
+            lines[i] += lineDelta;
+        }
+    }
+
+    private int physical(int index) {
+        return index < gapStart ? index : index + gapLength;
+    }
+
+    // --- Consulta ---
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return TYPES[types[physical(index)]];
+    }
+
+    public int start(int index) {
+        return index < gapStart ? starts[index] : starts[index + gapLength] + endOffset;
+    }
+
+    public int line(int index) {
+        if (lines == null) return lineIndex().line(start(index));
+        return index < gapStart ? lines[index] : lines[index + gapLength] + endLine;
+    }
+
+    public int column(int index) {
+        if (columns == null) {
+            // NEWLINE e os tokens do fim da fonte (DEDENTs finais e EOF) ficam na coluna 0, como no lexer
+            int start = start(index);
+            if (type(index) == TokenType.NEWLINE || !source.has(start)) return 0;
+            return lineIndex().column(start);
+        }
+        return columns[physical(index)];
+    }
+
+    /** Indica se linha e coluna de cada token estão guardadas (false para lazyPositions). */
+    public boolean hasPositions() {
+        return lines != null;
+    }
+
+    private LineIndex lineIndex() {
+        if (lineIndex == null) lineIndex = LineIndex.of(source);
+        return lineIndex;
+    }
+
+    public String lexeme(int index) {
+        TokenType type = type(index);
+        if (type == TokenType.ERROR) return messages.get(rawLength(index));
+        int start = start(index);
+        return MiniPythonLexer.lexeme(source, type, start, start + rawLength(index));
+    }
+
+    public Object literal(int index) {
+        int start = start(index);
+        return MiniPythonLexer.literal(source, type(index), start, start + rawLength(index));
+    }
+
+    /** Cria o objeto Token equivalente ao que nextToken() teria retornado. */
+    @Override
+    public Token get(int index) {
+        return new Token(type(index), lexeme(index), literal(index), line(index), column(index));
+    }
+
+    // --- Suporte à análise incremental ---
+
+    CharSource source() {
+        return source;
+    }
+
+    // Tamanho bruto: largura para INDENT, índice da mensagem para ERROR
+    int rawLength(int index) {
+        return lengths[physical(index)];
+    }
+
+    // Primeiro checkpoint com índice >= index
+    private int checkpointAfter(int index) {
+        int low = 0;
+        int high = checkpoints;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (checkpointIndex[mid] < index) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Pilha de indentação no início da linha que começa no token index.
+     * Parte do checkpoint mais próximo e reaplica os INDENT/DEDENT seguintes.
+     */
+    IndentStack indentStackAt(int index) {
+        int c = checkpointAfter(index + 1) - 1;
+        IndentStack stack;
+        int from;
+        if (c >= 0) {
+            stack = new IndentStack(checkpointStack[c]);
+            from = checkpointIndex[c];
+        } else {
+            stack = new IndentStack(new int[] { 0 });
+            from = 0;
+        }
+        for (int i = from; i < index; i++) stack.apply(type(i), rawLength(i));
+        return stack;
+    }
+
+    /**
+     * Inicia uma edição: novos tokens passam a ser inseridos antes do token
+     * index e os tokens antigos a partir dele ficam logo depois da lacuna,
+     * acessíveis por oldIndex(), até endEdit() decidir quantos remover.
+     */
+    void beginEdit(int index) {
+        moveGap(index);
+        editStart = index;
+        int c = checkpointAfter(index + 1);
+        detachedIndex = Arrays.copyOfRange(checkpointIndex, c, checkpoints);
+        detachedStack = Arrays.copyOfRange(checkpointStack, c, checkpoints);
+        checkpoints = c;
+        linesSinceCheckpoint = 0;
+    }
+
+    // Índice atual do token que era o old-ésimo antes da edição (old >= início da edição)
+    int oldIndex(int old) {
+        return gapStart + (old - editStart);
+    }
+
+    // Quantidade de tokens inseridos desde beginEdit
+    int inserted() {
+        return gapStart - editStart;
+    }
+
+    /**
+     * Conclui a edição removendo os tokens antigos [início, oldEnd) e
+     * deslocando os seguintes em offsetDelta caracteres e lineDelta linhas.
+     */
+    void endEdit(CharSource newSource, int oldEnd, int offsetDelta, int lineDelta) {
+        int removed = oldEnd - editStart;
+        gapLength += removed;
+        size -= removed;
+        source = newSource;
+
+        if (gapStart == size) {
+            // Nada restou depois da lacuna: o último token inserido é o EOF
+            endOffset = start(size - 1);
+            endLine = line(size - 1);
+        } else {
+            endOffset += offsetDelta;
+            endLine += lineDelta;
+        }
+
+        int indexDelta = inserted() - removed;
+        for (int c = 0; c < detachedIndex.length; c++) {
+            if (detachedIndex[c] >= oldEnd) addCheckpoint(detachedIndex[c] + indexDelta, detachedStack[c]);
+        }
+        detachedIndex = null;
+        detachedStack = null;
+    }
+
+    /** Pilha de indentação leve, reconstruída a partir dos tokens. */
+    static final class IndentStack {
+        private int[] values;
+        private int size;
+
+        IndentStack(int[] values) {
+            this.values = Arrays.copyOf(values, Math.max(4, values.length));
+            this.size = values.length;
+        }
+
+        void apply(TokenType type, int width) {
+            if (type == TokenType.INDENT) {
+                push(width);
+            } else if (type == TokenType.DEDENT) {
+                pop();
+            }
+        }
+
+        void push(int width) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = width;
+        }
+
+        void pop() {
+            size--;
+        }
+
+        int peek() {
+            return values[size - 1];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
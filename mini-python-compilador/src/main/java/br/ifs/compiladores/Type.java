@@ -0,0 +1,32 @@
+package br.ifs.compiladores;
+
+/**
+ * Tipos estáticos do Mini-Python. O nome de cada constante é o que aparece
+ * nas mensagens de erro ("Comparação incompatível entre INT e STRING").
+ *
+ * Formam um reticulado de altura 2: null (nenhum valor: variável que nenhum
+ * caminho define) abaixo de INT, FLOAT, STRING e BOOLEAN, que são
+ * incomparáveis entre si, e UNKNOWN (pode ser mais de um tipo) acima de todos.
+ * O tipo só descreve os caminhos em que a variável está definida; se ela está
+ * definida em todos é acompanhado à parte (ver MiniPythonSemantic).
+ */
+public enum Type {
+    INT, FLOAT, STRING, BOOLEAN, UNKNOWN;
+
+    boolean isNumber() {
+        return this == INT || this == FLOAT;
+    }
+
+    // Menor tipo que cobre a e b (null é o elemento neutro: um caminho sem a
+    // variável não acrescenta tipo, mas a deixa possivelmente indefinida)
+    static Type join(Type a, Type b) {
+        if (a == b || b == null) return a;
+        if (a == null) return b;
+        return UNKNOWN;
+    }
+
+    // t, se for um único tipo conhecido; senão null
+    static Type concrete(Type t) {
+        return t == UNKNOWN ? null : t;
+    }
+}
@@ -0,0 +1,73 @@
+package br.ifs.compiladores;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ByteScanner sobre a Vector API: cada iteração compara um vetor inteiro de
+ * bytes (16 a 64, conforme a CPU) e o resto do trecho fica com a versão
+ * escalar. Só é instanciada por ByteScanner.load().
+ */
+final class VectorByteScanner extends ByteScanner {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int WIDTH = SPECIES.length();
+
+    VectorByteScanner() {
+        // Vetores menores que isso não compensam o custo de carregar e comparar
+        if (WIDTH < 16) throw new UnsupportedOperationException("Vetores de " + WIDTH + " bytes");
+    }
+
+    private static ByteVector load(ByteBuffer bytes, int index) {
+        return ByteVector.fromByteBuffer(SPECIES, bytes, index, ByteOrder.nativeOrder());
+    }
+
+    @Override
+    int indexOf(ByteBuffer bytes, byte target, int from, int to) {
+        int i = from;
+        for (; i <= to - WIDTH; i += WIDTH) {
+            VectorMask<Byte> found = load(bytes, i).eq(target);
+            if (found.anyTrue()) return i + found.firstTrue();
+        }
+        return super.indexOf(bytes, target, i, to);
+    }
+
+    @Override
+    int skipBlanks(ByteBuffer bytes, int from, int to) {
+        int i = from;
+        for (; i <= to - WIDTH; i += WIDTH) {
+            ByteVector v = load(bytes, i);
+            VectorMask<Byte> other = v.compare(VectorOperators.NE, (byte) ' ')
+                    .and(v.compare(VectorOperators.NE, (byte) '\t'));
+            if (other.anyTrue()) return i + other.firstTrue();
+        }
+        return super.skipBlanks(bytes, i, to);
+    }
+
+    @Override
+    int count(ByteBuffer bytes, byte target, int from, int to) {
+        int count = 0;
+        int i = from;
+        for (; i <= to - WIDTH; i += WIDTH) {
+            count += load(bytes, i).eq(target).trueCount();
+        }
+        return count + super.count(bytes, target, i, to);
+    }
+
+    @Override
+    int charCount(ByteBuffer bytes, int from, int to) {
+        int count = 0;
+        int i = from;
+        for (; i <= to - WIDTH; i += WIDTH) {
+            ByteVector v = load(bytes, i);
+            // Com sinal: continuação é 0x80..0xBF (-128..-65) e 0xF0..0xFF é -16..-1
+            count += v.compare(VectorOperators.GE, (byte) -64).trueCount();
+            count += v.compare(VectorOperators.GE, (byte) -16).and(v.compare(VectorOperators.LT, (byte) 0)).trueCount();
+        }
+        return count + super.charCount(bytes, i, to);
+    }
+}
@@ -1,7 +1,22 @@
 package br.ifs.compiladores;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 class MiniPythonLexerTest {
 
@@ -15,6 +30,234 @@ class MiniPythonLexerTest {
         assertEquals(TokenType.EOF, lexer.nextToken().type);
     }
 
+    // Helper que coleta a representação textual de todos os tokens (tipo, lexema, literal, linha e coluna)
+    private List<String> dump(MiniPythonLexer lexer) {
+        List<String> out = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            out.add(token.toString());
+        } while (token.type != TokenType.EOF);
+        return out;
+    }
+
+    private static final String SAMPLE =
+        "# comentario inicial\n" +
+        "x = 10\n" +
+        "while x > 0:\n" +
+        "        y = x * 2.5   # comentario\n" +
+        "\n" +
+        "        if y >= 3:\n" +
+        "            print(\"linha\nquebrada\")\n" +
+        "        x = x - 1\n" +
+        "print('fim')\n";
+
+    @Test
+    void testStreamingReaderMatchesStringLexer() {
+        List<String> expected = dump(new MiniPythonLexer(SAMPLE));
+        // Buffer minúsculo força recargas e crescimento no meio de tokens e indentações
+        for (int size : new int[] { 1, 3, 7, 64 }) {
+            assertEquals(expected, dump(new MiniPythonLexer(new StringReader(SAMPLE), size)), "buffer " + size);
+        }
+    }
+
+    @Test
+    void testStreamingChannelDecodesUtf8() {
+        String code = "msg = \"ação\"\nprint(msg)\n";
+        byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+        MiniPythonLexer lexer = new MiniPythonLexer(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertEquals(dump(new MiniPythonLexer(code)), dump(lexer));
+    }
+
+    @Test
+    void testMappedFileMatchesStringLexer(@TempDir Path dir) throws IOException {
+        // Caracteres multibyte em strings, comentários e fora de literais não podem deslocar as colunas
+        String code = SAMPLE + "s = \"ação\" + 'é' # comentário ç\nz = s é 1\n";
+        Path file = dir.resolve("fonte.py");
+        Files.write(file, code.getBytes(StandardCharsets.UTF_8));
+        assertEquals(dump(new MiniPythonLexer(code)), dump(new MiniPythonLexer(file)));
+    }
+
+    @Test
+    void testVectorScannerMatchesScalar() {
+        assumeTrue(ByteScanner.INSTANCE.getClass() != ByteScanner.class, "Vector API indisponível (mvn -Pvector)");
+        ByteScanner scalar = new ByteScanner();
+        ByteScanner vector = ByteScanner.INSTANCE;
+        byte[] alphabet = " \t\n#\"'xé😀".getBytes(StandardCharsets.UTF_8);
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(300)];
+            // Trechos longos de um mesmo byte, como indentação e comentários
+            for (int i = 0; i < data.length; ) {
+                byte b = alphabet[random.nextInt(alphabet.length)];
+                for (int run = random.nextInt(70); run > 0 && i < data.length; run--) data[i++] = b;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(data);
+            int from = data.length == 0 ? 0 : random.nextInt(data.length);
+            int to = data.length;
+            for (char c : new char[] { '\n', '"', '\'', '\t' }) {
+                assertEquals(scalar.indexOf(bytes, (byte) c, from, to), vector.indexOf(bytes, (byte) c, from, to));
+                assertEquals(scalar.count(bytes, (byte) c, from, to), vector.count(bytes, (byte) c, from, to));
+            }
+            assertEquals(scalar.skipBlanks(bytes, from, to), vector.skipBlanks(bytes, from, to));
+            assertEquals(scalar.charCount(bytes, from, to), vector.charCount(bytes, from, to));
+        }
+    }
+
+    @Test
+    void testMappedSourceWithLongRunsMatchesStringLexer() {
+        String code = ("# " + "comentário ".repeat(20) + "\n"
+                + "if a:\n" + " ".repeat(40) + "x = \"" + "ç\n".repeat(30) + "\" # fim\n"
+                + "\t\t  \tif b:\n" + "\t".repeat(12) + "y = 'z'\n").repeat(20);
+        byte[] data = code.getBytes(StandardCharsets.UTF_8);
+        for (ByteScanner scanner : new ByteScanner[] { new ByteScanner(), ByteScanner.INSTANCE }) {
+            MiniPythonLexer mapped = new MiniPythonLexer(new MappedCharSource(ByteBuffer.wrap(data), scanner));
+            assertEquals(dump(new MiniPythonLexer(code)), dump(mapped), scanner.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testTokenStreamMatchesLexer() {
+        String code = SAMPLE + "erro = 1 $ 2\n";
+        TokenStream stream = TokenStream.of(code);
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < stream.size(); i++) {
+            actual.add(stream.get(i).toString());
+        }
+        assertEquals(dump(new MiniPythonLexer(code)), actual);
+    }
+
+    @Test
+    void testLongPaddingDoesNotOverflowStack() {
+        // Centenas de milhares de espaços entre tokens não podem estourar a pilha
+        String padding = " \t\r".repeat(100_000);
+        String code = "x =" + padding + "1" + padding + "# comentario\n" + "print(x)" + padding + "\n";
+        assertTokens(code,
+            TokenType.IDENTIFIER, TokenType.ASSIGN, TokenType.INTEGER_LITERAL, TokenType.NEWLINE,
+            TokenType.PRINT, TokenType.LPAREN, TokenType.IDENTIFIER, TokenType.RPAREN, TokenType.NEWLINE
+        );
+    }
+
+    @Test
+    void testKeywordsAndLookalikeIdentifiers() {
+        String code = "if else while print and or not input int float True False ifx iff i true Else whilee";
+        assertTokens(code,
+            TokenType.IF, TokenType.ELSE, TokenType.WHILE, TokenType.PRINT, TokenType.AND, TokenType.OR,
+            TokenType.NOT, TokenType.INPUT, TokenType.INT, TokenType.FLOAT, TokenType.TRUE, TokenType.FALSE,
+            TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER, TokenType.IDENTIFIER,
+            TokenType.IDENTIFIER, TokenType.IDENTIFIER
+        );
+    }
+
+    private List<String> dump(TokenStream stream) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < stream.size(); i++) {
+            out.add(stream.get(i).toString());
+        }
+        return out;
+    }
+
+    @Test
+    void testLazyPositionsMatchEagerPositions(@TempDir Path dir) throws IOException {
+        String code = SAMPLE + "  z = 1\nerro = 1 $ 2 !\ns = \"ação\nç\" + 'é' # comentário ç\n"
+                + "if s:\n\tt = \"não fecha\n";
+        assertEquals(dump(TokenStream.of(code)), dump(TokenStream.lazyPositions(code)));
+
+        Path file = dir.resolve("lazy.py");
+        Files.write(file, code.getBytes(StandardCharsets.UTF_8));
+        assertEquals(dump(TokenStream.of(code)), dump(TokenStream.lazyPositions(file)));
+    }
+
+    @Test
+    void testPositionsAfterMultilineString() {
+        // A string fica na linha da aspa de abertura; o token seguinte conta a coluna na última linha
+        TokenStream tokens = TokenStream.of("x = \"a\nbc\" + y\n");
+        assertEquals(TokenType.STRING_LITERAL, tokens.type(2));
+        assertEquals(1, tokens.line(2));
+        assertEquals(5, tokens.column(2));
+        assertEquals(TokenType.PLUS, tokens.type(3));
+        assertEquals(2, tokens.line(3));
+        assertEquals(5, tokens.column(3));
+    }
+
+    @Test
+    void testIncrementalRelexMatchesFullLex() {
+        String[] inserts = { "x", " ", "    ", "\n", "\"", "'", "#", ":\n    y = 1\n", "$", "\t", "1.5", "!" };
+        Random random = new Random(42);
+        String source = SAMPLE.repeat(60); // Mais de um checkpoint de indentação
+        TokenStream tokens = TokenStream.of(source);
+
+        // Edições encadeadas: cada resultado serve de base para a próxima
+        for (int i = 0; i < 300; i++) {
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(4, source.length() - offset) + 1);
+            String inserted = random.nextBoolean() ? inserts[random.nextInt(inserts.length)] : "";
+            String edited = source.substring(0, offset) + inserted + source.substring(offset + removed);
+
+            TokenEdit edit = IncrementalLexer.relex(tokens, edited, new TextEdit(offset, removed, inserted.length()));
+            TokenStream expected = TokenStream.of(edited);
+            assertEquals(dump(expected), dump(edit.tokens), "edição " + i);
+            assertTrue(edit.start <= edit.newEnd && edit.start <= edit.oldEnd);
+
+            source = edited;
+            tokens = edit.tokens;
+        }
+    }
+
+    @Test
+    void testIncrementalRelexStopsAfterEditedLine() {
+        String source = "x = 1\n" + "while x < 10:\n    x = x + 1\n".repeat(1000);
+        TokenStream tokens = TokenStream.of(source);
+        int offset = source.indexOf("1\n");
+        String edited = source.substring(0, offset) + "25" + source.substring(offset + 1);
+
+        TokenEdit edit = IncrementalLexer.relex(tokens, edited, new TextEdit(offset, 1, 2));
+        // Apenas o literal mudou
+        assertEquals(2, edit.start);
+        assertEquals(3, edit.oldEnd);
+        assertEquals(3, edit.newEnd);
+        assertEquals(25, edit.tokens.literal(2));
+        assertEquals(dump(TokenStream.of(edited)), dump(edit.tokens));
+    }
+
+    @Test
+    void testParallelLexMatchesSequentialLex() {
+        String[] inserts = { "\"", "'", "#", "\n", "    ", "  ", "$", "if a:\n" };
+        Random random = new Random(7);
+        String source = SAMPLE.repeat(40) + "  x = 1\n" + SAMPLE.repeat(40);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 40; i++) {
+                // Blocos pequenos: muitos cortes, inclusive dentro de strings e comentários
+                int chunkSize = 1 + random.nextInt(200);
+                TokenStream parallel = ParallelLexer.tokenize(source, pool, chunkSize);
+                assertEquals(dump(TokenStream.of(source)), dump(parallel), "fonte " + i + ", bloco " + chunkSize);
+
+                // A sequência montada em paralelo continua editável
+                int offset = random.nextInt(source.length());
+                String edited = source.substring(0, offset) + inserts[random.nextInt(inserts.length)]
+                        + source.substring(offset);
+                TokenEdit edit = IncrementalLexer.relex(parallel, edited,
+                        new TextEdit(offset, 0, edited.length() - source.length()));
+                assertEquals(dump(TokenStream.of(edited)), dump(edit.tokens), "edição " + i);
+                source = edited;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testTrailingBlankLineAtEndOfInput() {
+        String code = "if a:\n    x = 1\n    ";
+        assertTokens(code,
+            TokenType.IF, TokenType.IDENTIFIER, TokenType.COLON, TokenType.NEWLINE,
+            TokenType.INDENT,
+                TokenType.IDENTIFIER, TokenType.ASSIGN, TokenType.INTEGER_LITERAL, TokenType.NEWLINE,
+            TokenType.DEDENT
+        );
+    }
+
     @Test
     void testIndentationIfElse() {
         // Exemplo 3
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 class MiniPythonParserTest {
 
@@ -53,6 +54,335 @@ class MiniPythonParserTest {
         assertTrue(exception.getMessage().contains("Esperado ':'"));
     }
 
+    // Representação com parênteses explícitos de uma expressão
+    private String render(Expr expr) {
+        if (expr instanceof BinaryExpr) {
+            BinaryExpr b = (BinaryExpr) expr;
+            return "(" + render(b.left) + " " + b.operator.lexeme + " " + render(b.right) + ")";
+        }
+        if (expr instanceof UnaryExpr) {
+            UnaryExpr u = (UnaryExpr) expr;
+            return "(" + u.operator.lexeme + " " + render(u.right) + ")";
+        }
+        if (expr instanceof VariableExpr) return ((VariableExpr) expr).name.lexeme;
+        if (expr instanceof CallExpr) {
+            CallExpr c = (CallExpr) expr;
+            return c.callee.lexeme + "(" + (c.arguments.isEmpty() ? "" : render(c.arguments.get(0))) + ")";
+        }
+        return String.valueOf(((LiteralExpr) expr).value);
+    }
+
+    @Test
+    void testOperatorPrecedenceAndAssociativity() {
+        String code =
+            "x = a or b and not c == -d + e * f / g - h < i\n" +
+            "y = a - b - c / d / e >= int(input()) != - - f\n" +
+            "z = (a or b) * -(c + 1.5)\n";
+        List<Stmt> stmts = parse(code);
+
+        assertEquals("(a or (b and ((not c) == ((((- d) + ((e * f) / g)) - h) < i))))",
+            render(((AssignStmt) stmts.get(0)).value));
+        assertEquals("((((a - b) - ((c / d) / e)) >= int(input())) != (- (- f)))",
+            render(((AssignStmt) stmts.get(1)).value));
+        assertEquals("((a or b) * (- (c + 1.5)))", render(((AssignStmt) stmts.get(2)).value));
+    }
+
+    @Test
+    void testConcurrentLexerReportsSyntaxError() {
+        String code = "x = 1\n".repeat(5000) + "if x > 10\n    print(x)\n" + "y = 2\n".repeat(5000);
+        MiniPythonParser parser = new MiniPythonParser(new MiniPythonLexer(code), true);
+
+        Exception exception = assertThrows(RuntimeException.class, parser::parse);
+        assertEquals("Erro Sintático na linha 5001: Esperado ':' após a condição.", exception.getMessage());
+    }
+
+    private List<Stmt> parse(String source, boolean explicitStack) {
+        MiniPythonParser parser = new MiniPythonParser(new MiniPythonLexer(source));
+        parser.setExplicitStack(explicitStack);
+        return parser.parse();
+    }
+
+    @Test
+    void testExplicitStackMatchesRecursiveParser() {
+        String code =
+            "x = a or b and not c == -d + e * f / g - h < i\n" +
+            "y = ((a - b) - int(input())) / float(\"2.5\")\n" +
+            "\n" +
+            "while x > 0:\n" +
+            "    if not y:\n" +
+            "        print(- -x)\n" +
+            "\n" +
+            "    else:\n" +
+            "        while y:\n" +
+            "            y = y - 1\n" +
+            "    x = x - 1\n" +
+            "if x:\n" +
+            "    print(\"fim\")\n";
+        assertEquals(shape(parse(code, false)), shape(parse(code, true)));
+
+        String[] invalid = {
+            "if x > 10\n    print(x)\n",
+            "x = (a + b\n",
+            "x = int(a\n",
+            "x = a +\n",
+            "while x:\nprint(x)\n",
+            "if x:\n    y = 1\nelse\n    y = 2\n",
+            "print x\n",
+            "x = 1 2\n",
+        };
+        for (String source : invalid) {
+            RuntimeException recursive = assertThrows(RuntimeException.class, () -> parse(source, false));
+            RuntimeException explicit = assertThrows(RuntimeException.class, () -> parse(source, true));
+            assertEquals(recursive.getMessage(), explicit.getMessage(), source);
+        }
+    }
+
+    @Test
+    void testExplicitStackHandlesDeepNesting() throws Exception {
+        int depth = 100_000;
+        String unary = "x = " + "- ".repeat(depth) + "1\n";
+        String parens = "x = " + "(".repeat(depth) + "a" + ")".repeat(depth) + "\n";
+        StringBuilder blocks = new StringBuilder();
+        for (int i = 0; i < 1000; i++) blocks.append(" ".repeat(i)).append("if x:\n");
+        blocks.append(" ".repeat(1000)).append("print(x)\n");
+
+        // Pilha de thread pequena: o modo recursivo estoura, o explícito não
+        List<Object> results = new ArrayList<>();
+        Thread thread = new Thread(null, () -> {
+            results.add(assertThrows(StackOverflowError.class, () -> parse(parens, false)));
+            results.add(parse(unary, true));
+            results.add(parse(parens, true));
+            results.add(parse(blocks.toString(), true));
+            // parseToArena converte cada comando sem recursão também
+            for (String source : new String[] { unary, parens, blocks.toString() }) {
+                MiniPythonParser parser = new MiniPythonParser(new MiniPythonLexer(source));
+                parser.setExplicitStack(true);
+                results.add(parser.parseToArena());
+            }
+        }, "deep-parse", 256 * 1024);
+        thread.start();
+        thread.join();
+        assertEquals(7, results.size());
+        assertEquals(depth + 2, ((AstArena) results.get(4)).size());    // literal, depth unários, atribuição
+        assertEquals(2, ((AstArena) results.get(5)).size());            // variável e atribuição
+        assertEquals(3 * 1000 + 2, ((AstArena) results.get(6)).size()); // variável, bloco e if por nível; print(x)
+        AstArena arena = (AstArena) results.get(6);
+        int node = arena.root(0);
+        int arenaDepth = 0;
+        while (arena.kind(node) == AstArena.Kind.IF) {
+            node = arena.child(arena.thenBranch(node), 0);
+            arenaDepth++;
+        }
+        assertEquals(1000, arenaDepth);
+
+        @SuppressWarnings("unchecked")
+        Expr expr = ((AssignStmt) ((List<Stmt>) results.get(1)).get(0)).value;
+        int unaryDepth = 0;
+        while (expr instanceof UnaryExpr) {
+            expr = ((UnaryExpr) expr).right;
+            unaryDepth++;
+        }
+        assertEquals(depth, unaryDepth);
+
+        @SuppressWarnings("unchecked")
+        Expr grouped = ((AssignStmt) ((List<Stmt>) results.get(2)).get(0)).value;
+        assertEquals("a", render(grouped));
+
+        @SuppressWarnings("unchecked")
+        Stmt stmt = ((List<Stmt>) results.get(3)).get(0);
+        int ifDepth = 0;
+        while (stmt instanceof IfStmt) {
+            stmt = ((BlockStmt) ((IfStmt) stmt).thenBranch).statements.get(0);
+            ifDepth++;
+        }
+        assertEquals(1000, ifDepth);
+        assertTrue(stmt instanceof PrintStmt);
+    }
+
+    // TAC e largura de cada comando: o que a reanálise incremental precisa reproduzir
+    private String shape(List<Stmt> statements) {
+        StringBuilder widths = new StringBuilder();
+        List<Stmt> pending = new ArrayList<>(statements);
+        while (!pending.isEmpty()) {
+            Stmt stmt = pending.remove(pending.size() - 1);
+            widths.append(stmt.width).append(' ');
+            if (stmt instanceof BlockStmt) pending.addAll(((BlockStmt) stmt).statements);
+            if (stmt instanceof WhileStmt) pending.add(((WhileStmt) stmt).body);
+            if (stmt instanceof IfStmt) {
+                IfStmt s = (IfStmt) stmt;
+                pending.add(s.thenBranch);
+                if (s.elseBranch != null) pending.add(s.elseBranch);
+            }
+        }
+        return new MiniPythonTACGenerator().generate(statements) + "\n" + widths;
+    }
+
+    @Test
+    void testIncrementalReparseMatchesFullParse() {
+        String base =
+            "x = 1\n" +
+            "while x < 10:\n" +
+            "    if x > 5:\n" +
+            "        print(x)\n" +
+            "    else:\n" +
+            "        y = x * 2\n" +
+            "\n" +
+            "    x = x + 1\n" +
+            "if x:\n" +
+            "    print(\"fim\")\n";
+        String[] lines = { "y = y + 1", "", "while y:", "if y:", "else:", "print(-y)", "y = (1 +" };
+        Random random = new Random(7);
+        String source = base.repeat(20);
+        TokenStream tokens = TokenStream.of(source);
+        List<Stmt> ast = new MiniPythonParser(tokens).parse();
+
+        int valid = 0;
+        for (int i = 0; i < 400; i++) {
+            // Troca, insere ou remove uma linha inteira, mantendo a indentação de uma linha existente
+            String[] current = source.split("\n", -1);
+            int line = random.nextInt(current.length - 1);
+            int offset = 0;
+            for (int l = 0; l < line; l++) offset += current[l].length() + 1;
+            String indent = current[line].substring(0, current[line].length() - current[line].stripLeading().length());
+            String inserted = indent + lines[random.nextInt(lines.length)] + "\n";
+            if (inserted.endsWith(":\n")) inserted += indent + "    z = 0\n";
+            int op = random.nextInt(3);
+            int removed = op == 0 ? 0 : current[line].length() + 1;
+            if (op == 2) inserted = "";
+            String edited = source.substring(0, offset) + inserted + source.substring(offset + removed);
+
+            TokenEdit edit = IncrementalLexer.relex(tokens, edited, new TextEdit(offset, removed, inserted.length()));
+            String expected;
+            try {
+                expected = shape(new MiniPythonParser(TokenStream.of(edited)).parse());
+            } catch (RuntimeException e) {
+                List<Stmt> previous = ast;
+                RuntimeException incremental = assertThrows(RuntimeException.class, () -> IncrementalParser.reparse(previous, edit));
+                assertEquals(e.getMessage(), incremental.getMessage(), "edição " + i);
+                // Desfaz a edição para continuar de uma versão válida
+                tokens = IncrementalLexer.relex(edit.tokens, source, new TextEdit(offset, inserted.length(), removed)).tokens;
+                continue;
+            }
+            List<Stmt> reparsed = IncrementalParser.reparse(ast, edit);
+            assertEquals(expected, shape(reparsed), "edição " + i);
+
+            valid++;
+            source = edited;
+            tokens = edit.tokens;
+            ast = reparsed;
+        }
+        assertTrue(valid > 100);
+    }
+
+    @Test
+    void testIncrementalReparseReusesUnchangedStatements() {
+        String loop = "while x < 10:\n    y = 1\n    z = 2\n    x = x + 1\n";
+        String source = "x = 0\n" + loop.repeat(1000);
+        TokenStream tokens = TokenStream.of(source);
+        List<Stmt> before = new MiniPythonParser(tokens).parse();
+        SymbolTable symbols = SymbolTable.of(before);
+        int beforeBlocks = before.size();
+
+        // Edita "z = 2" do 500º laço
+        int offset = source.length() - loop.length() * 500 + loop.indexOf("2");
+        String edited = source.substring(0, offset) + "3 * z" + source.substring(offset + 1);
+        List<Stmt> after = IncrementalParser.reparse(before,
+            IncrementalLexer.relex(tokens, edited, new TextEdit(offset, 1, 5)));
+
+        assertEquals(beforeBlocks, after.size());
+        for (int i = 0; i < after.size(); i++) {
+            if (i == 501) continue;
+            assertSame(before.get(i), after.get(i));
+        }
+        List<Stmt> oldBody = ((BlockStmt) ((WhileStmt) before.get(501)).body).statements;
+        List<Stmt> newBody = ((BlockStmt) ((WhileStmt) after.get(501)).body).statements;
+        assertSame(oldBody.get(0), newBody.get(0));
+        assertNotSame(oldBody.get(1), newBody.get(1));
+        assertSame(oldBody.get(2), newBody.get(2));
+        assertEquals("(3 * z)", render(((AssignStmt) newBody.get(1)).value));
+
+        // A AST anterior já estava resolvida: os nós novos entram na mesma
+        // tabela, junto com os reaproveitados
+        assertSame(symbols, SymbolTable.of(after));
+        assertEquals(((AssignStmt) oldBody.get(1)).slot,
+            ((VariableExpr) ((BinaryExpr) ((AssignStmt) newBody.get(1)).value).right).slot);
+        new MiniPythonSemantic().analyze(after);
+    }
+
+    @Test
+    void testIncrementalReparsePositionsComeFromTokens() {
+        String source = "a = 1\n\nwhile a < 3:\n    a = a + 1\nb = 2\nc = a + b\n";
+        TokenStream tokens = TokenStream.of(source);
+        List<Stmt> ast = new MiniPythonParser(tokens).parse();
+
+        // Duas edições seguidas que acrescentam linhas acima dos comandos reaproveitados
+        for (String line : new String[] { "x = 0\n", "y = 0\nz = 0\n" }) {
+            source = line + source;
+            TokenEdit edit = IncrementalLexer.relex(tokens, source, new TextEdit(0, 0, line.length()));
+            tokens = edit.tokens;
+            ast = IncrementalParser.reparse(ast, edit);
+        }
+
+        List<Stmt> fresh = new MiniPythonParser(TokenStream.of(source)).parse();
+        assertEquals(fresh.size(), ast.size());
+        for (int i = 0; i < ast.size(); i++) {
+            int first = IncrementalParser.firstToken(ast, tokens, i);
+            if (fresh.get(i) instanceof AssignStmt) {
+                Token name = ((AssignStmt) fresh.get(i)).name;
+                assertEquals(name.line + ":" + name.column, tokens.line(first) + ":" + tokens.column(first), "comando " + i);
+            } else {
+                assertEquals(TokenType.WHILE, tokens.type(first));
+                assertEquals(6, tokens.line(first));
+            }
+        }
+        // O Token do nó reaproveitado continua com a linha em que foi lido
+        assertEquals(8, ((AssignStmt) fresh.get(5)).name.line);
+        assertEquals(5, ((AssignStmt) ast.get(5)).name.line);
+    }
+
+    @Test
+    void testRecoveryReportsEverySyntaxError() {
+        String code =
+            "x = 1\n" +
+            "if x > 10\n" +
+            "    print(x +)\n" +
+            "    y = 2\n" +
+            "z = (1 + 2\n" +
+            "print(z)\n" +
+            "    w = 3\n" +
+            "while x:\n" +
+            "    x = x - 1 2\n" +
+            "    print(x)\n" +
+            "else:\n" +
+            "    q = 1\n" +
+            "fim = 0\n";
+        List<String> expected = List.of(
+            "Erro Sintático na linha 2: Esperado ':' após a condição.",
+            "Erro Sintático na linha 3: Expressão esperada.",
+            "Erro Sintático na linha 5: Esperado ')' após expressão.",
+            "Erro Sintático na linha 7: Esperado um comando válido.",
+            "Erro Sintático na linha 9: Esperado nova linha após atribuição.",
+            "Erro Sintático na linha 11: Esperado um comando válido.");
+
+        for (boolean explicitStack : new boolean[] { false, true }) {
+            MiniPythonParser parser = new MiniPythonParser(TokenStream.of(code));
+            parser.setExplicitStack(explicitStack);
+            ParseResult result = parser.parseWithRecovery();
+
+            assertTrue(result.hasErrors());
+            assertEquals(expected, result.errors, "pilha explícita: " + explicitStack);
+            // Sobram os comandos sem erro: x = 1, print(z), o while (sem a linha com erro) e fim = 0
+            assertEquals(4, result.statements.size());
+            assertTrue(result.statements.get(2) instanceof WhileStmt);
+            assertEquals(1, ((BlockStmt) ((WhileStmt) result.statements.get(2)).body).statements.size());
+        }
+
+        // O primeiro erro é o mesmo que parse() lança
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> parse(code));
+        assertEquals(expected.get(0), exception.getMessage());
+        assertFalse(new MiniPythonParser(TokenStream.of("x = 1\n")).parseWithRecovery().hasErrors());
+    }
+
     @Test
     void testSemanticErrorUndeclaredVariable() {
         // Teste Semântico: Variável não existe
@@ -79,4 +409,112 @@ class MiniPythonParserTest {
         
         assertTrue(exception.getMessage().contains("incompatível") || exception.getMessage().contains("inválida"));
     }
+
+    @Test
+    void testSemanticChecksUnaryOperandInBothRepresentations() {
+        String[] invalid = { "print(-z)\n", "x = \"a\"\ny = -x\n", "x = 1\nif not (x > \"a\"):\n    print(x)\n" };
+        for (String code : invalid) {
+            RuntimeException objects = assertThrows(RuntimeException.class, () -> analyze(code));
+            RuntimeException arena = assertThrows(RuntimeException.class,
+                () -> new MiniPythonSemantic().analyze(AstArena.of(parse(code))));
+            assertEquals(objects.getMessage(), arena.getMessage());
+            assertTrue(objects.getMessage().startsWith("Erro Semântico"));
+        }
+        analyze("x = 2.5\ny = -x * 2\nif not x:\n    print(-y)\n");
+    }
+
+    @Test
+    void testSlotsAreResolvedOnDemand() {
+        String code = "x = 1\ny = x + 2\nwhile y < 10:\n    z = y * x\n    y = z\nprint(y)\n";
+        List<Stmt> stmts = parse(code);
+        AssignStmt x = (AssignStmt) stmts.get(0);
+        AssignStmt y = (AssignStmt) stmts.get(1);
+        AssignStmt z = (AssignStmt) ((BlockStmt) ((WhileStmt) stmts.get(2)).body).statements.get(0);
+        BinaryExpr product = (BinaryExpr) z.value;
+
+        // O parser não resolve nomes; a primeira consulta resolve e guarda a tabela
+        assertEquals(-1, x.slot);
+        SymbolTable symbols = SymbolTable.of(stmts);
+        assertSame(symbols, SymbolTable.of(stmts));
+        assertEquals(0, x.slot);
+        assertEquals(1, y.slot);
+        assertEquals(2, z.slot);
+        assertEquals(1, ((VariableExpr) product.left).slot);
+        assertEquals(0, ((VariableExpr) product.right).slot);
+        assertEquals(3, SymbolTable.of(stmts).size());
+        assertEquals("z", SymbolTable.of(stmts).name(z.slot));
+
+        // Uma lista que não veio do parser é resolvida com a mesma numeração
+        List<Stmt> copy = new ArrayList<>(parse(code));
+        SymbolTable table = SymbolTable.of(copy);
+        assertEquals(3, table.size());
+        assertEquals(2, ((AssignStmt) ((BlockStmt) ((WhileStmt) copy.get(2)).body).statements.get(0)).slot);
+
+        AstArena arena = AstArena.of(stmts);
+        assertEquals(3, arena.slotCount());
+        assertEquals(1, arena.slot(arena.root(1)));
+        assertEquals("y", arena.name(arena.root(1)));
+
+        // parseToArena interna os nomes ao converter cada comando, na mesma ordem
+        AstArena direct = new MiniPythonParser(TokenStream.of(code)).parseToArena();
+        assertEquals(3, direct.slotCount());
+        assertEquals("y", direct.name(direct.root(1)));
+        assertEquals(2, direct.slot(direct.child(direct.body(direct.root(2)), 0)));
+    }
+
+    @Test
+    void testFlowSensitiveTypesJoinAtMergesAndLoops() {
+        String code =
+            "x = 1\n" +
+            "y = 2\n" +
+            "if x > 0:\n" +
+            "    y = 2.5\n" +
+            "    z = \"a\"\n" +
+            "else:\n" +
+            "    y = 1.5\n" +
+            "print(y)\n" +
+            "while x < 10:\n" +
+            "    print(x)\n" +
+            "    x = x + 0.5\n" +
+            "print(z + \"b\")\n";
+        List<Stmt> stmts = parse(code);
+        new MiniPythonSemantic().analyze(stmts);
+
+        // Os dois ramos definem y como FLOAT; o INT de antes do if não chega ao print
+        assertEquals(Type.FLOAT, ((PrintStmt) stmts.get(3)).expression.type);
+        // No laço, x chega como INT da entrada e FLOAT da volta
+        BlockStmt body = (BlockStmt) ((WhileStmt) stmts.get(4)).body;
+        assertEquals(Type.UNKNOWN, ((PrintStmt) body.statements.get(0)).expression.type);
+        // z só é definida no then: a leitura é aceita, mas fica sem tipo
+        BinaryExpr concat = (BinaryExpr) ((PrintStmt) stmts.get(5)).expression;
+        assertNull(concat.left.type);
+        assertEquals(Type.STRING, concat.right.type);
+
+        // Lida no laço antes de ser definida: só a volta do laço a define
+        String[] loopCarried = {
+            "i = 0\nwhile i < 3:\n    if i > 0:\n        print(w)\n    w = i\n    i = i + 1\n",
+            "i = 0\nwhile i < 2:\n    print(x + 1)\n    x = 5\n    i = i + 1\n",
+        };
+        for (String loop : loopCarried) {
+            RuntimeException error = assertThrows(RuntimeException.class, () -> analyze(loop));
+            assertTrue(error.getMessage().contains("não definida"), error.getMessage());
+        }
+
+        // Nenhum caminho define x antes do else
+        RuntimeException undefined = assertThrows(RuntimeException.class,
+            () -> analyze("if 1 > 0:\n    x = 1\nelse:\n    print(x)\n"));
+        assertTrue(undefined.getMessage().contains("'x' não definida"));
+
+        // O erro de tipo da primeira passada some quando y chega pela volta
+        // do laço como INT (STRING ou INT: UNKNOWN)
+        analyze("y = \"a\"\nx = 1\nwhile x < 10:\n    print(y + 1)\n    y = 2\n    x = x + 1\n");
+
+        // ... e fica quando nenhum tipo que chega pela volta o desfaz
+        String invalid = "x = 1\nwhile x < 10:\n    print(x - \"a\")\n    x = x + 1\n";
+        RuntimeException objects = assertThrows(RuntimeException.class, () -> analyze(invalid));
+        RuntimeException arena = assertThrows(RuntimeException.class,
+            () -> new MiniPythonSemantic().analyze(AstArena.of(parse(invalid))));
+        assertEquals("Erro Semântico: Operação aritmética inválida com STRING.", objects.getMessage());
+        assertEquals(objects.getMessage(), arena.getMessage());
+    }
 }
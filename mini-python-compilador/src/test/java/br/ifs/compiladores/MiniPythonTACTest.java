@@ -3,8 +3,15 @@ package br.ifs.compiladores;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 class MiniPythonTACTest {
 
@@ -29,6 +36,61 @@ class MiniPythonTACTest {
         return generator.generate(statements);
     }
 
+    @Test
+    void testTokenStreamParserProducesSameTAC() {
+        String code =
+            "x = 10 + 5 * 2\n" +
+            "while x > 0:\n" +
+            "    if x == 3:\n" +
+            "        print(\"tres\")\n" +
+            "    else:\n" +
+            "        print(x / 2.5)\n" +
+            "    x = x - 1\n";
+
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        List<TACInstruction> fromStream = new MiniPythonTACGenerator().generate(statements);
+
+        assertEquals(generateTAC(code).toString(), fromStream.toString());
+    }
+
+    @Test
+    void testLexerDrivenParsersProduceSameTAC() {
+        // Maior que a fila do lexer concorrente, para passar várias vezes pelo buffer circular
+        String code = (
+            "x = 10 + 5 * 2\n" +
+            "while x > 0:\n" +
+            "    if x == 3:\n" +
+            "        print(\"tres\")\n" +
+            "    x = x - 1\n").repeat(200);
+        String expected = generateTAC(code).toString();
+
+        for (boolean concurrent : new boolean[] { false, true }) {
+            MiniPythonLexer lexer = new MiniPythonLexer(new StringReader(code));
+            List<Stmt> statements = new MiniPythonParser(lexer, concurrent).parse();
+            assertEquals(expected, new MiniPythonTACGenerator().generate(statements).toString(), "concorrente: " + concurrent);
+        }
+    }
+
+    @Test
+    void testArenaProducesSameTAC() {
+        String code =
+            "x = int(input())\n" +
+            "while x > 0:\n" +
+            "    if x == 3:\n" +
+            "        print(\"tres\" + \"!\")\n" +
+            "    else:\n" +
+            "        print(-x / 2.5)\n" +
+            "    x = x - 1\n";
+
+        AstArena arena = new MiniPythonParser(TokenStream.of(code)).parseToArena();
+        new MiniPythonSemantic().analyze(arena);
+        assertEquals(generateTAC(code).toString(), new MiniPythonTACGenerator().generate(arena).toString());
+
+        // Conversão direta no parser e conversão de List<Stmt> geram a mesma arena
+        assertEquals(2, arena.rootCount());
+        assertEquals(AstArena.of(new MiniPythonParser(TokenStream.of(code)).parse()).size(), arena.size());
+    }
+
     @Test
     void testArithmeticExpression() {
         // Teste de expressão matemática simples: x = 10 + 5 * 2
@@ -104,4 +166,490 @@ class MiniPythonTACTest {
         
         assertTrue(jumpsBack, "O loop deve ter um GOTO voltando para o início (" + startLabel + ")");
     }
+
+    // "op:tipo" de cada instrução, com "=" para cópias
+    private List<String> typedOps(List<TACInstruction> tac) {
+        List<String> ops = new ArrayList<>();
+        for (TACInstruction instr : tac) ops.add((instr.op.isEmpty() ? "=" : instr.op) + ":" + instr.type);
+        return ops;
+    }
+
+    @Test
+    void testTypeSpecializedTAC() {
+        String code =
+            "a = 1 + 2\n" +
+            "b = a * 1.5\n" +
+            "c = \"x\" + \"y\"\n" +
+            "if a < b:\n" +
+            "    print(c)\n" +
+            "i = 0\n" +
+            "while i < 3:\n" +
+            "    i = i + 0.5\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        List<String> untyped = typedOps(new MiniPythonTACGenerator().generate(statements));
+        new MiniPythonSemantic().analyze(statements);
+        List<TACInstruction> tac = new MiniPythonTACGenerator().generate(statements);
+
+        assertEquals(List.of(
+            "+:INT", "=:INT",               // soma de inteiros
+            "*:FLOAT", "=:FLOAT",           // INT * FLOAT
+            "+:STRING", "=:STRING",         // concatenação
+            "<:FLOAT", "IF_FALSE:BOOLEAN",  // INT < FLOAT comparado como FLOAT
+            "PRINT:STRING", "GOTO:null", "LABEL:null", "LABEL:null",
+            "=:INT",
+            "LABEL:null",
+            "<:null", "IF_FALSE:BOOLEAN",   // i é INT ou FLOAT no cabeçalho: genérica
+            "+:null", "=:null",
+            "GOTO:null", "LABEL:null"), typedOps(tac));
+
+        // Sem análise semântica todas são genéricas; o texto do TAC não muda
+        assertTrue(untyped.stream().allMatch(op -> op.endsWith(":null")));
+        assertEquals(generateTAC(code).toString(), tac.toString());
+
+        AstArena arena = new MiniPythonParser(TokenStream.of(code)).parseToArena();
+        new MiniPythonSemantic().analyze(arena);
+        assertEquals(typedOps(tac), typedOps(new MiniPythonTACGenerator().generate(arena)));
+
+        // Booleano na aritmética vale como int, mas a instrução não pode
+        // supor um operando int: fica genérica, e o resultado é INT
+        String negated =
+            "a = 1\n" +
+            "b = 2\n" +
+            "print(-(a < b))\n" +
+            "c = -(b >= a)\n" +
+            "d = (a < b) + 1\n";
+        statements = new MiniPythonParser(TokenStream.of(negated)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        assertEquals(List.of(
+            "=:INT", "=:INT",
+            "<:INT", "-:null", "PRINT:INT",
+            ">=:INT", "-:null", "=:INT",
+            "<:INT", "+:null", "=:INT"),
+            typedOps(new MiniPythonTACGenerator().generate(statements)));
+    }
+
+    @Test
+    void testMaybeUndefinedReadsStayGeneric() {
+        String code =
+            "i = 0\n" +
+            "while i < 2:\n" +
+            "    x = 5\n" +
+            "    i = i + 1\n" +
+            "print(x + 1)\n" +          // o laço pode não executar
+            "if i > 0:\n" +
+            "    z = \"a\"\n" +
+            "print(z + \"b\")\n" +      // só o then define z
+            "y = x\n" +
+            "print(y * 2)\n";           // y está definida: a cópia de x é que não tem tipo
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        assertEquals(List.of(
+            "=:INT",
+            "LABEL:null", "<:INT", "IF_FALSE:BOOLEAN",
+            "=:INT", "+:INT", "=:INT",
+            "GOTO:null", "LABEL:null",
+            "+:null", "PRINT:INT",
+            ">:INT", "IF_FALSE:BOOLEAN", "=:STRING", "GOTO:null", "LABEL:null", "LABEL:null",
+            "+:null", "PRINT:STRING",
+            "=:null",
+            "*:INT", "PRINT:INT"),
+            typedOps(new MiniPythonTACGenerator().generate(statements)));
+    }
+
+    @Test
+    void testTypeOfEachSpecializedForm() {
+        String code =
+            "i = int(input())\n" +
+            "f = float(input())\n" +
+            "s = input()\n" +
+            "a = i + 1\n" +
+            "b = f + 2.5\n" +
+            "c = s + \"!\"\n" +
+            "d = i - 1\n" +
+            "e = f * 2.0\n" +
+            "g = i / 2\n" +
+            "h = i + f\n" +
+            "print(-i)\n" +
+            "print(-f)\n" +
+            "print(not (i < 3))\n" +
+            "print(f >= 1.0)\n" +
+            "print(i == f)\n" +
+            "print(s != \"x\")\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        List<String> forms = new ArrayList<>();
+        for (int i = 0; i < program.size(); i++) {
+            if (program.opcode(i) != TACOpcode.COPY && program.opcode(i) != TACOpcode.PRINT) {
+                forms.add(program.opcode(i) + ":" + program.type(i));
+            }
+        }
+
+        assertEquals(List.of(
+            "CALL:STRING", "PARAM:STRING", "CALL:INT",      // int(input())
+            "CALL:STRING", "PARAM:STRING", "CALL:FLOAT",
+            "CALL:STRING",
+            "ADD:INT", "ADD:FLOAT", "ADD:STRING",           // soma, soma, concatenação
+            "SUB:INT", "MUL:FLOAT", "DIV:INT", "ADD:FLOAT", // INT + FLOAT é FLOAT
+            "NEG:INT", "NEG:FLOAT",
+            "LT:INT", "NOT:BOOLEAN",
+            "GTE:FLOAT", "EQ:FLOAT",                        // INT == FLOAT comparado como FLOAT
+            "NEQ:STRING"), forms);
+        assertEquals(Type.INT, program.type(3));            // i = t2
+        assertEquals(Type.STRING, program.type(9));         // s = t5
+    }
+
+    @Test
+    void testCompactTACGrowsPastInitialCapacity() throws Exception {
+        // Poucos comandos com muitas instruções: o array cresce várias vezes
+        StringBuilder code = new StringBuilder("x = 1\nwhile x < 2:\n");
+        for (int i = 0; i < 200; i++) code.append("    x = x + 1\n");
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code.toString())).parse();
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        assertEquals(406, program.size());
+        assertEquals(generateTAC(code.toString()).toString(), program.toString());
+
+        TACProgram copy = program.emptyCopy();
+        for (int i = 0; i < program.size(); i++) {
+            copy.add(program.opcode(i), program.result(i), program.arg1(i), program.arg2(i), program.type(i));
+        }
+        assertEquals(program.toString(), copy.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        program.writeTo(new DataOutputStream(bytes));
+        TACProgram read = TACProgram.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(program.toString(), read.toString());
+    }
+
+    @Test
+    void testCompactTACRoundTrip() throws Exception {
+        String code =
+            "x = 10\n" +
+            "y = -x * 2.5\n" +
+            "s = \"olá\"\n" +
+            "while not (x < 0):\n" +
+            "    x = x - 1\n" +
+            "    if x == 3:\n" +
+            "        print(s)\n" +
+            "z = int(input())\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        List<TACInstruction> tac = new MiniPythonTACGenerator().generate(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+
+        // Mesmo texto e mesmos tipos que a lista de TACInstruction
+        assertEquals(tac.toString(), program.toString());
+        assertEquals(typedOps(tac), typedOps(program.toInstructions()));
+        assertEquals(TACOpcode.NEG, program.opcode(1));
+        assertEquals(TACProgram.VARIABLE, TACProgram.tag(program.arg1(1)));
+        assertEquals("x", program.variableName(TACProgram.index(program.arg1(1))));
+
+        // Gravar e ler de volta não perde nada
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        program.writeTo(new DataOutputStream(bytes));
+        TACProgram read = TACProgram.readFrom(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(program.size(), read.size());
+        for (int i = 0; i < program.size(); i++) {
+            assertEquals(program.opcode(i), read.opcode(i));
+            assertEquals(program.type(i), read.type(i));
+            assertEquals(program.result(i), read.result(i));
+            assertEquals(program.arg1(i), read.arg1(i));
+            assertEquals(program.arg2(i), read.arg2(i));
+        }
+        assertEquals(program.toString(), read.toString());
+        assertEquals(typedOps(tac), typedOps(read.toInstructions()));
+
+        AstArena arena = new MiniPythonParser(TokenStream.of(code)).parseToArena();
+        new MiniPythonSemantic().analyze(arena);
+        assertEquals(program.toString(), new MiniPythonTACGenerator().generateCompact(arena).toString());
+    }
+
+    @Test
+    void testControlFlowGraph() {
+        String code =
+            "i = 0\n" +                  // B0: i = 0
+            "while i < 10:\n" +          // B1: L1, t1 = i < 10, ifFalse
+            "    j = 0\n" +              // B2
+            "    while j < i:\n" +       // B3: cabeçalho interno
+            "        j = j + 1\n" +      // B4
+            "    if j == 5:\n" +         // B5
+            "        print(j)\n" +       // B6
+            "    i = i + 1\n" +          // B7 (L5), B8 (L4: i = i + 1, goto L1)
+            "print(i)\n";               // B9
+        List<TACInstruction> tac = generateTAC(code);
+        ControlFlowGraph cfg = ControlFlowGraph.of(tac);
+
+        assertEquals(10, cfg.blockCount());
+        assertEquals("LABEL", tac.get(cfg.blockStart(1)).op);
+        assertEquals(2, cfg.successorCount(1));   // corpo e saída do laço
+        assertEquals(2, cfg.successor(1, 0));
+        assertEquals(9, cfg.successor(1, 1));
+        assertEquals(2, cfg.predecessorCount(1)); // entrada e aresta de retorno
+
+        // RPO: a entrada primeiro, cada bloco antes dos que ele domina
+        int[] rpo = cfg.reversePostorder();
+        assertEquals(10, rpo.length);
+        assertEquals(0, rpo[0]);
+        for (int b = 1; b < cfg.blockCount(); b++) {
+            assertTrue(cfg.rpoIndex(cfg.idom(b)) < cfg.rpoIndex(b));
+        }
+        assertEquals(1, cfg.idom(2));
+        assertEquals(3, cfg.idom(5));
+        assertEquals(1, cfg.idom(9));
+        assertTrue(cfg.dominates(1, 8));
+        assertFalse(cfg.dominates(6, 7));
+
+        // Dois laços: o interno (cabeçalho B3) dentro do externo (B1)
+        assertEquals(2, cfg.loopCount());
+        int inner = cfg.loopOf(4);
+        int outer = cfg.loopOf(6);
+        assertEquals(3, cfg.loopHeader(inner));
+        assertEquals(1, cfg.loopHeader(outer));
+        assertEquals(outer, cfg.loopParent(inner));
+        assertEquals(2, cfg.loopDepth(inner));
+        assertTrue(cfg.loopContains(outer, 4));
+        assertFalse(cfg.loopContains(inner, 5));
+        assertEquals(-1, cfg.loopOf(9));
+
+        // A forma compacta dá o mesmo grafo
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(
+            new MiniPythonParser(TokenStream.of(code)).parse());
+        ControlFlowGraph compact = ControlFlowGraph.of(program);
+        assertArrayEquals(rpo, compact.reversePostorder());
+        for (int b = 0; b < cfg.blockCount(); b++) {
+            assertEquals(cfg.idom(b), compact.idom(b));
+            assertEquals(cfg.loopOf(b), compact.loopOf(b));
+        }
+    }
+
+    @Test
+    void testSparseConditionalConstantPropagation() {
+        String code =
+            "DEBUG = 0\n" +
+            "LIMIT = 10 * 2\n" +
+            "name = \"a\" + \"b\"\n" +
+            "if DEBUG == 1:\n" +
+            "    print(name)\n" +
+            "else:\n" +
+            "    print(name + \"!\")\n" +
+            "i = 0\n" +
+            "while i < LIMIT:\n" +
+            "    i = i + 1\n" +
+            "x = LIMIT / 4\n" +
+            "ok = x > 1\n" +
+            "print(x + 1)\n" +
+            "print(i)\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        ConstantPropagation propagation = new ConstantPropagation();
+        TACProgram optimized = propagation.optimize(program);
+
+        assertEquals(List.of(
+            "DEBUG = 0", "LIMIT = 20", "name = ab",
+            "goto L1", "L1:", "print ab!", "L2:",       // then removido, ifFalse vira goto
+            "i = 0", "L3:",
+            "t5 = i < 20", "ifFalse t5 goto L4",         // i varia no laço: phi não é constante
+            "t6 = i + 1", "i = t6", "goto L3", "L4:",
+            "x = 5", "ok = True", "print 6", "print i"),
+            optimized.toInstructions().stream().map(TACInstruction::toString).collect(Collectors.toList()));
+        assertEquals(1, propagation.foldedBranches());
+        assertEquals(1, propagation.removedBlocks());
+        assertEquals(Type.BOOLEAN, optimized.type(16));
+
+        // Sem constantes na condição nada muda
+        List<Stmt> loop = new MiniPythonParser(TokenStream.of("n = int(input())\nwhile n > 0:\n    n = n - 1\n")).parse();
+        TACProgram plain = new MiniPythonTACGenerator().generateCompact(loop);
+        assertEquals(plain.toString(), new ConstantPropagation().optimize(plain).toString());
+    }
+
+    @Test
+    void testLocalValueNumbering() {
+        String code =
+            "a = int(input())\n" +
+            "b = float(input())\n" +
+            "x = a * b + 1\n" +
+            "y = b * a + 2\n" +       // b * a é a * b: reaproveitado
+            "z = y\n" +
+            "print(z - a * b)\n" +    // z é cópia de y
+            "while a > 0:\n" +
+            "    a = a - 1\n" +
+            "    c = a - 1\n" +       // a mudou: não é o mesmo a - 1
+            "    print(c)\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        LocalValueNumbering numbering = new LocalValueNumbering();
+        TACProgram optimized = numbering.optimize(program);
+
+        assertEquals(List.of(
+            "t1 = call input, 0", "null = PARAM t1", "a = call int, 1",
+            "t3 = call input, 0", "null = PARAM t3", "b = call float, 1",
+            "t5 = a * b", "x = t5 + 1", "y = t5 + 2", "z = y",
+            "t10 = y - t5", "print t10",
+            "L1:", "t11 = a > 0", "ifFalse t11 goto L2",
+            "a = a - 1", "c = a - 1", "print c", "goto L1", "L2:"),
+            optimized.toInstructions().stream().map(TACInstruction::toString).collect(Collectors.toList()));
+        assertEquals(program.size(), numbering.instructionsBefore());
+        assertEquals(20, numbering.instructionsAfter());
+        assertTrue(numbering.report().contains("*        3 -> 1"));
+    }
+
+    @Test
+    void testLoopInvariantCodeMotion() {
+        String code =
+            "n = int(input())\n" +
+            "s = float(input())\n" +
+            "i = 0\n" +
+            "while i < n * 2:\n" +
+            "    j = 0\n" +
+            "    while j < n * 2 + 1:\n" +           // invariante nos dois laços
+            "        print(j * (s * 3.0) + i)\n" +   // s * 3.0 também
+            "        j = j + 1\n" +
+            "    if i > 5:\n" +
+            "        print(n / 2)\n" +               // divisão fora do cabeçalho: pode não rodar
+            "    i = i + 1\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        LoopInvariantCodeMotion motion = new LoopInvariantCodeMotion();
+        List<String> tac = motion.optimize(program).toInstructions().stream()
+            .map(TACInstruction::toString).collect(Collectors.toList());
+
+        assertEquals(4, motion.hoistedInstructions());
+        assertEquals(List.of("i = 0", "t5 = n * 2", "t7 = n * 2", "t8 = t7 + 1", "t10 = s * 3.0", "L1:", "t6 = i < t5"),
+            tac.subList(8, 15));
+        assertTrue(tac.contains("t15 = n / 2"));
+        assertEquals(program.size(), tac.size());
+
+        // Salto de fora do laço para o cabeçalho passa a ir para o pré-cabeçalho
+        SymbolTable symbols = new SymbolTable();
+        TACProgram jump = new TACProgram(symbols, 8);
+        int n = jump.variable(symbols.slot("n")), i = jump.variable(symbols.slot("i"));
+        int start = jump.newLabel(), end = jump.newLabel();
+        int t1 = jump.newTemp(), t2 = jump.newTemp(), t3 = jump.newTemp();
+        jump.add(TACOpcode.GOTO, start, TACProgram.NONE, TACProgram.NONE, null);
+        jump.add(TACOpcode.LABEL, start, TACProgram.NONE, TACProgram.NONE, null);
+        jump.add(TACOpcode.MUL, t1, n, jump.literal(2), Type.INT);
+        jump.add(TACOpcode.LT, t2, i, t1, Type.INT);
+        jump.add(TACOpcode.IF_FALSE, end, t2, TACProgram.NONE, Type.BOOLEAN);
+        jump.add(TACOpcode.ADD, t3, i, jump.literal(1), Type.INT);
+        jump.add(TACOpcode.COPY, i, t3, TACProgram.NONE, Type.INT);
+        jump.add(TACOpcode.GOTO, start, TACProgram.NONE, TACProgram.NONE, null);
+        jump.add(TACOpcode.LABEL, end, TACProgram.NONE, TACProgram.NONE, null);
+        assertEquals("[goto L3, L3:, t1 = n * 2, L1:, t2 = i < t1, ifFalse t2 goto L2, t3 = i + 1, i = t3, goto L1, L2:]",
+            new LoopInvariantCodeMotion().optimize(jump).toString());
+    }
+
+    @Test
+    void testTempSlotAllocation() {
+        String code =
+            "n = int(input())\n" +
+            "i = 0\n" +
+            "while i < n * 2:\n" +           // n * 2 sai do laço e fica vivo nele todo
+            "    print(i * 3 + (i - 1))\n" +
+            "    i = i + 1\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram hoisted = new LoopInvariantCodeMotion().optimize(new MiniPythonTACGenerator().generateCompact(statements));
+        TempSlotAllocator allocator = new TempSlotAllocator();
+        TACProgram allocated = allocator.optimize(hoisted);
+
+        assertEquals("[t1 = call input, 0, null = PARAM t1, t1 = call int, 1, n = t1, i = 0, t1 = n * 2, " +
+            "L1:, t2 = i < t1, ifFalse t2 goto L2, t2 = i * 3, t3 = i - 1, t3 = t2 + t3, print t3, " +
+            "t3 = i + 1, i = t3, goto L1, L2:]", allocated.toString());
+        assertEquals(8, allocator.totalTemps());
+        assertEquals(3, allocator.slots());
+        assertEquals(3, allocated.tempCount());
+        assertEquals(1, allocator.crossBlockTemps());
+    }
+
+    @Test
+    void testPeepholeOptimizer() {
+        String code =
+            "x = int(input())\n" +
+            "if x > 0:\n" +
+            "    if x > 10:\n" +
+            "        print(x)\n" +      // goto L4 -> L4: goto L2: vai direto para L2
+            "    else:\n" +
+            "        print(0)\n" +
+            "else:\n" +
+            "    print(1)\n" +
+            "if x > 5:\n" +             // sem else: "goto L6; L5: L6:" vira "L5:"
+            "    print(2)\n" +
+            "print(3)\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        TACProgram program = new MiniPythonTACGenerator().generateCompact(statements);
+        PeepholeOptimizer peephole = new PeepholeOptimizer();
+        List<String> tac = peephole.optimize(program).toInstructions().stream()
+            .map(TACInstruction::toString).collect(Collectors.toList());
+
+        assertEquals(List.of(
+            "ifFalse t4 goto L3", "print x", "goto L2", "L3:", "print 0", "goto L2", "L1:", "print 1", "L2:",
+            "t5 = x > 5", "ifFalse t5 goto L5", "print 2", "L5:", "print 3"),
+            tac.subList(7, tac.size()));
+        assertEquals(1, peephole.threadedJumps());
+        assertEquals(1, peephole.removedJumps());
+        assertEquals(2, peephole.removedLabels());
+
+        // Só juntar labels: o goto para o label seguinte fica
+        TACProgram merged = new PeepholeOptimizer(EnumSet.of(PeepholeOptimizer.Rule.MERGE_LABELS)).optimize(program);
+        assertTrue(merged.toString().endsWith("goto L5, L5:, print 3]"));
+
+        // ifFalse sobre um goto vira ifTrue
+        SymbolTable symbols = new SymbolTable();
+        TACProgram loop = new TACProgram(symbols, 8);
+        int x = loop.variable(symbols.slot("x"));
+        int body = loop.newLabel(), start = loop.newLabel();
+        loop.add(TACOpcode.LABEL, start, TACProgram.NONE, TACProgram.NONE, null);
+        loop.add(TACOpcode.PRINT, TACProgram.NONE, x, TACProgram.NONE, null);
+        loop.add(TACOpcode.IF_FALSE, body, x, TACProgram.NONE, null);
+        loop.add(TACOpcode.GOTO, start, TACProgram.NONE, TACProgram.NONE, null);
+        loop.add(TACOpcode.LABEL, body, TACProgram.NONE, TACProgram.NONE, null);
+        loop.add(TACOpcode.PRINT, TACProgram.NONE, loop.literal(0), TACProgram.NONE, null);
+        peephole = new PeepholeOptimizer();
+        TACProgram inverted = peephole.optimize(loop);
+        assertEquals("[L2:, print x, ifTrue x goto L2, print 0]", inverted.toString());
+        assertEquals(1, peephole.invertedBranches());
+        assertEquals(2, ControlFlowGraph.of(inverted).blockCount());
+    }
+
+    @Test
+    void testShortCircuitJumpingCode() {
+        String code =
+            "x = int(input())\n" +
+            "y = x > 3 and int(input())\n" +                  // input() só se x > 3
+            "while x > 0 and not (x == 5 or x == 7):\n" +
+            "    if x > 10 or x < 2:\n" +
+            "        print(y or 0)\n" +
+            "    x = x - 1\n";
+        List<Stmt> statements = new MiniPythonParser(TokenStream.of(code)).parse();
+        new MiniPythonSemantic().analyze(statements);
+        List<String> tac = new MiniPythonTACGenerator().generate(statements).stream()
+            .map(TACInstruction::toString).collect(Collectors.toList());
+
+        assertEquals(List.of(
+            "t4 = x > 3", "t3 = t4", "ifFalse t3 goto L1",
+            "t5 = call input, 0", "null = PARAM t5", "t6 = call int, 1", "t3 = t6", "L1:", "y = t3",
+            "L2:", "t7 = x > 0", "ifFalse t7 goto L3",             // and: falso sai do laço
+            "t8 = x == 5", "ifTrue t8 goto L3",                    // not (a or b): verdadeiro sai
+            "t9 = x == 7", "ifTrue t9 goto L3",
+            "t10 = x > 10", "ifTrue t10 goto L6",                  // or: verdadeiro entra no then
+            "t11 = x < 2", "ifFalse t11 goto L4", "L6:",
+            "t12 = y", "ifTrue t12 goto L7", "t12 = 0", "L7:", "print t12"),
+            tac.subList(4, 30));
+        assertFalse(tac.stream().anyMatch(i -> i.contains("&&") || i.contains("||") || i.contains("!")));
+
+        AstArena arena = new MiniPythonParser(TokenStream.of(code)).parseToArena();
+        new MiniPythonSemantic().analyze(arena);
+        assertEquals(tac.toString(), new MiniPythonTACGenerator().generate(arena).toString());
+
+        // O temporário do and/or tem duas definições: a constante continua lá
+        String folded = new ConstantPropagation().optimize(
+            new MiniPythonTACGenerator().generateCompact(new MiniPythonParser(TokenStream.of(
+                "a = int(input())\nb = a > 1 or 2\nprint(b)\n")).parse())).toString();
+        assertTrue(folded.contains("t3 = 2, L1:, b = t3"), folded);
+    }
 }